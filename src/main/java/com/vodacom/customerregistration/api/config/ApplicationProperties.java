@@ -1,6 +1,11 @@
 package com.vodacom.customerregistration.api.config;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
 
 /**
  * Properties specific to Customer Registration System.
@@ -13,12 +18,36 @@ public class ApplicationProperties {
 
     private final Liquibase liquibase = new Liquibase();
 
+    private final Search search = new Search();
+
+    private final Cache cache = new Cache();
+
+    private final ReadReplicas readReplicas = new ReadReplicas();
+
+    private final ActivityLog activityLog = new ActivityLog();
+
     // jhipster-needle-application-properties-property
 
     public Liquibase getLiquibase() {
         return liquibase;
     }
 
+    public Search getSearch() {
+        return search;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public ReadReplicas getReadReplicas() {
+        return readReplicas;
+    }
+
+    public ActivityLog getActivityLog() {
+        return activityLog;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
     public static class Liquibase {
@@ -33,5 +62,719 @@ public class ApplicationProperties {
             this.asyncStart = asyncStart;
         }
     }
+
+    public static class Search {
+
+        private final Outbox outbox = new Outbox();
+
+        private final Refresh refresh = new Refresh();
+
+        private final Reindex reindex = new Reindex();
+
+        private final Autocomplete autocomplete = new Autocomplete();
+
+        private final Cursor cursor = new Cursor();
+
+        private final Query query = new Query();
+
+        private final Cache cache = new Cache();
+
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        public Outbox getOutbox() {
+            return outbox;
+        }
+
+        public Reindex getReindex() {
+            return reindex;
+        }
+
+        public Refresh getRefresh() {
+            return refresh;
+        }
+
+        public Autocomplete getAutocomplete() {
+            return autocomplete;
+        }
+
+        public Cursor getCursor() {
+            return cursor;
+        }
+
+        public Query getQuery() {
+            return query;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        /**
+         * Circuit breaker switching customer search to Postgres while Elasticsearch fails or is slow. It opens once
+         * {@code failure-rate-threshold} percent of the last {@code sliding-window-size} calls (and at least
+         * {@code minimum-calls}) failed or took longer than {@code slow-call-ms}, and tries Elasticsearch again
+         * after {@code open-duration-ms}.
+         */
+        public static class CircuitBreaker {
+
+            private int failureRateThreshold = 50;
+
+            private int slidingWindowSize = 20;
+
+            private int minimumCalls = 10;
+
+            private long slowCallMs = 1500;
+
+            private long openDurationMs = 30000;
+
+            public int getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public void setFailureRateThreshold(int failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+
+            public int getSlidingWindowSize() {
+                return slidingWindowSize;
+            }
+
+            public void setSlidingWindowSize(int slidingWindowSize) {
+                this.slidingWindowSize = slidingWindowSize;
+            }
+
+            public int getMinimumCalls() {
+                return minimumCalls;
+            }
+
+            public void setMinimumCalls(int minimumCalls) {
+                this.minimumCalls = minimumCalls;
+            }
+
+            public long getSlowCallMs() {
+                return slowCallMs;
+            }
+
+            public void setSlowCallMs(long slowCallMs) {
+                this.slowCallMs = slowCallMs;
+            }
+
+            public long getOpenDurationMs() {
+                return openDurationMs;
+            }
+
+            public void setOpenDurationMs(long openDurationMs) {
+                this.openDurationMs = openDurationMs;
+            }
+        }
+
+        /**
+         * Cache of offset-paged search results, holding at most {@code max-entries} pages per index for
+         * {@code ttl-seconds}; writes to an index drop its cached pages.
+         */
+        public static class Cache {
+
+            private boolean enabled = true;
+
+            private int maxEntries = 1000;
+
+            private long ttlSeconds = 30;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public long getTtlSeconds() {
+                return ttlSeconds;
+            }
+
+            public void setTtlSeconds(long ttlSeconds) {
+                this.ttlSeconds = ttlSeconds;
+            }
+        }
+
+        /**
+         * Guards on user search queries: longer queries or queries with more terms are rejected, and
+         * Elasticsearch stops collecting hits after {@code timeout-ms}, returning what it found so far.
+         */
+        public static class Query {
+
+            private int maxLength = 256;
+
+            private int maxTerms = 10;
+
+            private long timeoutMs = 2000;
+
+            public int getMaxLength() {
+                return maxLength;
+            }
+
+            public void setMaxLength(int maxLength) {
+                this.maxLength = maxLength;
+            }
+
+            public int getMaxTerms() {
+                return maxTerms;
+            }
+
+            public void setMaxTerms(int maxTerms) {
+                this.maxTerms = maxTerms;
+            }
+
+            public long getTimeoutMs() {
+                return timeoutMs;
+            }
+
+            public void setTimeoutMs(long timeoutMs) {
+                this.timeoutMs = timeoutMs;
+            }
+        }
+
+        /**
+         * Cursor paging of search results; the point in time behind a cursor expires when no page
+         * is requested for {@code keep-alive-seconds}.
+         */
+        public static class Cursor {
+
+            private long keepAliveSeconds = 120;
+
+            public long getKeepAliveSeconds() {
+                return keepAliveSeconds;
+            }
+
+            public void setKeepAliveSeconds(long keepAliveSeconds) {
+                this.keepAliveSeconds = keepAliveSeconds;
+            }
+        }
+
+        /**
+         * In-memory prefix index answering autocomplete without a round trip to Elasticsearch.
+         * {@code max-memory-bytes} caps each dictionary; one that grows past it is dropped and
+         * autocomplete for it falls back to Elasticsearch.
+         */
+        public static class Autocomplete {
+
+            private boolean inMemory = true;
+
+            private long maxMemoryBytes = 64L * 1024 * 1024;
+
+            private long resyncIntervalMs = 60_000;
+
+            private long reloadIntervalMs = 3_600_000;
+
+            public boolean isInMemory() {
+                return inMemory;
+            }
+
+            public void setInMemory(boolean inMemory) {
+                this.inMemory = inMemory;
+            }
+
+            public long getMaxMemoryBytes() {
+                return maxMemoryBytes;
+            }
+
+            public void setMaxMemoryBytes(long maxMemoryBytes) {
+                this.maxMemoryBytes = maxMemoryBytes;
+            }
+
+            public long getResyncIntervalMs() {
+                return resyncIntervalMs;
+            }
+
+            public void setResyncIntervalMs(long resyncIntervalMs) {
+                this.resyncIntervalMs = resyncIntervalMs;
+            }
+
+            public long getReloadIntervalMs() {
+                return reloadIntervalMs;
+            }
+
+            public void setReloadIntervalMs(long reloadIntervalMs) {
+                this.reloadIntervalMs = reloadIntervalMs;
+            }
+        }
+
+        /**
+         * Refresh policy applied to index and delete calls, per entity. {@code none} leaves visibility to the
+         * index's refresh_interval. Writes reach Elasticsearch through the outbox after the request has returned,
+         * so no policy gives the writing request read-your-writes; {@code wait_until} only delays the dispatcher.
+         */
+        public static class Refresh {
+
+            private RefreshPolicy customer = RefreshPolicy.NONE;
+
+            private RefreshPolicy agent = RefreshPolicy.NONE;
+
+            public RefreshPolicy getCustomer() {
+                return customer;
+            }
+
+            public void setCustomer(RefreshPolicy customer) {
+                this.customer = customer;
+            }
+
+            public RefreshPolicy getAgent() {
+                return agent;
+            }
+
+            public void setAgent(RefreshPolicy agent) {
+                this.agent = agent;
+            }
+        }
+
+        public static class Outbox {
+
+            private boolean enabled = true;
+
+            private int batchSize = 500;
+
+            private int maxAttempts = 10;
+
+            private long pollIntervalMs = 1000;
+
+            private long initialBackoffMs = 1000;
+
+            private long maxBackoffMs = 300_000;
+
+            private long deleteRetentionMs = 604_800_000;
+
+            private long claimTimeoutMs = 60_000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+
+            public long getPollIntervalMs() {
+                return pollIntervalMs;
+            }
+
+            public void setPollIntervalMs(long pollIntervalMs) {
+                this.pollIntervalMs = pollIntervalMs;
+            }
+
+            public long getInitialBackoffMs() {
+                return initialBackoffMs;
+            }
+
+            public void setInitialBackoffMs(long initialBackoffMs) {
+                this.initialBackoffMs = initialBackoffMs;
+            }
+
+            public long getMaxBackoffMs() {
+                return maxBackoffMs;
+            }
+
+            public void setMaxBackoffMs(long maxBackoffMs) {
+                this.maxBackoffMs = maxBackoffMs;
+            }
+
+            public long getDeleteRetentionMs() {
+                return deleteRetentionMs;
+            }
+
+            public void setDeleteRetentionMs(long deleteRetentionMs) {
+                this.deleteRetentionMs = deleteRetentionMs;
+            }
+
+            public long getClaimTimeoutMs() {
+                return claimTimeoutMs;
+            }
+
+            public void setClaimTimeoutMs(long claimTimeoutMs) {
+                this.claimTimeoutMs = claimTimeoutMs;
+            }
+        }
+
+        public static class Reindex {
+
+            private int fetchSize = 1000;
+
+            private int bulkSize = 500;
+
+            private int workers = 4;
+
+            private int retainedVersions = 1;
+
+            private long jobHeartbeatTimeoutMs = 300_000;
+
+            private long maxFailedDocuments = 0;
+
+            public int getFetchSize() {
+                return fetchSize;
+            }
+
+            public void setFetchSize(int fetchSize) {
+                this.fetchSize = fetchSize;
+            }
+
+            public int getBulkSize() {
+                return bulkSize;
+            }
+
+            public void setBulkSize(int bulkSize) {
+                this.bulkSize = bulkSize;
+            }
+
+            public int getWorkers() {
+                return workers;
+            }
+
+            public void setWorkers(int workers) {
+                this.workers = workers;
+            }
+
+            public int getRetainedVersions() {
+                return retainedVersions;
+            }
+
+            public void setRetainedVersions(int retainedVersions) {
+                this.retainedVersions = retainedVersions;
+            }
+
+            public long getJobHeartbeatTimeoutMs() {
+                return jobHeartbeatTimeoutMs;
+            }
+
+            public void setJobHeartbeatTimeoutMs(long jobHeartbeatTimeoutMs) {
+                this.jobHeartbeatTimeoutMs = jobHeartbeatTimeoutMs;
+            }
+
+            public long getMaxFailedDocuments() {
+                return maxFailedDocuments;
+            }
+
+            public void setMaxFailedDocuments(long maxFailedDocuments) {
+                this.maxFailedDocuments = maxFailedDocuments;
+            }
+        }
+    }
+
+    /**
+     * Local caches of rarely-changing rows, such as authorities and agent details. Each cache holds at most
+     * {@code max-entries} entries for {@code ttl-seconds}; a region listed under {@code regions} overrides either.
+     */
+    public static class Cache {
+
+        private int maxEntries = 1000;
+
+        private long ttlSeconds = 600;
+
+        private final Map<String, Region> regions = new HashMap<>();
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public int maxEntries(String region) {
+            Region settings = regions.get(region);
+            return settings != null && settings.getMaxEntries() != null ? settings.getMaxEntries() : maxEntries;
+        }
+
+        public long ttlSeconds(String region) {
+            Region settings = regions.get(region);
+            return settings != null && settings.getTtlSeconds() != null ? settings.getTtlSeconds() : ttlSeconds;
+        }
+
+        public static class Region {
+
+            private Integer maxEntries;
+
+            private Long ttlSeconds;
+
+            public Integer getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Integer maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Long getTtlSeconds() {
+                return ttlSeconds;
+            }
+
+            public void setTtlSeconds(Long ttlSeconds) {
+                this.ttlSeconds = ttlSeconds;
+            }
+        }
+    }
+
+    /**
+     * Postgres replicas serving read-only transactions. Replication lag is measured every
+     * {@code lag-check-interval-ms}; a replica more than {@code max-lag-ms} behind, not streaming from the primary, or
+     * unreachable, is skipped until it catches up, and reads go to the primary while no replica qualifies.
+     * {@code username} and {@code password} default to the primary's, and need the {@code pg_read_all_stats} role to
+     * see whether the replica is streaming.
+     */
+    public static class ReadReplicas {
+
+        private boolean enabled = false;
+
+        private List<String> urls = new ArrayList<>();
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+        private long connectionTimeoutMs = 2000;
+
+        private long maxLagMs = 5000;
+
+        private long lagCheckIntervalMs = 2000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public long getConnectionTimeoutMs() {
+            return connectionTimeoutMs;
+        }
+
+        public void setConnectionTimeoutMs(long connectionTimeoutMs) {
+            this.connectionTimeoutMs = connectionTimeoutMs;
+        }
+
+        public long getMaxLagMs() {
+            return maxLagMs;
+        }
+
+        public void setMaxLagMs(long maxLagMs) {
+            this.maxLagMs = maxLagMs;
+        }
+
+        public long getLagCheckIntervalMs() {
+            return lagCheckIntervalMs;
+        }
+
+        public void setLagCheckIntervalMs(long lagCheckIntervalMs) {
+            this.lagCheckIntervalMs = lagCheckIntervalMs;
+        }
+    }
+
+    public static class ActivityLog {
+
+        private final Writer writer = new Writer();
+
+        private final Partitions partitions = new Partitions();
+
+        public Writer getWriter() {
+            return writer;
+        }
+
+        public Partitions getPartitions() {
+            return partitions;
+        }
+
+        /**
+         * Background writer of activity logs. Logs wait in a queue of at most {@code queue-capacity} entries, logs
+         * arriving while it is full are dropped, and the queue is written in JDBC batches of up to
+         * {@code batch-size} rows once it holds a full batch or {@code flush-interval-ms} after the last write.
+         * A batch that fails to insert is tried up to {@code max-attempts} times, waiting {@code initial-backoff-ms}
+         * before the first retry and twice as long before each next one. Shutdown waits up to
+         * {@code shutdown-timeout-ms} for the queue to be written.
+         */
+        public static class Writer {
+
+            private int queueCapacity = 10_000;
+
+            private int batchSize = 500;
+
+            private long flushIntervalMs = 1000;
+
+            private int maxAttempts = 4;
+
+            private long initialBackoffMs = 500;
+
+            private long shutdownTimeoutMs = 10_000;
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getFlushIntervalMs() {
+                return flushIntervalMs;
+            }
+
+            public void setFlushIntervalMs(long flushIntervalMs) {
+                this.flushIntervalMs = flushIntervalMs;
+            }
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+
+            public long getInitialBackoffMs() {
+                return initialBackoffMs;
+            }
+
+            public void setInitialBackoffMs(long initialBackoffMs) {
+                this.initialBackoffMs = initialBackoffMs;
+            }
+
+            public long getShutdownTimeoutMs() {
+                return shutdownTimeoutMs;
+            }
+
+            public void setShutdownTimeoutMs(long shutdownTimeoutMs) {
+                this.shutdownTimeoutMs = shutdownTimeoutMs;
+            }
+        }
+
+        /**
+         * Monthly partitions of the {@code activity_log} table, maintained on startup and on {@code cron}: the
+         * partitions of the current month and the next {@code months-ahead} months are created ahead of time, and
+         * partitions older than {@code retention-months} months are dropped, as are the Elasticsearch indices of those
+         * months. A retention of 0 keeps every month.
+         */
+        public static class Partitions {
+
+            private boolean enabled = true;
+
+            private int monthsAhead = 2;
+
+            private int retentionMonths = 0;
+
+            private String cron = "0 0 3 * * ?";
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMonthsAhead() {
+                return monthsAhead;
+            }
+
+            public void setMonthsAhead(int monthsAhead) {
+                this.monthsAhead = monthsAhead;
+            }
+
+            public int getRetentionMonths() {
+                return retentionMonths;
+            }
+
+            public void setRetentionMonths(int retentionMonths) {
+                this.retentionMonths = retentionMonths;
+            }
+
+            public String getCron() {
+                return cron;
+            }
+
+            public void setCron(String cron) {
+                this.cron = cron;
+            }
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
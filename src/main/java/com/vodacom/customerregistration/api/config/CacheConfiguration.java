@@ -0,0 +1,101 @@
+package com.vodacom.customerregistration.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Local caches for rarely-changing rows read on authenticated requests, backing {@code @Cacheable} and
+ * {@code @CacheEvict}.
+ * <p>
+ * Each cache is a {@link LocalCache} sized by {@code application.cache}; caches are created on first use, so a
+ * new cache name only needs a region entry when it should not use the defaults. The manager is transaction aware:
+ * puts and evictions made inside a transaction are applied once it commits, so a rolled-back transaction leaves the
+ * caches untouched. A read racing a write can still cache the previous row, which is served until it expires.
+ * <p>
+ * Evictions only reach the node that made the write; every other node serves its cached row until it expires. The
+ * users looked up to authenticate are therefore not cached, so a changed password or a deactivation applies on every
+ * node at once.
+ * <p>
+ * With read replicas enabled, nothing read in a read-only transaction is cached: it may come from a replica that
+ * has not caught up with a write the caches were just evicted for. The methods filling the caches therefore run in
+ * read-write transactions, which read from the primary.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    @Bean
+    public CacheManager cacheManager(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        LocalCacheManager cacheManager = new LocalCacheManager(
+            applicationProperties.getCache(),
+            applicationProperties.getReadReplicas().isEnabled(),
+            meterRegistry
+        );
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    private static final class LocalCacheManager extends AbstractTransactionSupportingCacheManager {
+
+        private final ApplicationProperties.Cache properties;
+        private final boolean readReplicas;
+        private final MeterRegistry meterRegistry;
+
+        LocalCacheManager(ApplicationProperties.Cache properties, boolean readReplicas, MeterRegistry meterRegistry) {
+            this.properties = properties;
+            this.readReplicas = readReplicas;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        protected Collection<? extends Cache> loadCaches() {
+            return properties.getRegions().keySet().stream().map(this::createCache).toList();
+        }
+
+        @Override
+        protected Cache getMissingCache(String name) {
+            return createCache(name);
+        }
+
+        @Override
+        protected Cache decorateCache(Cache cache) {
+            return readReplicas && isTransactionAware() ? new PrimaryReadsCache(cache) : super.decorateCache(cache);
+        }
+
+        private LocalCache createCache(String name) {
+            LocalCache cache = new LocalCache(name, properties.maxEntries(name), properties.ttlSeconds(name));
+            new LocalCache.Metrics(cache).bindTo(meterRegistry);
+            return cache;
+        }
+    }
+
+    /**
+     * Transaction-aware cache that drops the puts made in read-only transactions.
+     */
+    private static final class PrimaryReadsCache extends TransactionAwareCacheDecorator {
+
+        PrimaryReadsCache(Cache target) {
+            super(target);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                super.put(key, value);
+            }
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? get(key) : super.putIfAbsent(key, value);
+        }
+    }
+}
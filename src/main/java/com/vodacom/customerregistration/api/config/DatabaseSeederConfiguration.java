@@ -1,7 +1,9 @@
 package com.vodacom.customerregistration.api.config;
 
-import com.vodacom.customerregistration.api.service.AgentService;
-import com.vodacom.customerregistration.api.service.CustomerService;
+import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.domain.Agent;
+import com.vodacom.customerregistration.api.domain.Customer;
+import com.vodacom.customerregistration.api.service.SearchReindexJobService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -11,7 +13,7 @@ import org.springframework.stereotype.Component;
 
 /**
  * Configuration class that handles post-seeding operations.
- * Specifically triggers Elasticsearch reindexing after the application is ready
+ * Specifically brings the Elasticsearch indices up to date after the application is ready
  * and database seeding has completed.
  */
 @Component
@@ -19,33 +21,32 @@ public class DatabaseSeederConfiguration {
 
     private static final Logger LOG = LoggerFactory.getLogger(DatabaseSeederConfiguration.class);
 
-    private final CustomerService customerService;
-    private final AgentService agentService;
+    private final SearchReindexJobService searchReindexJobService;
 
-    public DatabaseSeederConfiguration(CustomerService customerService, AgentService agentService) {
-        this.customerService = customerService;
-        this.agentService = agentService;
+    public DatabaseSeederConfiguration(SearchReindexJobService searchReindexJobService) {
+        this.searchReindexJobService = searchReindexJobService;
     }
 
     /**
-     * Listens for ApplicationReadyEvent and triggers Elasticsearch reindexing.
-     * This ensures that any data seeded during application startup is properly
-     * indexed in Elasticsearch for search functionality.
+     * Listens for ApplicationReadyEvent and synchronizes the Elasticsearch indices.
+     * Only rows modified since the last indexed watermark are indexed, including any data
+     * seeded during application startup; a full rebuild happens only when an index is
+     * missing or its mapping changed, and then runs as a background job. Activity logs
+     * are backfilled by a background job the first time only.
      */
     @EventListener
     @Order(1000) // Run after other startup processes
     public void onApplicationReady(ApplicationReadyEvent event) {
-        LOG.info("Application is ready. Checking if Elasticsearch reindexing is needed...");
+        LOG.info("Application is ready. Synchronizing Elasticsearch indices...");
         
         // Reindex customers
         try {
-            int customerReindexedCount = customerService.reindexAllCustomers();
-            
-            if (customerReindexedCount > 0) {
-                LOG.info("✓ Successfully reindexed {} customers to Elasticsearch after application startup", customerReindexedCount);
-            } else {
-                LOG.info("No customers found to reindex in Elasticsearch");
-            }
+            searchReindexJobService
+                .synchronize(Customer.class)
+                .ifPresentOrElse(
+                    job -> LOG.info("✓ Started job {} to rebuild the customer index in Elasticsearch", job.getId()),
+                    () -> LOG.info("Customer index up to date in Elasticsearch")
+                );
         } catch (Exception e) {
             LOG.error("✗ Failed to reindex customers to Elasticsearch after application startup: {}", e.getMessage(), e);
             // Don't fail application startup if reindexing fails
@@ -53,16 +54,28 @@ public class DatabaseSeederConfiguration {
         
         // Reindex agents
         try {
-            int agentReindexedCount = agentService.reindexAllAgents();
-            
-            if (agentReindexedCount > 0) {
-                LOG.info("✓ Successfully reindexed {} agents to Elasticsearch after application startup", agentReindexedCount);
-            } else {
-                LOG.info("No agents found to reindex in Elasticsearch");
-            }
+            searchReindexJobService
+                .synchronize(Agent.class)
+                .ifPresentOrElse(
+                    job -> LOG.info("✓ Started job {} to rebuild the agent index in Elasticsearch", job.getId()),
+                    () -> LOG.info("Agent index up to date in Elasticsearch")
+                );
         } catch (Exception e) {
             LOG.error("✗ Failed to reindex agents to Elasticsearch after application startup: {}", e.getMessage(), e);
             // Don't fail application startup if reindexing fails
         }
+
+        // Backfill activity logs
+        try {
+            searchReindexJobService
+                .synchronize(ActivityLog.class)
+                .ifPresentOrElse(
+                    job -> LOG.info("✓ Started job {} to backfill the activity log indices in Elasticsearch", job.getId()),
+                    () -> LOG.info("Activity log indices already backfilled in Elasticsearch")
+                );
+        } catch (Exception e) {
+            LOG.error("✗ Failed to backfill activity logs to Elasticsearch after application startup: {}", e.getMessage(), e);
+            // Don't fail application startup if reindexing fails
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.vodacom.customerregistration.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+/**
+ * Bounded, time-limited in-memory {@link org.springframework.cache.Cache}: an access-ordered LRU map holding at most
+ * {@code maxEntries} entries, each for {@code ttlSeconds} after it was put. Null values are not cached.
+ */
+final class LocalCache extends AbstractValueAdaptingCache {
+
+    private record Entry(Object value, long expiresAt) {}
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Object, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    LocalCache(String name, int maxEntries, long ttlSeconds) {
+        super(false);
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                if (size() > LocalCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    protected synchronized Object lookup(Object key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.value();
+        }
+        if (entry != null) {
+            entries.remove(key);
+            evictions.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = lookup(key);
+        if (cached != null) {
+            return (T) fromStoreValue(cached);
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public synchronized void put(Object key, Object value) {
+        if (value == null) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry(toStoreValue(value), System.nanoTime() + ttlNanos));
+        puts.increment();
+    }
+
+    @Override
+    public synchronized void evict(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Micrometer's standard cache meters: {@code cache.gets} tagged {@code result=hit|miss}, {@code cache.puts},
+     * {@code cache.evictions} and {@code cache.size}, each tagged with the cache name.
+     */
+    static final class Metrics extends CacheMeterBinder<LocalCache> {
+
+        Metrics(LocalCache cache) {
+            super(cache, cache.getName(), Tags.empty());
+        }
+
+        @Override
+        protected Long size() {
+            return (long) getCache().size();
+        }
+
+        @Override
+        protected long hitCount() {
+            return getCache().hits.sum();
+        }
+
+        @Override
+        protected Long missCount() {
+            return getCache().misses.sum();
+        }
+
+        @Override
+        protected Long evictionCount() {
+            return getCache().evictions.sum();
+        }
+
+        @Override
+        protected long putCount() {
+            return getCache().puts.sum();
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {}
+    }
+}
@@ -0,0 +1,50 @@
+package com.vodacom.customerregistration.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Routes read-only transactions to Postgres read replicas, leaving the primary to writes.
+ * <p>
+ * Enabled by {@code application.read-replicas.enabled}. The application {@link DataSource} then is a
+ * {@link LazyConnectionDataSourceProxy} over the primary pool: it only fetches the physical connection at the first
+ * statement, once the transaction manager has marked the connection read-only, and takes it from the
+ * {@link ReplicaDataSource} for {@code @Transactional(readOnly = true)} methods. Everything else, including writes
+ * and reads inside a read-write transaction, stays on the primary. A read-only transaction may miss writes committed
+ * up to {@code max-lag-ms} earlier, so code that must read its own writes has to do so in a read-write transaction.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    ReplicaDataSource replicaDataSource(
+        HikariDataSource primaryDataSource,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        return new ReplicaDataSource(primaryDataSource, applicationProperties.getReadReplicas(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,161 @@
+package com.vodacom.customerregistration.api.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Read-only {@link DataSource} spreading connections round robin over one Hikari pool per Postgres replica.
+ * <p>
+ * Only replicas streaming from the primary and whose last measured replication lag was within {@code max-lag-ms}
+ * are used. When none is, or a replica fails to hand out a connection, the connection comes from the primary
+ * instead, so reads degrade to the primary rather than fail or return stale rows.
+ */
+final class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    static final String LAG_METER_NAME = "datasource.replica.lag";
+    static final String FALLBACK_METER_NAME = "datasource.replica.fallbacks";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    // Zero on a server that is not a standby. NULL on a standby whose WAL receiver is not streaming: it receives
+    // nothing, so having replayed everything it received says nothing about how far behind the primary it is.
+    // Otherwise zero once it has replayed everything it received, or else the age of the last replayed
+    // transaction, NULL when nothing was replayed yet. Reading the receiver status takes pg_read_all_stats.
+    private static final String LAG_QUERY =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+        "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL " +
+        "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END";
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        private volatile double lagMs = Double.NaN;
+        private volatile boolean available;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+
+    ReplicaDataSource(
+        HikariDataSource primary,
+        ApplicationProperties.ReadReplicas properties,
+        MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.maxLagMs = properties.getMaxLagMs();
+        List<String> urls = properties.getUrls();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("Hikari-replica-" + (i + 1));
+            config.setJdbcUrl(urls.get(i));
+            config.setUsername(properties.getUsername() != null ? properties.getUsername() : primary.getUsername());
+            config.setPassword(properties.getPassword() != null ? properties.getPassword() : primary.getPassword());
+            config.setAutoCommit(primary.isAutoCommit());
+            config.setReadOnly(true);
+            config.setMaximumPoolSize(properties.getMaximumPoolSize());
+            config.setConnectionTimeout(properties.getConnectionTimeoutMs());
+            // A replica that is down at startup is skipped by the lag check instead of failing the application.
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            Replica replica = new Replica(new HikariDataSource(config));
+            replicas.add(replica);
+            Gauge.builder(LAG_METER_NAME, replica, r -> r.lagMs)
+                .baseUnit("milliseconds")
+                .description("Replication lag of a read replica, as last measured")
+                .tag("pool", config.getPoolName())
+                .register(meterRegistry);
+        }
+        this.fallbacks = Counter.builder(FALLBACK_METER_NAME)
+            .description("Read-only connections taken from the primary because no replica was available")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                try {
+                    return replica.pool.getConnection();
+                } catch (SQLException e) {
+                    LOG.warn("Read replica {} unavailable, skipping it until the next lag check: {}", replica.pool.getPoolName(), e.getMessage());
+                    replica.available = false;
+                }
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    /**
+     * Measure the replication lag of each replica and decide which ones may serve reads.
+     */
+    @Scheduled(fixedDelayString = "${application.read-replicas.lag-check-interval-ms:2000}")
+    public void checkReplicationLag() {
+        for (Replica replica : replicas) {
+            Long lagMs = measureLag(replica.pool);
+            boolean available = lagMs != null && lagMs <= maxLagMs;
+            if (available != replica.available) {
+                LOG.info(
+                    "Read replica {} {} (lag {} ms)",
+                    replica.pool.getPoolName(),
+                    available ? "back in rotation" : "taken out of rotation",
+                    lagMs
+                );
+            }
+            replica.lagMs = lagMs != null ? lagMs : Double.NaN;
+            replica.available = available;
+        }
+    }
+
+    private Long measureLag(HikariDataSource pool) {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                long lagMs = resultSet.getLong(1);
+                return resultSet.wasNull() ? null : lagMs;
+            }
+        } catch (SQLException e) {
+            LOG.debug("Could not measure the lag of read replica {}: {}", pool.getPoolName(), e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+}
@@ -1,39 +1,46 @@
 package com.vodacom.customerregistration.api.domain;
 
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
-import org.hibernate.annotations.GenericGenerator;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.UUID;
+import org.hibernate.annotations.UuidGenerator;
 
 @Entity
 @Table(name = "activity_log")
-@org.springframework.data.elasticsearch.annotations.Document(indexName = "activity_log")
+@org.springframework.data.elasticsearch.annotations.Document(indexName = "activity_log", createIndex = false)
+@org.springframework.data.elasticsearch.annotations.DynamicTemplates(mappingPath = "/config/elasticsearch/activity-log-dynamic-templates.json")
 public class ActivityLog extends AbstractAuditingEntity<UUID> implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id")
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
     private UUID id;
 
     @NotNull
     @Enumerated(EnumType.STRING)
     @Column(name = "action_type", nullable = false)
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
     private ActionType actionType;
 
     @NotNull
     @Column(name = "entity_type", nullable = false, length = 100)
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text)
     private String entityType;
 
     @Column(name = "entity_id")
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
     private UUID entityId;
 
     @Size(max = 1000)
     @Column(name = "description", length = 1000)
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text)
     private String description;
 
     @Size(max = 45)
@@ -46,6 +53,7 @@ public class ActivityLog extends AbstractAuditingEntity<UUID> implements Seriali
 
     @NotNull
     @Column(name = "timestamp", nullable = false)
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Date, format = org.springframework.data.elasticsearch.annotations.DateFormat.strict_date_optional_time)
     private Instant timestamp = Instant.now();
 
     @Size(max = 100)
@@ -54,10 +62,12 @@ public class ActivityLog extends AbstractAuditingEntity<UUID> implements Seriali
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
     private ActionStatus status = ActionStatus.SUCCESS;
 
     @Size(max = 2000)
     @Column(name = "error_message", length = 2000)
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text)
     private String errorMessage;
 
     public enum ActionType {
@@ -1,26 +1,28 @@
 package com.vodacom.customerregistration.api.domain;
 
 import com.vodacom.customerregistration.api.domain.enumeration.AgentStatus;
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
-import org.hibernate.annotations.GenericGenerator;
 import java.io.Serializable;
 import java.util.UUID;
+import org.hibernate.annotations.UuidGenerator;
 
 /**
  * A Agent.
  */
 @Entity
 @Table(name = "agent")
-@org.springframework.data.elasticsearch.annotations.Document(indexName = "agent")
+// The index is versioned behind aliases and created by SearchIndexManager, not on repository startup.
+@org.springframework.data.elasticsearch.annotations.Document(indexName = "agent", createIndex = false)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Agent extends AbstractAuditingEntity<UUID> implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", updatable = false, nullable = false)
     @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
     private UUID id;
@@ -29,7 +31,10 @@ public class Agent extends AbstractAuditingEntity<UUID> implements Serializable
     @NotNull
     @Pattern(regexp = "^(\\+255|0)[67]\\d{8}$")
     @Column(name = "phone_number", nullable = false, unique = true)
-    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text)
+    @org.springframework.data.elasticsearch.annotations.MultiField(
+        mainField = @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text),
+        otherFields = @org.springframework.data.elasticsearch.annotations.InnerField(suffix = "autocomplete", type = org.springframework.data.elasticsearch.annotations.FieldType.Search_As_You_Type)
+    )
     private String phoneNumber;
 
     @NotNull
@@ -1,28 +1,30 @@
 package com.vodacom.customerregistration.api.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
-import org.hibernate.annotations.GenericGenerator;
 import java.io.Serializable;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
+import org.hibernate.annotations.UuidGenerator;
 
 /**
  * A Customer.
  */
 @Entity
 @Table(name = "customer")
-@org.springframework.data.elasticsearch.annotations.Document(indexName = "customer")
+// The index is versioned behind aliases and created by SearchIndexManager, not on repository startup.
+@org.springframework.data.elasticsearch.annotations.Document(indexName = "customer", createIndex = false)
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class Customer extends AbstractAuditingEntity<UUID> implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", updatable = false, nullable = false)
     @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
     private UUID id;
@@ -30,7 +32,10 @@ public class Customer extends AbstractAuditingEntity<UUID> implements Serializab
     @NotNull
     @Size(max = 50)
     @Column(name = "first_name", length = 50, nullable = false)
-    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text)
+    @org.springframework.data.elasticsearch.annotations.MultiField(
+        mainField = @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text),
+        otherFields = @org.springframework.data.elasticsearch.annotations.InnerField(suffix = "autocomplete", type = org.springframework.data.elasticsearch.annotations.FieldType.Search_As_You_Type)
+    )
     private String firstName;
 
     @Size(max = 50)
@@ -41,7 +46,10 @@ public class Customer extends AbstractAuditingEntity<UUID> implements Serializab
     @NotNull
     @Size(max = 50)
     @Column(name = "last_name", length = 50, nullable = false)
-    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text)
+    @org.springframework.data.elasticsearch.annotations.MultiField(
+        mainField = @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text),
+        otherFields = @org.springframework.data.elasticsearch.annotations.InnerField(suffix = "autocomplete", type = org.springframework.data.elasticsearch.annotations.FieldType.Search_As_You_Type)
+    )
     private String lastName;
 
     @NotNull
@@ -51,7 +59,10 @@ public class Customer extends AbstractAuditingEntity<UUID> implements Serializab
     @NotNull
     @Pattern(regexp = "^\\d{20}$")
     @Column(name = "nida_number", nullable = false, unique = true)
-    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text)
+    @org.springframework.data.elasticsearch.annotations.MultiField(
+        mainField = @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Text),
+        otherFields = @org.springframework.data.elasticsearch.annotations.InnerField(suffix = "autocomplete", type = org.springframework.data.elasticsearch.annotations.FieldType.Search_As_You_Type)
+    )
     private String nidaNumber;
 
 
@@ -0,0 +1,201 @@
+package com.vodacom.customerregistration.api.domain;
+
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import org.hibernate.annotations.UuidGenerator;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A pending Elasticsearch index change, written in the same transaction as the entity it refers to
+ * and drained asynchronously by the outbox dispatcher.
+ */
+@Entity
+@Table(
+    name = "search_index_outbox",
+    indexes = { @Index(name = "idx_search_index_outbox_status_next_attempt", columnList = "status, next_attempt_at, created_date") }
+)
+public class SearchIndexOutbox implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @NotNull
+    @Size(max = 50)
+    @Column(name = "entity_type", length = 50, nullable = false)
+    private String entityType;
+
+    @NotNull
+    @Column(name = "entity_id", nullable = false)
+    private UUID entityId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", length = 10, nullable = false)
+    private Operation operation;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status = Status.PENDING;
+
+    @NotNull
+    @Column(name = "attempts", nullable = false)
+    private int attempts = 0;
+
+    @Size(max = 2000)
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private Instant createdDate = Instant.now();
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt = Instant.now();
+
+    public enum Operation {
+        INDEX,
+        DELETE
+    }
+
+    public enum Status {
+        PENDING,
+        DEAD_LETTER,
+        /** A delete already applied to the live index, kept so that a rebuild in progress can replay it. */
+        DISPATCHED
+    }
+
+    public UUID getId() {
+        return this.id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public SearchIndexOutbox id(UUID id) {
+        this.setId(id);
+        return this;
+    }
+
+    public String getEntityType() {
+        return this.entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public SearchIndexOutbox entityType(String entityType) {
+        this.setEntityType(entityType);
+        return this;
+    }
+
+    public UUID getEntityId() {
+        return this.entityId;
+    }
+
+    public void setEntityId(UUID entityId) {
+        this.entityId = entityId;
+    }
+
+    public SearchIndexOutbox entityId(UUID entityId) {
+        this.setEntityId(entityId);
+        return this;
+    }
+
+    public Operation getOperation() {
+        return this.operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public SearchIndexOutbox operation(Operation operation) {
+        this.setOperation(operation);
+        return this;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public SearchIndexOutbox status(Status status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public int getAttempts() {
+        return this.attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return this.lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getNextAttemptAt() {
+        return this.nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchIndexOutbox)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((SearchIndexOutbox) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SearchIndexOutbox{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId=" + getEntityId() +
+            ", operation='" + getOperation() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", attempts=" + getAttempts() +
+            "}";
+    }
+}
@@ -0,0 +1,95 @@
+package com.vodacom.customerregistration.api.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * What a search index is known to contain: the mapping it was built with, and the
+ * {@code lastModifiedDate} up to which every row has been indexed.
+ */
+@Entity
+@Table(name = "search_index_state")
+public class SearchIndexState implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Size(max = 100)
+    @Column(name = "index_name", length = 100, nullable = false)
+    private String indexName;
+
+    @NotNull
+    @Size(max = 64)
+    @Column(name = "mapping_version", length = 64, nullable = false)
+    private String mappingVersion;
+
+    @NotNull
+    @Column(name = "watermark", nullable = false)
+    private Instant watermark;
+
+    public String getIndexName() {
+        return this.indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public SearchIndexState indexName(String indexName) {
+        this.setIndexName(indexName);
+        return this;
+    }
+
+    public String getMappingVersion() {
+        return this.mappingVersion;
+    }
+
+    public void setMappingVersion(String mappingVersion) {
+        this.mappingVersion = mappingVersion;
+    }
+
+    public SearchIndexState mappingVersion(String mappingVersion) {
+        this.setMappingVersion(mappingVersion);
+        return this;
+    }
+
+    public Instant getWatermark() {
+        return this.watermark;
+    }
+
+    public void setWatermark(Instant watermark) {
+        this.watermark = watermark;
+    }
+
+    public SearchIndexState watermark(Instant watermark) {
+        this.setWatermark(watermark);
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchIndexState)) {
+            return false;
+        }
+        return getIndexName() != null && getIndexName().equals(((SearchIndexState) o).getIndexName());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SearchIndexState{" +
+            "indexName='" + getIndexName() + "'" +
+            ", mappingVersion='" + getMappingVersion() + "'" +
+            ", watermark='" + getWatermark() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,288 @@
+package com.vodacom.customerregistration.api.domain;
+
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import org.hibernate.annotations.UuidGenerator;
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * A background rebuild of one search index.
+ * <p>
+ * {@code runningIndex} holds the index name while the job is running and is cleared when it stops; its
+ * unique constraint is what guarantees a single running job per index across all application nodes.
+ * {@code startedDate} identifies the current run of the job.
+ */
+@Entity
+@Table(
+    name = "search_reindex_job",
+    uniqueConstraints = { @UniqueConstraint(name = "ux_search_reindex_job_running_index", columnNames = "running_index") },
+    indexes = { @Index(name = "idx_search_reindex_job_index_created", columnList = "index_name, created_date") }
+)
+public class SearchReindexJob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @NotNull
+    @Size(max = 100)
+    @Column(name = "index_name", length = 100, nullable = false)
+    private String indexName;
+
+    @Size(max = 100)
+    @Column(name = "running_index", length = 100)
+    private String runningIndex;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status = Status.RUNNING;
+
+    @Size(max = 100)
+    @Column(name = "target_index", length = 100)
+    private String targetIndex;
+
+    @Column(name = "build_started_at")
+    private Instant buildStartedAt;
+
+    /** Keyset cursor: every row up to this id has been indexed. */
+    @Column(name = "cursor_id")
+    private UUID cursor;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Column(name = "processed", nullable = false)
+    private long processed;
+
+    @Column(name = "failed", nullable = false)
+    private long failed;
+
+    /** Documents already processed when the current run started, so throughput only counts this run. */
+    @Column(name = "processed_at_start", nullable = false)
+    private long processedAtStart;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Size(max = 2000)
+    @Column(name = "error", length = 2000)
+    private String error;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false, updatable = false)
+    private Instant createdDate = Instant.now();
+
+    @Column(name = "started_date")
+    private Instant startedDate;
+
+    @Column(name = "heartbeat")
+    private Instant heartbeat;
+
+    @Column(name = "finished_date")
+    private Instant finishedDate;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    public UUID getId() {
+        return this.id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getIndexName() {
+        return this.indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public SearchReindexJob indexName(String indexName) {
+        this.setIndexName(indexName);
+        return this;
+    }
+
+    public String getRunningIndex() {
+        return this.runningIndex;
+    }
+
+    public void setRunningIndex(String runningIndex) {
+        this.runningIndex = runningIndex;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getTargetIndex() {
+        return this.targetIndex;
+    }
+
+    public void setTargetIndex(String targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
+    public Instant getBuildStartedAt() {
+        return this.buildStartedAt;
+    }
+
+    public void setBuildStartedAt(Instant buildStartedAt) {
+        this.buildStartedAt = buildStartedAt;
+    }
+
+    public UUID getCursor() {
+        return this.cursor;
+    }
+
+    public void setCursor(UUID cursor) {
+        this.cursor = cursor;
+    }
+
+    public long getTotal() {
+        return this.total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public SearchReindexJob total(long total) {
+        this.setTotal(total);
+        return this;
+    }
+
+    public long getProcessed() {
+        return this.processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getFailed() {
+        return this.failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getProcessedAtStart() {
+        return this.processedAtStart;
+    }
+
+    public void setProcessedAtStart(long processedAtStart) {
+        this.processedAtStart = processedAtStart;
+    }
+
+    public boolean isCancelRequested() {
+        return this.cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getError() {
+        return this.error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getStartedDate() {
+        return this.startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getHeartbeat() {
+        return this.heartbeat;
+    }
+
+    public void setHeartbeat(Instant heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public Instant getFinishedDate() {
+        return this.finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    /**
+     * Mark the job as running from now on, taking the per-index running slot.
+     */
+    public void markRunning(Instant now) {
+        this.status = Status.RUNNING;
+        this.runningIndex = this.indexName;
+        this.cancelRequested = false;
+        this.error = null;
+        this.finishedDate = null;
+        this.processedAtStart = this.processed;
+        // At the precision the column stores it, since it identifies the run in fenced updates.
+        this.startedDate = now.truncatedTo(ChronoUnit.MICROS);
+        this.heartbeat = this.startedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchReindexJob)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((SearchReindexJob) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SearchReindexJob{" +
+            "id=" + getId() +
+            ", indexName='" + getIndexName() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", targetIndex='" + getTargetIndex() + "'" +
+            ", processed=" + getProcessed() +
+            ", failed=" + getFailed() +
+            "}";
+    }
+}
@@ -2,12 +2,12 @@ package com.vodacom.customerregistration.api.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.vodacom.customerregistration.api.config.Constants;
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
-import org.hibernate.annotations.GenericGenerator;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.HashSet;
@@ -17,6 +17,7 @@ import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.UuidGenerator;
 
 /**
  * A user.
@@ -29,8 +30,8 @@ public class User extends AbstractAuditingEntity<UUID> implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", updatable = false, nullable = false)
     @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
     private UUID id;
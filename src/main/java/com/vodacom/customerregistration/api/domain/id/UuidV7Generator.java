@@ -0,0 +1,55 @@
+package com.vodacom.customerregistration.api.domain.id;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+/**
+ * Time-ordered version 7 UUIDs (RFC 9562), for use with {@code @UuidGenerator(algorithm = UuidV7Generator.class)}.
+ * <p>
+ * The first 48 bits are the Unix time in milliseconds, so ids generated later sort after earlier ones in Postgres
+ * {@code uuid} columns and as strings in Elasticsearch keyword fields. New rows then append to the right-most pages
+ * of the primary-key B-tree instead of splitting random ones. The 12 bits after the version are a counter that
+ * starts at a random value each millisecond, keeping ids generated in the same millisecond in order; when it runs
+ * out, or the clock steps back, the timestamp is advanced past the last one issued. The remaining 62 bits are random.
+ */
+public final class UuidV7Generator implements UuidValueGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final Object LOCK = new Object();
+
+    private static long lastMillis;
+
+    private static int sequence;
+
+    /**
+     * @return a new version 7 UUID, greater than any previously returned by this JVM.
+     */
+    public static UUID next() {
+        long millis;
+        int counter;
+        synchronized (LOCK) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                // Start in the lower half so the millisecond has room to count up.
+                sequence = RANDOM.nextInt(0x800);
+            } else if (++sequence > 0xFFF) {
+                lastMillis++;
+                sequence = 0;
+            }
+            millis = lastMillis;
+            counter = sequence;
+        }
+        long mostSigBits = (millis << 16) | 0x7000L | counter;
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+}
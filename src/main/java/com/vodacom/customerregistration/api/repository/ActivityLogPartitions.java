@@ -0,0 +1,164 @@
+package com.vodacom.customerregistration.api.repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Monthly range partitions of the {@code activity_log} table on its {@code timestamp} column, in UTC.
+ * <p>
+ * Each month is a partition named {@code activity_log_pYYYY_MM}; rows outside every month land in
+ * {@code activity_log_default} rather than failing the insert, and are moved to their month when it is created.
+ * Hibernate still maps the entity by {@code id} alone, while the primary key is {@code (id, timestamp)} as
+ * Postgres requires the partition key in unique constraints. All methods must run in a transaction.
+ */
+@Repository
+public class ActivityLogPartitions {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActivityLogPartitions.class);
+
+    private static final String TABLE = "activity_log";
+    private static final String UNPARTITIONED_TABLE = "activity_log_unpartitioned";
+    private static final String DEFAULT_PARTITION = "activity_log_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("activity_log_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Arbitrary key of the transaction-level advisory lock serializing maintenance across nodes.
+    private static final long MAINTENANCE_LOCK = 0x61637469766c6f67L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ActivityLogPartitions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return whether this transaction holds the maintenance lock; {@code false} while another node maintains the
+     * partitions.
+     */
+    public boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK));
+    }
+
+    /**
+     * @return whether the table is partitioned, or {@code null} if it does not exist.
+     */
+    public Boolean isPartitioned() {
+        return jdbcTemplate.queryForObject("SELECT (SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass(?))", Boolean.class, TABLE);
+    }
+
+    /**
+     * Turn the plain table created by Hibernate into a partitioned table holding the same rows and indexes, with
+     * one partition per month from its oldest row through {@code through}. The rows are copied under an exclusive
+     * lock, so the first run on a large table belongs in a maintenance window.
+     *
+     * @param through the last month to create.
+     */
+    public void partition(YearMonth through) {
+        LOG.info("Converting {} to a partitioned table", TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + UNPARTITIONED_TABLE);
+        jdbcTemplate.execute(
+            "CREATE TABLE " + TABLE + " (LIKE " + UNPARTITIONED_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) " +
+            "PARTITION BY RANGE (\"timestamp\")"
+        );
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + TABLE + "_partitioned_pkey PRIMARY KEY (id, \"timestamp\")");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT min(\"timestamp\") FROM " + UNPARTITIONED_TABLE, LocalDateTime.class);
+        YearMonth month = oldest != null ? YearMonth.from(oldest) : through;
+        for (; !month.isAfter(through); month = month.plusMonths(1)) {
+            createMonth(month);
+        }
+        int rows = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + UNPARTITIONED_TABLE);
+
+        // Indexes not backing a constraint, such as those of db/indexes, are recreated on the partitioned table.
+        List<String> indexes = jdbcTemplate.queryForList(
+            "SELECT pg_get_indexdef(i.indexrelid) FROM pg_index i " +
+            "WHERE i.indrelid = to_regclass(?) AND NOT i.indisunique " +
+            "AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)",
+            String.class,
+            UNPARTITIONED_TABLE
+        );
+        jdbcTemplate.execute("DROP TABLE " + UNPARTITIONED_TABLE);
+        for (String index : indexes) {
+            jdbcTemplate.execute(index.replaceFirst(" ON (\\S+\\.)?" + UNPARTITIONED_TABLE + " ", " ON $1" + TABLE + " "));
+        }
+        LOG.info("Converted {} to a partitioned table, {} rows and {} indexes", TABLE, rows, indexes.size());
+    }
+
+    /**
+     * @return the months having a partition.
+     */
+    public Set<YearMonth> months() {
+        List<String> names = jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)",
+            String.class,
+            TABLE
+        );
+        Set<YearMonth> months = new TreeSet<>();
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Create the partition of a month, moving into it the rows of that month from the default partition.
+     *
+     * @param month the month.
+     */
+    public void createMonth(YearMonth month) {
+        String partition = partitionName(month);
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update(
+            "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE \"timestamp\" >= ? AND \"timestamp\" < ? RETURNING *) " +
+            "INSERT INTO " + partition + " SELECT * FROM moved",
+            from,
+            to
+        );
+        jdbcTemplate.execute(
+            "ALTER TABLE " + TABLE + " ATTACH PARTITION " + partition +
+            " FOR VALUES FROM ('" + BOUND.format(from) + "') TO ('" + BOUND.format(to) + "')"
+        );
+        LOG.info("Created partition {}{}", partition, moved > 0 ? ", moving " + moved + " rows from " + DEFAULT_PARTITION : "");
+    }
+
+    /**
+     * Drop the partition of a month with all its rows.
+     *
+     * @param month the month.
+     */
+    public void dropMonth(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE " + partitionName(month));
+        LOG.info("Dropped partition {}", partitionName(month));
+    }
+
+    /**
+     * Delete the rows of the default partition older than a month, which no partition will be created for.
+     *
+     * @param month the first month to keep.
+     * @return the number of rows deleted.
+     */
+    public int deleteDefaultRowsBefore(YearMonth month) {
+        return jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE \"timestamp\" < ?", month.atDay(1).atStartOfDay());
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("%s_p%04d_%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+}
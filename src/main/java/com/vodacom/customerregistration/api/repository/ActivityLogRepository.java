@@ -5,15 +5,28 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 
 @SuppressWarnings("unused")
 @Repository
-public interface ActivityLogRepository extends JpaRepository<ActivityLog, UUID>, JpaSpecificationExecutor<ActivityLog> {
+public interface ActivityLogRepository
+    extends JpaRepository<ActivityLog, UUID>, JpaSpecificationExecutor<ActivityLog>, ActivityLogRepositoryInternal {
+
+    /** {@code created_by} of the rollups counting the activity of all users. */
+    String ROLLUP_ALL_USERS = "*";
 
     Page<ActivityLog> findByCreatedByOrderByTimestampDesc(String createdBy, Pageable pageable);
 
@@ -23,29 +36,125 @@ public interface ActivityLogRepository extends JpaRepository<ActivityLog, UUID>,
 
     Page<ActivityLog> findByCreatedByAndTimestampBetweenOrderByTimestampDesc(String createdBy, Instant startDate, Instant endDate, Pageable pageable);
 
-    @Query("SELECT al FROM ActivityLog al WHERE al.createdBy = :createdBy AND " +
-           "(LOWER(al.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(al.entityType) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
-           "ORDER BY al.timestamp DESC")
-    Page<ActivityLog> findByCreatedByAndDescriptionOrEntityTypeContaining(@Param("createdBy") String createdBy,
-                                                                          @Param("searchTerm") String searchTerm,
-                                                                          Pageable pageable);
-
     List<ActivityLog> findByEntityTypeAndEntityIdOrderByTimestampDesc(String entityType, UUID entityId);
 
-    @Query("SELECT COUNT(al) FROM ActivityLog al WHERE al.createdBy = :createdBy AND al.actionType = :actionType AND al.timestamp >= :since")
-    long countByCreatedByAndActionTypeAndTimestampAfter(@Param("createdBy") String createdBy,
-                                                        @Param("actionType") ActivityLog.ActionType actionType,
-                                                        @Param("since") Instant since);
+    List<ActivityLog> findByIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
 
     // Admin repository methods for system-wide queries
 
     Page<ActivityLog> findByActionTypeOrderByTimestampDesc(ActivityLog.ActionType actionType, Pageable pageable);
 
-    Page<ActivityLog> findByDescriptionContainingIgnoreCaseOrEntityTypeContainingIgnoreCaseOrderByTimestampDesc(
-            String descriptionTerm, String entityTypeTerm, Pageable pageable);
-
     Page<ActivityLog> findByTimestampBetweenOrderByTimestampDesc(Instant startDate, Instant endDate, Pageable pageable);
 
-    long countByActionTypeAndTimestampAfter(ActivityLog.ActionType actionType, Instant since);
+    /**
+     * Sum the hourly rollups of a user over the last day, week and month in one pass, reading at most one row per
+     * action type and hour of the month whatever the size of the activity log.
+     *
+     * @param createdBy the login of the user, or {@link #ROLLUP_ALL_USERS}.
+     * @param actionTypes the names of the action types to count.
+     * @param day the first hour of the day.
+     * @param week the first hour of the week.
+     * @param month the first hour of the month, before the two others.
+     * @return one row per action type logged during the month.
+     */
+    @Query(value = "SELECT action_type AS type, " +
+                   "COALESCE(SUM(event_count) FILTER (WHERE bucket_start >= :day), 0) AS day, " +
+                   "COALESCE(SUM(event_count) FILTER (WHERE bucket_start >= :week), 0) AS week, " +
+                   "SUM(event_count) AS month " +
+                   "FROM activity_rollup " +
+                   "WHERE created_by = :createdBy AND action_type IN (:actionTypes) AND bucket_start >= :month " +
+                   "GROUP BY action_type",
+           nativeQuery = true)
+    List<RollupTotals> sumRollups(@Param("createdBy") String createdBy,
+                                  @Param("actionTypes") Collection<String> actionTypes,
+                                  @Param("day") Instant day,
+                                  @Param("week") Instant week,
+                                  @Param("month") Instant month);
+
+    interface RollupTotals {
+        ActivityLog.ActionType getType();
+
+        long getDay();
+
+        long getWeek();
+
+        long getMonth();
+    }
+}
+
+interface ActivityLogRepositoryInternal {
+    /**
+     * Insert activity logs with one JDBC batch, bypassing the persistence context, and add them to the hourly
+     * rollups in the same transaction. The logs must have their id and audit fields set, as neither the id
+     * generator nor the auditing listener runs.
+     *
+     * @param activityLogs the logs to insert.
+     */
+    void insertAll(List<ActivityLog> activityLogs);
+}
+
+class ActivityLogRepositoryInternalImpl implements ActivityLogRepositoryInternal {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO activity_log (id, action_type, entity_type, entity_id, description, ip_address, user_agent, \"timestamp\", " +
+        "session_id, status, error_message, created_by, created_date, last_modified_by, last_modified_date) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ROLLUP_SQL =
+        "INSERT INTO activity_rollup (created_by, action_type, bucket_start, event_count) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT (created_by, action_type, bucket_start) DO UPDATE SET event_count = activity_rollup.event_count + EXCLUDED.event_count";
+
+    private record Bucket(String createdBy, String actionType, Instant start) {}
+
+    // Concurrent writers lock the rollup rows they update in this order, so they cannot deadlock.
+    private static final Comparator<Bucket> BUCKET_ORDER = Comparator.comparing(Bucket::createdBy)
+        .thenComparing(Bucket::actionType)
+        .thenComparing(Bucket::start);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ActivityLogRepositoryInternalImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<ActivityLog> activityLogs) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, activityLogs, activityLogs.size(), (ps, activityLog) -> {
+            ps.setObject(1, activityLog.getId());
+            ps.setString(2, activityLog.getActionType().name());
+            ps.setString(3, activityLog.getEntityType());
+            ps.setObject(4, activityLog.getEntityId());
+            ps.setString(5, activityLog.getDescription());
+            ps.setString(6, activityLog.getIpAddress());
+            ps.setString(7, activityLog.getUserAgent());
+            ps.setObject(8, utc(activityLog.getTimestamp()));
+            ps.setString(9, activityLog.getSessionId());
+            ps.setString(10, activityLog.getStatus() != null ? activityLog.getStatus().name() : null);
+            ps.setString(11, activityLog.getErrorMessage());
+            ps.setString(12, activityLog.getCreatedBy());
+            ps.setObject(13, utc(activityLog.getCreatedDate()));
+            ps.setString(14, activityLog.getLastModifiedBy());
+            ps.setObject(15, utc(activityLog.getLastModifiedDate()));
+        });
+
+        Map<Bucket, Long> counts = new TreeMap<>(BUCKET_ORDER);
+        for (ActivityLog activityLog : activityLogs) {
+            Instant start = activityLog.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+            String actionType = activityLog.getActionType().name();
+            counts.merge(new Bucket(activityLog.getCreatedBy(), actionType, start), 1L, Long::sum);
+            counts.merge(new Bucket(ActivityLogRepository.ROLLUP_ALL_USERS, actionType, start), 1L, Long::sum);
+        }
+        jdbcTemplate.batchUpdate(ROLLUP_SQL, counts.entrySet(), counts.size(), (ps, count) -> {
+            ps.setString(1, count.getKey().createdBy());
+            ps.setString(2, count.getKey().actionType());
+            ps.setObject(3, utc(count.getKey().start()));
+            ps.setLong(4, count.getValue());
+        });
+    }
+
+    /** Instants are stored as UTC {@code timestamp} columns, as Hibernate does with {@code hibernate.jdbc.time_zone}. */
+    private static LocalDateTime utc(Instant instant) {
+        return instant != null ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC) : null;
+    }
 }
@@ -2,10 +2,15 @@ package com.vodacom.customerregistration.api.repository;
 
 import com.vodacom.customerregistration.api.domain.Agent;
 import com.vodacom.customerregistration.api.domain.User;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -22,4 +27,70 @@ public interface AgentRepository extends JpaRepository<Agent, UUID>, JpaSpecific
      * @return Optional agent associated with the user.
      */
     Optional<Agent> findByUser(User user);
+
+    /**
+     * Find the id of the agent of a user.
+     *
+     * @param userId the user id.
+     * @return the agent id, if the user is an agent.
+     */
+    @Query("SELECT a.id FROM Agent a WHERE a.user.id = :userId")
+    Optional<UUID> findIdByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Find an agent by id together with its user and the user's authorities, in a single query.
+     *
+     * @param id the agent id.
+     * @return the agent, with {@code user} initialized.
+     */
+    @EntityGraph(attributePaths = { "user", "user.authorities" })
+    Optional<Agent> findOneWithUserById(UUID id);
+
+    /**
+     * Find agents by id together with their user and the user's authorities, in a single query.
+     *
+     * @param ids the agent ids.
+     * @return the agents found, with {@code user} initialized.
+     */
+    @EntityGraph(attributePaths = { "user", "user.authorities" })
+    List<Agent> findAllWithUserByIdIn(Collection<UUID> ids);
+
+    /**
+     * Keyset page of agent ids ordered by id. Ids are paged separately because the
+     * {@code user.authorities} fetch in {@link #findAllWithUserByIdIn} cannot be combined with a limit.
+     *
+     * @param id the last id of the previous page.
+     * @param pageable the page size; the page number must stay 0.
+     * @return the next agent ids after {@code id}.
+     */
+    @Query("SELECT a.id FROM Agent a WHERE a.id > :id ORDER BY a.id ASC")
+    List<UUID> findIdsByIdGreaterThan(@Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Keyset page of agents ordered by id, without their user.
+     *
+     * @param id the last id of the previous page.
+     * @param pageable the page size; the page number must stay 0.
+     * @return the next agents after {@code id}.
+     */
+    List<Agent> findByIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
+
+    /**
+     * Keyset page of ids of agents whose agent or user row was modified since the given instant,
+     * ordered by id. The user is included because its fields are embedded in the agent document. The two sides
+     * of the union each read the {@code (last_modified_date, id)} index of their table.
+     *
+     * @param since the lower bound on {@code lastModifiedDate}, inclusive.
+     * @param id the last id of the previous page.
+     * @param pageable the page size; the page number must stay 0.
+     * @return the next modified agent ids after {@code id}.
+     */
+    @Query(
+        value = "SELECT m.id FROM (" +
+        "SELECT a.id FROM agent a WHERE a.last_modified_date >= :since " +
+        "UNION SELECT a.id FROM agent a JOIN \"user\" u ON u.id = a.user_id WHERE u.last_modified_date >= :since" +
+        ") m WHERE m.id > :id ORDER BY m.id ASC",
+        nativeQuery = true
+    )
+    List<UUID> findIdsModifiedSinceByIdGreaterThan(@Param("since") Instant since, @Param("id") UUID id, Pageable pageable);
 }
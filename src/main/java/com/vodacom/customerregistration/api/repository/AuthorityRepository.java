@@ -1,6 +1,8 @@
 package com.vodacom.customerregistration.api.repository;
 
 import com.vodacom.customerregistration.api.domain.Authority;
+import java.util.List;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +11,10 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface AuthorityRepository extends JpaRepository<Authority, String> {}
+public interface AuthorityRepository extends JpaRepository<Authority, String> {
+    String AUTHORITIES_CACHE = "authorities";
+
+    @Override
+    @Cacheable(AUTHORITIES_CACHE)
+    List<Authority> findAll();
+}
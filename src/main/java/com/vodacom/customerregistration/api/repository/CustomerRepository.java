@@ -1,12 +1,17 @@
 package com.vodacom.customerregistration.api.repository;
 
 import com.vodacom.customerregistration.api.domain.Customer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -21,15 +26,57 @@ public interface CustomerRepository extends JpaRepository<Customer, UUID>, JpaSp
      */
     Page<Customer> findByCreatedByOrderByCreatedDateDesc(String createdBy, Pageable pageable);
 
+    /**
+     * Keyset page of the customers registered by an agent, newest first, without counting them.
+     *
+     * @param createdBy the agent login.
+     * @param position the position to scroll from, see {@link KeysetCursors}.
+     * @param limit the page size.
+     * @return the customers after {@code position}.
+     */
+    Window<Customer> findByCreatedByOrderByCreatedDateDesc(String createdBy, ScrollPosition position, Limit limit);
+
     /**
      * Find customers registered by a specific agent with name search
      */
+    default Page<Customer> findByCreatedByAndNameOrNidaContaining(String createdBy, String searchTerm, Pageable pageable) {
+        return findByCreatedByAndNameOrNidaMatching(createdBy, LikePatterns.contains(searchTerm), pageable);
+    }
+
+    /**
+     * Customers registered by an agent whose lowercase first name, last name or NIDA number matches the pattern.
+     * Served by the {@code (created_by, created_date)} index and the trigram indexes on the lowercased columns.
+     *
+     * @param createdBy the agent login.
+     * @param pattern a {@link LikePatterns} pattern.
+     * @param pageable the page request.
+     * @return the matching customers, newest first.
+     */
     @Query("SELECT c FROM Customer c WHERE c.createdBy = :createdBy AND " +
-           "(LOWER(c.firstName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(c.lastName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(c.nidaNumber) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
+           "(LOWER(c.firstName) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(c.lastName) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(c.nidaNumber) LIKE :pattern ESCAPE '\\') " +
            "ORDER BY c.createdDate DESC")
-    Page<Customer> findByCreatedByAndNameOrNidaContaining(@Param("createdBy") String createdBy,
-                                                          @Param("searchTerm") String searchTerm,
-                                                          Pageable pageable);
+    Page<Customer> findByCreatedByAndNameOrNidaMatching(@Param("createdBy") String createdBy,
+                                                        @Param("pattern") String pattern,
+                                                        Pageable pageable);
+
+    /**
+     * Keyset page of customers ordered by id, for streaming over the whole table.
+     *
+     * @param id the last id of the previous page.
+     * @param pageable the page size; the page number must stay 0.
+     * @return the next customers after {@code id}.
+     */
+    List<Customer> findByIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
+
+    /**
+     * Keyset page of customers modified since the given instant, ordered by id.
+     *
+     * @param since the lower bound on {@code lastModifiedDate}, inclusive.
+     * @param id the last id of the previous page.
+     * @param pageable the page size; the page number must stay 0.
+     * @return the next modified customers after {@code id}.
+     */
+    List<Customer> findByLastModifiedDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(Instant since, UUID id, Pageable pageable);
 }
@@ -0,0 +1,108 @@
+package com.vodacom.customerregistration.api.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vodacom.customerregistration.api.repository.search.InvalidSearchCursorException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Continuation cursors for keyset (seek) paging over Spring Data {@link Window}s.
+ * <p>
+ * Instead of skipping an offset, each page resumes after the sort values of the last row of the previous page,
+ * with the id appended by Spring Data as tiebreaker, so a deep page costs the same as the first one and no COUNT
+ * query runs. The sort values travel to the client as an opaque base64url token, which also carries a fingerprint
+ * of the query and sort so it cannot be replayed against another one. Sort keys must be non-null columns: rows
+ * with a null key are skipped by the seek predicate.
+ */
+public final class KeysetCursors {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    private record Token(Map<String, String> keys, String query) {}
+
+    private KeysetCursors() {}
+
+    /**
+     * @param domainType the scrolled entity, used to restore the type of each sort value.
+     * @param queryKey a stable representation of the filters, used to check the cursor belongs to them.
+     * @param sort the order of the scroll.
+     * @param cursor the cursor returned with the previous page, or {@code null} to start.
+     * @return the position to scroll from.
+     * @throws InvalidSearchCursorException if the cursor is malformed or was issued for another query or sort.
+     */
+    public static KeysetScrollPosition position(Class<?> domainType, String queryKey, Sort sort, String cursor) {
+        if (cursor == null) {
+            return ScrollPosition.keyset();
+        }
+        Token token = decode(cursor);
+        if (!token.query().equals(fingerprint(queryKey, sort))) {
+            throw new InvalidSearchCursorException("The cursor was issued for a different query or sort");
+        }
+        TypeInformation<?> type = TypeInformation.of(domainType);
+        Map<String, Object> keys = new HashMap<>();
+        try {
+            token.keys().forEach((property, value) -> {
+                TypeInformation<?> propertyType = type.getProperty(property);
+                if (propertyType == null) {
+                    throw new InvalidSearchCursorException("Malformed cursor");
+                }
+                keys.put(property, MAPPER.convertValue(value, propertyType.getType()));
+            });
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSearchCursorException("Malformed cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * @param window the page just read.
+     * @param queryKey the query key the page was read with.
+     * @param sort the order the page was read in.
+     * @return the cursor of the next page, or {@code null} on the last page.
+     */
+    public static String nextCursor(Window<?> window, String queryKey, Sort sort) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        Map<String, String> keys = new LinkedHashMap<>();
+        last.getKeys().forEach((property, value) -> keys.put(property, value == null ? null : value.toString()));
+        return encode(new Token(keys, fingerprint(queryKey, sort)));
+    }
+
+    private static String fingerprint(String queryKey, Sort sort) {
+        return DigestUtils.md5DigestAsHex((queryKey + '|' + sort).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(Token token) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(token));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    private static Token decode(String cursor) {
+        try {
+            Token token = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), Token.class);
+            if (token.keys() == null || token.keys().isEmpty() || token.query() == null) {
+                throw new InvalidSearchCursorException("Malformed cursor");
+            }
+            return token;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidSearchCursorException("Malformed cursor");
+        }
+    }
+}
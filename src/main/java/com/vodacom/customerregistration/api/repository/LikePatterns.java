@@ -0,0 +1,28 @@
+package com.vodacom.customerregistration.api.repository;
+
+import java.util.Locale;
+
+/**
+ * Builds {@code LIKE} patterns compared against {@code lower(column)}.
+ * <p>
+ * Lowering the pattern in Java rather than in the query keeps the left-hand side a plain {@code lower(column)}
+ * expression, which is what the trigram indexes of {@code db/indexes} are built on. {@code %}, {@code _} and
+ * the backslash escape character are escaped, so they match themselves; queries must declare
+ * {@code ESCAPE '\'}.
+ */
+public final class LikePatterns {
+
+    private LikePatterns() {}
+
+    /**
+     * @param term the text to look for.
+     * @return a lowercase pattern matching any value containing {@code term}.
+     */
+    public static String contains(String term) {
+        return "%" + escape(term.trim().toLowerCase(Locale.ROOT)) + "%";
+    }
+
+    private static String escape(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
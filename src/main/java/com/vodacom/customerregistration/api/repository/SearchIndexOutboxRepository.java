@@ -0,0 +1,69 @@
+package com.vodacom.customerregistration.api.repository;
+
+import com.vodacom.customerregistration.api.domain.SearchIndexOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Spring Data JPA repository for the {@link SearchIndexOutbox} entity.
+ */
+@Repository
+public interface SearchIndexOutboxRepository extends JpaRepository<SearchIndexOutbox, UUID> {
+
+    /**
+     * Lock the next batch of due events. Rows already locked by another node are skipped, so several
+     * dispatchers can claim batches concurrently without claiming the same events.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM SearchIndexOutbox o WHERE o.status = :status AND o.nextAttemptAt <= :now ORDER BY o.createdDate ASC")
+    List<SearchIndexOutbox> findDueForUpdateSkipLocked(@Param("status") SearchIndexOutbox.Status status,
+                                                        @Param("now") Instant now,
+                                                        Pageable pageable);
+
+    long countByStatus(SearchIndexOutbox.Status status);
+
+    Optional<SearchIndexOutbox> findFirstByStatusOrderByCreatedDateAsc(SearchIndexOutbox.Status status);
+
+    /**
+     * Keyset page of the entities an operation was recorded for since an instant, whatever the event status.
+     */
+    @Query(
+        "SELECT DISTINCT o.entityId FROM SearchIndexOutbox o WHERE o.entityType = :entityType AND o.operation = :operation " +
+        "AND o.createdDate >= :since AND o.entityId > :after ORDER BY o.entityId ASC"
+    )
+    List<UUID> findEntityIdsSince(@Param("entityType") String entityType,
+                                  @Param("operation") SearchIndexOutbox.Operation operation,
+                                  @Param("since") Instant since,
+                                  @Param("after") UUID after,
+                                  Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE SearchIndexOutbox o SET o.status = :status WHERE o.id IN :ids")
+    int updateStatus(@Param("ids") Collection<UUID> ids, @Param("status") SearchIndexOutbox.Status status);
+
+    @Modifying
+    @Query(
+        "UPDATE SearchIndexOutbox o SET o.status = :status, o.attempts = :attempts, o.lastError = :lastError, " +
+        "o.nextAttemptAt = :nextAttemptAt WHERE o.id = :id"
+    )
+    int recordFailure(@Param("id") UUID id,
+                      @Param("status") SearchIndexOutbox.Status status,
+                      @Param("attempts") int attempts,
+                      @Param("lastError") String lastError,
+                      @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    @Modifying
+    @Query("DELETE FROM SearchIndexOutbox o WHERE o.status = :status AND o.createdDate < :before")
+    int deleteByStatusAndCreatedDateBefore(@Param("status") SearchIndexOutbox.Status status, @Param("before") Instant before);
+}
@@ -0,0 +1,11 @@
+package com.vodacom.customerregistration.api.repository;
+
+import com.vodacom.customerregistration.api.domain.SearchIndexState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the {@link SearchIndexState} entity, keyed by index alias.
+ */
+@Repository
+public interface SearchIndexStateRepository extends JpaRepository<SearchIndexState, String> {}
@@ -0,0 +1,101 @@
+package com.vodacom.customerregistration.api.repository;
+
+import com.vodacom.customerregistration.api.domain.SearchReindexJob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Spring Data JPA repository for the {@link SearchReindexJob} entity.
+ * <p>
+ * Progress and cancellation are written with targeted updates so that the node running a job and
+ * the node serving a cancel request never overwrite each other's columns. Updates made by a run are
+ * fenced by its {@code startedDate} and only apply while the job is running, so a run that was released
+ * as abandoned, or whose job was resumed by another run, can no longer report progress or finish.
+ */
+@Repository
+public interface SearchReindexJobRepository extends JpaRepository<SearchReindexJob, UUID> {
+
+    Page<SearchReindexJob> findAllByOrderByCreatedDateDesc(Pageable pageable);
+
+    Page<SearchReindexJob> findByIndexNameOrderByCreatedDateDesc(String indexName, Pageable pageable);
+
+    List<SearchReindexJob> findByStatusAndHeartbeatBefore(SearchReindexJob.Status status, Instant heartbeat);
+
+    Optional<SearchReindexJob> findFirstByStatusAndBuildStartedAtNotNullOrderByBuildStartedAtAsc(SearchReindexJob.Status status);
+
+    @Transactional
+    @Modifying
+    @Query(
+        "UPDATE SearchReindexJob j SET j.processed = :processed, j.failed = :failed, j.heartbeat = :now " +
+        "WHERE j.id = :id AND j.startedDate = :startedDate AND j.runningIndex IS NOT NULL"
+    )
+    int updateProgress(@Param("id") UUID id,
+                       @Param("startedDate") Instant startedDate,
+                       @Param("processed") long processed,
+                       @Param("failed") long failed,
+                       @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query(
+        "UPDATE SearchReindexJob j SET j.processed = :processed, j.failed = :failed, j.cursor = :cursor, j.heartbeat = :now " +
+        "WHERE j.id = :id AND j.startedDate = :startedDate AND j.runningIndex IS NOT NULL"
+    )
+    int updateProgress(@Param("id") UUID id,
+                       @Param("startedDate") Instant startedDate,
+                       @Param("processed") long processed,
+                       @Param("failed") long failed,
+                       @Param("cursor") UUID cursor,
+                       @Param("now") Instant now);
+
+    /**
+     * Stop the run of a job that started at {@code startedDate}, releasing the per-index running slot.
+     *
+     * @return {@code 0} if that run was already stopped, e.g. released as abandoned or resumed since.
+     */
+    @Transactional
+    @Modifying
+    @Query(
+        "UPDATE SearchReindexJob j SET j.status = :status, j.runningIndex = NULL, j.error = :error, j.finishedDate = :now " +
+        "WHERE j.id = :id AND j.startedDate = :startedDate AND j.runningIndex IS NOT NULL"
+    )
+    int finish(@Param("id") UUID id,
+               @Param("startedDate") Instant startedDate,
+               @Param("status") SearchReindexJob.Status status,
+               @Param("error") String error,
+               @Param("now") Instant now);
+
+    /**
+     * Fail a running job whose heartbeat is older than {@code deadline}, releasing the per-index running slot.
+     *
+     * @return {@code 0} if the job reported or stopped meanwhile.
+     */
+    @Transactional
+    @Modifying
+    @Query(
+        "UPDATE SearchReindexJob j SET j.status = :status, j.runningIndex = NULL, j.error = :error, j.finishedDate = :now " +
+        "WHERE j.id = :id AND j.runningIndex IS NOT NULL AND j.heartbeat < :deadline"
+    )
+    int release(@Param("id") UUID id,
+                @Param("deadline") Instant deadline,
+                @Param("status") SearchReindexJob.Status status,
+                @Param("error") String error,
+                @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SearchReindexJob j SET j.cancelRequested = true WHERE j.id = :id AND j.status = :status")
+    int requestCancel(@Param("id") UUID id, @Param("status") SearchReindexJob.Status status);
+
+    @Query("SELECT j.cancelRequested FROM SearchReindexJob j WHERE j.id = :id")
+    boolean isCancelRequested(@Param("id") UUID id);
+}
@@ -2,6 +2,7 @@ package com.vodacom.customerregistration.api.repository;
 
 import com.vodacom.customerregistration.api.domain.User;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -9,6 +10,7 @@ import java.util.UUID;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -28,5 +30,33 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @EntityGraph(attributePaths = "authorities")
     Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
 
+    /**
+     * Find a user by id together with their authorities.
+     *
+     * @param id the user id.
+     * @return the user, with {@code authorities} initialized.
+     */
+    @EntityGraph(attributePaths = "authorities")
+    Optional<User> findOneWithAuthoritiesById(UUID id);
+
     Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+
+    /**
+     * Page of user ids, the first phase of loading a page of users with their authorities: the
+     * {@code authorities} fetch of {@link #findAllWithAuthoritiesByIdIn} cannot be combined with a limit.
+     *
+     * @param pageable the pagination information.
+     * @return the page of ids.
+     */
+    @Query(value = "SELECT u.id FROM User u", countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UUID> findAllIds(Pageable pageable);
+
+    /**
+     * Find users by id together with their authorities, in a single query.
+     *
+     * @param ids the user ids.
+     * @return the users found, in no particular order.
+     */
+    @EntityGraph(attributePaths = "authorities")
+    List<User> findAllWithAuthoritiesByIdIn(Collection<UUID> ids);
 }
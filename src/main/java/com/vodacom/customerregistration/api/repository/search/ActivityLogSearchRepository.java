@@ -0,0 +1,366 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.repository.ActivityLogRepository;
+import com.vodacom.customerregistration.api.repository.LikePatterns;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.index.PutIndexTemplateRequest;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Spring Data Elasticsearch repository for the {@link ActivityLog} entity.
+ * <p>
+ * Activity logs are kept in one index per month of their timestamp, named {@code activity_log-yyyy.MM} after the
+ * {@code indexName} of the {@code @Document}. The indices are created on first write from an index template
+ * carrying the mapping, so they roll over with the calendar rather than on size, and a whole month is dropped
+ * with its Postgres partition once past retention. A search only targets the months its date range covers.
+ * <p>
+ * Written logs are indexed by {@code ActivityLogWriter} through the search outbox service, which records the ones
+ * that failed as outbox events to retry. Logs written before the index existed are backfilled by a reindex job.
+ */
+public interface ActivityLogSearchRepository extends ElasticsearchRepository<ActivityLog, UUID>, ActivityLogSearchRepositoryInternal {}
+
+interface ActivityLogSearchRepositoryInternal {
+    /**
+     * Search activity logs, most recent first unless the pageable is sorted. While Elasticsearch fails or is slow,
+     * the search is answered from Postgres instead, matching the text against the description and entity type.
+     *
+     * @param query the search text, or {@code null} to only filter.
+     * @param createdBy the login of the user who performed the actions, or {@code null} for all users.
+     * @param actionType the action type, or {@code null} for all types.
+     * @param from the start of the date range, inclusive, or {@code null}.
+     * @param to the end of the date range, exclusive, or {@code null}.
+     * @param pageable the pagination information.
+     * @return the page of logs, with the backend that answered.
+     * @throws InvalidSearchQueryException if the query is rejected by the query guards.
+     */
+    SearchPage<ActivityLog> search(
+        String query,
+        String createdBy,
+        ActivityLog.ActionType actionType,
+        Instant from,
+        Instant to,
+        Pageable pageable
+    );
+
+    /**
+     * Index logs already written to the database into the index of their month, with one bulk request per month.
+     *
+     * @param activityLogs the written logs.
+     * @return the ids Elasticsearch rejected or that were lost to a failed request, mapped to the reason.
+     */
+    Map<UUID, String> bulkIndex(Collection<ActivityLog> activityLogs);
+
+    /**
+     * Delete the indices of the months before the given one.
+     *
+     * @param month the first month to keep.
+     */
+    void deleteMonthsBefore(YearMonth month);
+}
+
+class ActivityLogSearchRepositoryInternalImpl implements ActivityLogSearchRepositoryInternal {
+
+    static final String INDEX_METER_NAME = "activity.log.index";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActivityLogSearchRepositoryInternalImpl.class);
+
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "timestamp");
+
+    /** Date ranges spanning more months than this search every index rather than list them. */
+    private static final int MAX_LISTED_MONTHS = 24;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+    private final ActivityLogRepository repository;
+    private final String indexPrefix;
+    private final Pattern indexName;
+    private final SearchQueries searchQueries;
+    private final SearchCircuitBreaker circuitBreaker;
+    private final Counter indexedCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean templatePut;
+
+    ActivityLogSearchRepositoryInternalImpl(
+        ElasticsearchTemplate elasticsearchTemplate,
+        ActivityLogRepository repository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.repository = repository;
+        this.indexPrefix = elasticsearchTemplate.getIndexCoordinatesFor(ActivityLog.class).getIndexName() + "-";
+        this.indexName = Pattern.compile(Pattern.quote(indexPrefix) + "(\\d{4})\\.(\\d{2})");
+        this.searchQueries = new SearchQueries(applicationProperties.getSearch().getQuery(), "description^2", "entityType", "errorMessage");
+        this.circuitBreaker = new SearchCircuitBreaker(
+            "activity-log",
+            applicationProperties.getSearch().getCircuitBreaker(),
+            ActivityLogSearchRepositoryInternalImpl::isFailure,
+            registry
+        );
+        this.indexedCounter = indexCounter(registry, "indexed");
+        this.failedCounter = indexCounter(registry, "failed");
+    }
+
+    private static Counter indexCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder(INDEX_METER_NAME)
+            .description("Activity logs sent to Elasticsearch")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+
+    @Override
+    public SearchPage<ActivityLog> search(
+        String query,
+        String createdBy,
+        ActivityLog.ActionType actionType,
+        Instant from,
+        Instant to,
+        Pageable pageable
+    ) {
+        LOG.debug("Searching activity logs with query: '{}', user: {}, action: {}, from {} to {}", query, createdBy, actionType, from, to);
+        boolean hasText = query != null && !query.isBlank();
+        List<Query> filters = new ArrayList<>();
+        if (createdBy != null) {
+            filters.add(TermQuery.of(t -> t.field("createdBy").value(createdBy))._toQuery());
+        }
+        if (actionType != null) {
+            filters.add(TermQuery.of(t -> t.field("actionType").value(actionType.name()))._toQuery());
+        }
+        if (from != null || to != null) {
+            filters.add(
+                RangeQuery.of(r ->
+                    r.date(d -> {
+                        d.field("timestamp");
+                        if (from != null) {
+                            d.gte(from.toString());
+                        }
+                        if (to != null) {
+                            d.lt(to.toString());
+                        }
+                        return d;
+                    })
+                )._toQuery()
+            );
+        }
+        Query textQuery = hasText ? searchQueries.build(query, false) : null;
+        Query esQuery = Query.of(q ->
+            q.bool(b -> {
+                if (textQuery != null) {
+                    b.must(textQuery);
+                }
+                return b.filter(filters);
+            })
+        );
+
+        Pageable sorted = pageable.isPaged() && pageable.getSort().isUnsorted()
+            ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), DEFAULT_SORT)
+            : pageable;
+        NativeQuery nativeQuery = new NativeQuery(esQuery);
+        nativeQuery.setPageable(sorted);
+        nativeQuery.setTimeout(searchQueries.timeout());
+        return circuitBreaker.execute(
+            () -> {
+                SearchHits<ActivityLog> searchHits = elasticsearchTemplate.search(nativeQuery, ActivityLog.class, indices(from, to));
+                List<ActivityLog> hits = searchHits.map(SearchHit::getContent).stream().toList();
+                return new SearchPage<>(hits, sorted, searchHits.getTotalHits(), SearchBackend.ELASTICSEARCH);
+            },
+            () -> searchDatabase(hasText ? query : null, createdBy, actionType, from, to, sorted)
+        );
+    }
+
+    /**
+     * One wildcard per month of the range, so months without an index simply match nothing; open or very long
+     * ranges search every month.
+     */
+    private IndexCoordinates indices(Instant from, Instant to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            return IndexCoordinates.of(indexPrefix + "*");
+        }
+        YearMonth first = month(from);
+        YearMonth last = month(to.minusNanos(1));
+        if (first.plusMonths(MAX_LISTED_MONTHS).isBefore(last)) {
+            return IndexCoordinates.of(indexPrefix + "*");
+        }
+        List<String> names = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            names.add(indexName(month) + "*");
+        }
+        return IndexCoordinates.of(names.toArray(String[]::new));
+    }
+
+    /**
+     * The {@code lower(column) LIKE '%text%'} predicates are served by the trigram indexes of
+     * {@code db/indexes/02_agent_scoped_search_indexes.sql}, the user and date range by the
+     * {@code (created_by, timestamp)} index and partition pruning.
+     */
+    private SearchPage<ActivityLog> searchDatabase(
+        String query,
+        String createdBy,
+        ActivityLog.ActionType actionType,
+        Instant from,
+        Instant to,
+        Pageable pageable
+    ) {
+        LOG.debug("Searching activity logs in the database with query: '{}'", query);
+        Specification<ActivityLog> specification = (root, criteriaQuery, cb) -> cb.conjunction();
+        if (query != null) {
+            String pattern = LikePatterns.contains(query);
+            specification = specification.and((root, criteriaQuery, cb) ->
+                cb.or(
+                    cb.like(cb.lower(root.get("description")), pattern, '\\'),
+                    cb.like(cb.lower(root.get("entityType")), pattern, '\\')
+                )
+            );
+        }
+        if (createdBy != null) {
+            specification = specification.and((root, criteriaQuery, cb) -> cb.equal(root.get("createdBy"), createdBy));
+        }
+        if (actionType != null) {
+            specification = specification.and((root, criteriaQuery, cb) -> cb.equal(root.get("actionType"), actionType));
+        }
+        if (from != null) {
+            specification = specification.and((root, criteriaQuery, cb) -> cb.greaterThanOrEqualTo(root.<Instant>get("timestamp"), from));
+        }
+        if (to != null) {
+            specification = specification.and((root, criteriaQuery, cb) -> cb.lessThan(root.<Instant>get("timestamp"), to));
+        }
+        return new SearchPage<>(repository.findAll(specification, pageable), SearchBackend.POSTGRES);
+    }
+
+    /**
+     * Errors Elasticsearch answered with a 4xx status, such as a rejected query, are the request's fault and do
+     * not count against the circuit; everything else, including timeouts and connection failures, does.
+     */
+    private static boolean isFailure(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof UncategorizedElasticsearchException es && es.getStatusCode() != null && es.getStatusCode() < 500) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Map<UUID, String> bulkIndex(Collection<ActivityLog> activityLogs) {
+        if (activityLogs.isEmpty()) {
+            return Map.of();
+        }
+        Map<YearMonth, List<IndexQuery>> queriesByMonth = new TreeMap<>();
+        for (ActivityLog activityLog : activityLogs) {
+            queriesByMonth
+                .computeIfAbsent(month(activityLog.getTimestamp()), month -> new ArrayList<>())
+                .add(new IndexQueryBuilder().withId(String.valueOf(activityLog.getId())).withObject(activityLog).build());
+        }
+        try {
+            putTemplate();
+        } catch (RuntimeException e) {
+            failedCounter.increment(activityLogs.size());
+            LOG.error("Failed to put the activity log index template, {} logs not indexed: {}", activityLogs.size(), e.getMessage());
+            Map<UUID, String> failures = new HashMap<>();
+            activityLogs.forEach(activityLog -> failures.put(activityLog.getId(), String.valueOf(e.getMessage())));
+            return failures;
+        }
+        Map<UUID, String> failures = new HashMap<>();
+        queriesByMonth.forEach((month, queries) -> {
+            try {
+                elasticsearchTemplate.bulkIndex(queries, BulkOptions.defaultOptions(), IndexCoordinates.of(indexName(month)));
+                indexedCounter.increment(queries.size());
+            } catch (BulkFailureException e) {
+                int failed = e.getFailedDocuments().size();
+                indexedCounter.increment(queries.size() - failed);
+                failedCounter.increment(failed);
+                LOG.warn("Bulk index of {} activity logs had {} rejected documents", queries.size(), failed);
+                e.getFailedDocuments().forEach((id, failure) -> failures.put(UUID.fromString(id), String.valueOf(failure.errorMessage())));
+            } catch (RuntimeException e) {
+                failedCounter.increment(queries.size());
+                LOG.error("Failed to index {} activity logs of {}: {}", queries.size(), month, e.getMessage());
+                queries.forEach(query -> failures.put(UUID.fromString(query.getId()), String.valueOf(e.getMessage())));
+            }
+        });
+        return failures;
+    }
+
+    /**
+     * Put the index template the monthly indices are created from, once per startup so a changed mapping applies
+     * from the next month on.
+     */
+    private void putTemplate() {
+        if (templatePut) {
+            return;
+        }
+        IndexOperations indexOps = elasticsearchTemplate.indexOps(ActivityLog.class);
+        String name = elasticsearchTemplate.getIndexCoordinatesFor(ActivityLog.class).getIndexName();
+        indexOps.putIndexTemplate(
+            PutIndexTemplateRequest.builder()
+                .withName(name)
+                .withIndexPatterns(indexPrefix + "*")
+                .withSettings(indexOps.createSettings(ActivityLog.class))
+                .withMapping(indexOps.createMapping(ActivityLog.class))
+                .build()
+        );
+        templatePut = true;
+        LOG.info("Put index template {} for indices {}*", name, indexPrefix);
+    }
+
+    @Override
+    public void deleteMonthsBefore(YearMonth month) {
+        try {
+            Set<String> names = elasticsearchTemplate.execute(client ->
+                client.indices().get(r -> r.index(indexPrefix + "*")).result().keySet()
+            );
+            for (String name : names) {
+                Matcher matcher = indexName.matcher(name);
+                if (matcher.matches() && YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))).isBefore(month)) {
+                    LOG.info("Deleting activity log index {}", name);
+                    elasticsearchTemplate.indexOps(IndexCoordinates.of(name)).delete();
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to delete activity log indices before {}: {}", month, e.getMessage());
+        }
+    }
+
+    private String indexName(YearMonth month) {
+        return String.format("%s%04d.%02d", indexPrefix, month.getYear(), month.getMonthValue());
+    }
+
+    private static YearMonth month(Instant instant) {
+        return YearMonth.from(instant.atOffset(ZoneOffset.UTC));
+    }
+}
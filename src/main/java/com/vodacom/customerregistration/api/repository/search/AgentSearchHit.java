@@ -0,0 +1,185 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import com.vodacom.customerregistration.api.domain.enumeration.AgentStatus;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only projection of an agent search hit, holding only the fields search responses return.
+ * <p>
+ * Searches request just {@link #SOURCE_FIELDS} from {@code _source} and decode them straight into this class.
+ * Besides saving the deserialization of the full {@link com.vodacom.customerregistration.api.domain.Agent},
+ * this keeps fields of the embedded user that responses never show, such as its password hash and reset keys,
+ * from leaving Elasticsearch at all.
+ */
+public class AgentSearchHit {
+
+    static final String[] SOURCE_FIELDS = {
+        "id",
+        "status",
+        "region",
+        "district",
+        "ward",
+        "user.id",
+        "user.login",
+        "user.firstName",
+        "user.lastName",
+        "user.email",
+        "user.phoneNumber",
+        "user.imageUrl",
+        "user.activated",
+        "user.langKey",
+        "user.createdBy",
+        "user.createdDate",
+        "user.lastModifiedBy",
+        "user.lastModifiedDate",
+        "user.authorities.name",
+    };
+
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
+    private UUID id;
+
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
+    private AgentStatus status;
+
+    private String region;
+
+    private String district;
+
+    private String ward;
+
+    private User user;
+
+    public UUID getId() {
+        return id;
+    }
+
+    public AgentStatus getStatus() {
+        return status;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getDistrict() {
+        return district;
+    }
+
+    public String getWard() {
+        return ward;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    @Override
+    public String toString() {
+        return "AgentSearchHit{id=" + id + "}";
+    }
+
+    /**
+     * The user embedded in an agent hit.
+     */
+    public static class User {
+
+        @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
+        private UUID id;
+
+        private String login;
+
+        private String firstName;
+
+        private String lastName;
+
+        private String email;
+
+        private String phoneNumber;
+
+        private String imageUrl;
+
+        private boolean activated;
+
+        private String langKey;
+
+        private String createdBy;
+
+        private Instant createdDate;
+
+        private String lastModifiedBy;
+
+        private Instant lastModifiedDate;
+
+        private List<Authority> authorities;
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getPhoneNumber() {
+            return phoneNumber;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public boolean isActivated() {
+            return activated;
+        }
+
+        public String getLangKey() {
+            return langKey;
+        }
+
+        public String getCreatedBy() {
+            return createdBy;
+        }
+
+        public Instant getCreatedDate() {
+            return createdDate;
+        }
+
+        public String getLastModifiedBy() {
+            return lastModifiedBy;
+        }
+
+        public Instant getLastModifiedDate() {
+            return lastModifiedDate;
+        }
+
+        public List<Authority> getAuthorities() {
+            return authorities;
+        }
+    }
+
+    /**
+     * An authority of the embedded user.
+     */
+    public static class Authority {
+
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -1,23 +1,35 @@
 package com.vodacom.customerregistration.api.repository.search;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
 import com.vodacom.customerregistration.api.domain.Agent;
+import com.vodacom.customerregistration.api.domain.User;
 import com.vodacom.customerregistration.api.repository.AgentRepository;
+import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.BulkFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
 import org.springframework.data.elasticsearch.core.query.Query;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 
@@ -27,17 +39,70 @@ import org.springframework.data.elasticsearch.repository.ElasticsearchRepository
 public interface AgentSearchRepository extends ElasticsearchRepository<Agent, Long>, AgentSearchRepositoryInternal {}
 
 interface AgentSearchRepositoryInternal {
-    Page<Agent> search(String query, Pageable pageable);
+    /**
+     * Search the text typed by the user, fetching only the fields of {@link AgentSearchHit} from {@code _source}.
+     *
+     * @param query the search text.
+     * @param raw whether to parse the text as {@code query_string} syntax; restricted to administrators.
+     * @param pageable the pagination information.
+     * @return the page of hits.
+     * @throws InvalidSearchQueryException if the query is rejected by the query guards.
+     */
+    Page<AgentSearchHit> search(String query, boolean raw, Pageable pageable);
 
     Page<Agent> search(Query query);
 
+    /**
+     * Search with a point in time and {@code search_after} instead of an offset, for deep pagination.
+     *
+     * @param query the search text.
+     * @param raw whether to parse the text as {@code query_string} syntax; restricted to administrators.
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the page and the cursor of the next one.
+     * @throws InvalidSearchCursorException if the cursor is malformed or was issued for another query.
+     * @throws InvalidSearchQueryException if the query is rejected by the query guards.
+     */
+    CursorPage<AgentSearchHit> search(String query, boolean raw, String cursor, int size);
+
     List<String> getAutocompleteSuggestions(String query, int limit);
 
 //    List<Agent> getRecommendations(Long agentId, int limit);
 
+    /**
+     * Index the given entity without reloading it, unless its {@code user} association is not loaded yet.
+     *
+     * @param entity the saved entity to index.
+     */
     void index(Agent entity);
 
+    /**
+     * Index the given, already loaded entities and delete the given ids with a single bulk request.
+     *
+     * @param entities the entities to index.
+     * @param deletedIds the ids of the documents to delete.
+     * @return the ids Elasticsearch rejected, mapped to the rejection reason.
+     */
+    Map<UUID, String> bulkWrite(Collection<Agent> entities, Collection<UUID> deletedIds);
+
+    /**
+     * Bulk index into a specific physical index, bypassing the write alias; used while rebuilding.
+     *
+     * @param entities the entities to index.
+     * @param index the target index.
+     * @return the ids Elasticsearch rejected, mapped to the rejection reason.
+     */
+    Map<UUID, String> bulkIndex(Collection<Agent> entities, IndexCoordinates index);
+
     void deleteFromIndexById(UUID id);
+
+    /**
+     * Delete from a specific physical index, bypassing the write alias; used while rebuilding.
+     *
+     * @param id the id of the deleted entity.
+     * @param index the target index.
+     */
+    void deleteFromIndexById(UUID id, IndexCoordinates index);
 }
 
 class AgentSearchRepositoryInternalImpl implements AgentSearchRepositoryInternal {
@@ -46,28 +111,51 @@ class AgentSearchRepositoryInternalImpl implements AgentSearchRepositoryInternal
 
     private final ElasticsearchTemplate elasticsearchTemplate;
     private final AgentRepository repository;
-
-    AgentSearchRepositoryInternalImpl(ElasticsearchTemplate elasticsearchTemplate, AgentRepository repository) {
+    private final IndexCoordinates readIndex;
+    private final IndexCoordinates writeIndex;
+    private final RefreshPolicy defaultRefreshPolicy;
+    private final Duration cursorKeepAlive;
+    private final SearchQueries searchQueries;
+    private final ElasticsearchOperations writeOperations;
+    private final SearchBulkWrites bulkWrites;
+
+    AgentSearchRepositoryInternalImpl(
+        ElasticsearchTemplate elasticsearchTemplate,
+        AgentRepository repository,
+        SearchIndexManager indexManager,
+        ApplicationProperties applicationProperties
+    ) {
         this.elasticsearchTemplate = elasticsearchTemplate;
         this.repository = repository;
+        this.readIndex = IndexCoordinates.of(indexManager.readAlias(Agent.class));
+        this.writeIndex = indexManager.writeIndex(Agent.class);
+        this.defaultRefreshPolicy = applicationProperties.getSearch().getRefresh().getAgent();
+        this.cursorKeepAlive = Duration.ofSeconds(applicationProperties.getSearch().getCursor().getKeepAliveSeconds());
+        this.searchQueries = new SearchQueries(
+            applicationProperties.getSearch().getQuery(),
+            "phoneNumber^4", "user.firstName^3", "user.lastName^3", "user.email^2", "user.login^2", "region", "district", "ward"
+        );
+        this.writeOperations = elasticsearchTemplate.withRefreshPolicy(defaultRefreshPolicy);
+        this.bulkWrites = new SearchBulkWrites(elasticsearchTemplate);
         LOG.info("AgentSearchRepositoryInternalImpl initialized with ES template: {}, Agent repository: {}",
             elasticsearchTemplate != null ? "OK" : "NULL",
             repository != null ? "OK" : "NULL");
     }
 
     @Override
-    public Page<Agent> search(String query, Pageable pageable) {
-        LOG.info("=== ELASTICSEARCH AGENT SEARCH START ===");
-        LOG.info("Search query: '{}', page: {}, size: {}", query, pageable.getPageNumber(), pageable.getPageSize());
-
+    public Page<AgentSearchHit> search(String query, boolean raw, Pageable pageable) {
+        LOG.debug("Searching agents with query: '{}', page: {}, size: {}", query, pageable.getPageNumber(), pageable.getPageSize());
+        NativeQuery nativeQuery = new NativeQuery(searchQueries.build(query, raw));
         try {
-            NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
-            LOG.info("Created native query for Elasticsearch");
+            nativeQuery.setPageable(pageable);
+            nativeQuery.setTimeout(searchQueries.timeout());
+            nativeQuery.addSourceFilter(new FetchSourceFilter(AgentSearchHit.SOURCE_FIELDS, null));
 
-            Page<Agent> result = search(nativeQuery.setPageable(pageable));
-            LOG.info("✓ Search completed with {} results", result.getTotalElements());
+            SearchHits<AgentSearchHit> searchHits = elasticsearchTemplate.search(nativeQuery, AgentSearchHit.class, readIndex);
+            List<AgentSearchHit> hits = searchHits.map(SearchHit::getContent).stream().toList();
+            LOG.debug("Search completed with {} results", searchHits.getTotalHits());
 
-            return result;
+            return new PageImpl<>(hits, pageable, searchHits.getTotalHits());
 
         } catch (Exception e) {
             LOG.error("✗ Search failed: {}", e.getMessage(), e);
@@ -75,6 +163,23 @@ class AgentSearchRepositoryInternalImpl implements AgentSearchRepositoryInternal
         }
     }
 
+    @Override
+    public CursorPage<AgentSearchHit> search(String query, boolean raw, String cursor, int size) {
+        LOG.debug("Searching agents with query: '{}', cursor: {}", query, cursor != null);
+        return CursorSearches.search(
+            elasticsearchTemplate,
+            AgentSearchHit.class,
+            readIndex,
+            AgentSearchHit.SOURCE_FIELDS,
+            searchQueries.build(query, raw),
+            (raw ? "raw:" : "") + query,
+            cursor,
+            size,
+            cursorKeepAlive,
+            searchQueries.timeout()
+        );
+    }
+
     @Override
     public Page<Agent> search(Query query) {
         LOG.info("Executing search query against Elasticsearch...");
@@ -105,99 +210,112 @@ class AgentSearchRepositoryInternalImpl implements AgentSearchRepositoryInternal
 
     @Override
     public List<String> getAutocompleteSuggestions(String query, int limit) {
-        LOG.info("=== ELASTICSEARCH AGENT AUTOCOMPLETE START ===");
-        LOG.info("Autocomplete query: '{}', limit: {}", query, limit);
+        LOG.debug("Autocomplete query: '{}', limit: {}", query, limit);
 
         if (query == null || query.trim().isEmpty()) {
             return List.of();
         }
 
         try {
-            String lowercaseQuery = query.toLowerCase().trim();
-            LOG.info("Processing autocomplete for lowercase query: '{}'", lowercaseQuery);
-
-            String searchQuery = "*" + lowercaseQuery + "*";
-            LOG.info("Using search query: '{}'", searchQuery);
+            String normalizedQuery = AutocompleteQueries.normalize(query);
+            NativeQuery nativeQuery = AutocompleteQueries.prefixQuery(normalizedQuery, limit, "phoneNumber");
 
-            NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(searchQuery))._toQuery());
-            nativeQuery.setPageable(PageRequest.of(0, limit * 3));
-
-            LOG.info("Executing autocomplete search...");
             SearchHits<Agent> searchHits = elasticsearchTemplate.search(nativeQuery, Agent.class);
-            LOG.info("Elasticsearch returned {} hits for autocomplete", searchHits.getTotalHits());
 
             List<String> suggestions = searchHits.getSearchHits()
                 .stream()
                 .map(SearchHit::getContent)
-                .peek(agent -> LOG.debug("Processing agent: phoneNumber='{}'", agent.getPhoneNumber()))
-                .flatMap(agent -> Stream.of(
-                    agent.getPhoneNumber()
-                ))
-                .filter(suggestion -> suggestion != null &&
-                        suggestion.toLowerCase().contains(lowercaseQuery))
+                .map(Agent::getPhoneNumber)
+                .filter(suggestion -> AutocompleteQueries.matchesPrefix(suggestion, normalizedQuery))
                 .distinct()
                 .limit(limit)
                 .collect(Collectors.toList());
 
-            LOG.info("✓ Autocomplete completed with {} suggestions: {}", suggestions.size(), suggestions);
+            LOG.debug("Autocomplete completed with {} suggestions", suggestions.size());
             return suggestions;
 
         } catch (Exception e) {
             LOG.error("✗ Autocomplete failed: {}", e.getMessage(), e);
-            e.printStackTrace();
             return List.of();
         }
     }
 
     @Override
     public void index(Agent entity) {
-        LOG.info("=== ELASTICSEARCH AGENT INDEXING START ===");
-        LOG.info("Attempting to index agent - ID: {}, Phone: '{}'", entity.getId(), entity.getPhoneNumber());
-
+        if (entity.getId() == null) {
+            LOG.error("Cannot index agent - ID is null");
+            return;
+        }
         try {
-            if (entity.getId() == null) {
-                LOG.error("✗ Cannot index agent - ID is null");
-                return;
+            Optional<Agent> agent = withInitializedUser(entity);
+            if (agent.isPresent()) {
+                writeOperations.save(agent.orElseThrow(), writeIndex);
+                LOG.debug("Indexed agent {}", entity.getId());
+            } else {
+                LOG.error("Agent not found in database with ID: {} - cannot index", entity.getId());
             }
+        } catch (Exception e) {
+            LOG.error("Failed to index agent ID {}: {}", entity.getId(), e.getMessage(), e);
+        }
+    }
 
-            LOG.info("Fetching agent from database for indexing...");
-            Optional<Agent> agentOpt = repository.findById(entity.getId());
-
-            if (agentOpt.isPresent()) {
-                Agent agent = agentOpt.orElseThrow();
-                LOG.info("✓ Found agent in database: ID={}, Phone='{}'", agent.getId(), agent.getPhoneNumber());
-                LOG.debug("Full agent details: {}", agent);
-
-                LOG.info("Saving agent to Elasticsearch...");
-                Agent savedAgent = elasticsearchTemplate.save(agent);
-                LOG.info("✓ Agent saved to Elasticsearch with ID: {}", savedAgent.getId());
-
-                LOG.info("Refreshing Elasticsearch index...");
-                elasticsearchTemplate.indexOps(Agent.class).refresh();
-                LOG.info("✓ Elasticsearch index refreshed - agent should be immediately searchable");
-
-                LOG.info("Verifying indexing by searching for the agent...");
-                try {
-                    Optional<Agent> indexedAgent = Optional.ofNullable(elasticsearchTemplate.get(String.valueOf(agent.getId()), Agent.class));
-                    if (indexedAgent.isPresent()) {
-                        LOG.info("✓ VERIFICATION SUCCESS: Agent found in Elasticsearch index");
-                    } else {
-                        LOG.error("✗ VERIFICATION FAILED: Agent not found in Elasticsearch index after save");
-                    }
-                } catch (Exception verifyEx) {
-                    LOG.error("✗ VERIFICATION ERROR: Could not verify indexing: {}", verifyEx.getMessage());
-                }
+    @Override
+    public Map<UUID, String> bulkWrite(Collection<Agent> entities, Collection<UUID> deletedIds) {
+        return bulkWrites.write(withInitializedUsers(entities), Agent::getId, deletedIds, defaultRefreshPolicy, writeIndex);
+    }
 
-            } else {
-                LOG.error("✗ Agent not found in database with ID: {} - cannot index", entity.getId());
-            }
+    @Override
+    public Map<UUID, String> bulkIndex(Collection<Agent> entities, IndexCoordinates index) {
+        return bulkIndex(entities, RefreshPolicy.NONE, index);
+    }
 
-        } catch (Exception e) {
-            LOG.error("✗ Failed to index agent ID {}: {}", entity.getId(), e.getMessage(), e);
-            LOG.error("Full indexing exception:", e);
+    private Map<UUID, String> bulkIndex(Collection<Agent> entities, RefreshPolicy refreshPolicy, IndexCoordinates index) {
+        if (entities.isEmpty()) {
+            return Map.of();
+        }
+        List<IndexQuery> queries = withInitializedUsers(entities)
+            .stream()
+            .map(agent -> new IndexQueryBuilder().withId(String.valueOf(agent.getId())).withObject(agent).build())
+            .toList();
+        try {
+            elasticsearchTemplate.bulkIndex(queries, BulkOptions.builder().withRefreshPolicy(refreshPolicy).build(), index);
+            return Map.of();
+        } catch (BulkFailureException e) {
+            LOG.warn("Bulk index of {} agents had {} rejected documents", queries.size(), e.getFailedDocuments().size());
+            return e
+                .getFailedDocuments()
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(entry -> UUID.fromString(entry.getKey()), entry -> String.valueOf(entry.getValue().errorMessage())));
+        }
+    }
+
+    /**
+     * The document embeds {@code user} and its authorities. Use the entity as passed when those are
+     * already loaded, otherwise fetch the agent with its user in one query rather than letting the
+     * converter trigger lazy loads.
+     */
+    private Optional<Agent> withInitializedUser(Agent agent) {
+        if (isUserInitialized(agent)) {
+            return Optional.of(agent);
         }
+        return repository.findOneWithUserById(agent.getId());
+    }
 
-        LOG.info("=== ELASTICSEARCH AGENT INDEXING END ===");
+    private Collection<Agent> withInitializedUsers(Collection<Agent> agents) {
+        Map<Boolean, List<Agent>> byInitialized = agents.stream().collect(Collectors.partitioningBy(this::isUserInitialized));
+        List<Agent> uninitialized = byInitialized.get(false);
+        if (uninitialized.isEmpty()) {
+            return agents;
+        }
+        List<Agent> result = new ArrayList<>(byInitialized.get(true));
+        result.addAll(repository.findAllWithUserByIdIn(uninitialized.stream().map(Agent::getId).toList()));
+        return result;
+    }
+
+    private boolean isUserInitialized(Agent agent) {
+        User user = agent.getUser();
+        return user == null || (Hibernate.isInitialized(user) && Hibernate.isInitialized(user.getAuthorities()));
     }
 
     @Override
@@ -206,16 +324,18 @@ class AgentSearchRepositoryInternalImpl implements AgentSearchRepositoryInternal
         LOG.info("Attempting to delete agent from index - ID: {}", id);
 
         try {
-            elasticsearchTemplate.delete(String.valueOf(id), Agent.class);
+            writeOperations.delete(String.valueOf(id), writeIndex);
             LOG.info("✓ Agent deleted from Elasticsearch index");
-
-            elasticsearchTemplate.indexOps(Agent.class).refresh();
-            LOG.info("✓ Elasticsearch index refreshed after deletion");
-
         } catch (Exception e) {
             LOG.error("✗ Failed to delete agent from Elasticsearch: {}", e.getMessage(), e);
+            throw e;
         }
 
         LOG.info("=== ELASTICSEARCH AGENT DELETE END ===");
     }
+
+    @Override
+    public void deleteFromIndexById(UUID id, IndexCoordinates index) {
+        elasticsearchTemplate.delete(String.valueOf(id), index);
+    }
 }
@@ -0,0 +1,66 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.MultiMatchQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+
+/**
+ * Builds autocomplete queries against the {@code search_as_you_type} sub-fields of the indexed documents.
+ * <p>
+ * Each autocompleted field is mapped with an {@code autocomplete} sub-field, which Elasticsearch indexes with
+ * shingle sub-fields ({@code _2gram}, {@code _3gram}) and edge n-grams ({@code _index_prefix}). A
+ * {@code bool_prefix} multi_match turns the last typed term into a lookup on those pre-computed prefixes, so a
+ * keystroke costs a few term lookups instead of a wildcard scan over every term of the index.
+ */
+final class AutocompleteQueries {
+
+    static final String AUTOCOMPLETE_SUFFIX = ".autocomplete";
+
+    private static final String[] SHINGLE_SUFFIXES = { "", "._2gram", "._3gram" };
+
+    private AutocompleteQueries() {}
+
+    /**
+     * @param query the text typed so far.
+     * @param limit the maximum number of documents to return.
+     * @param fields the autocompleted fields; only these are fetched from {@code _source}.
+     * @return the query.
+     */
+    static NativeQuery prefixQuery(String query, int limit, String... fields) {
+        List<String> targets = new ArrayList<>();
+        for (String field : fields) {
+            for (String suffix : SHINGLE_SUFFIXES) {
+                targets.add(field + AUTOCOMPLETE_SUFFIX + suffix);
+            }
+        }
+        return NativeQuery.builder()
+            .withQuery(MultiMatchQuery.of(m -> m.query(query).type(TextQueryType.BoolPrefix).fields(targets))._toQuery())
+            .withSourceFilter(new FetchSourceFilter(fields, null))
+            .withMaxResults(limit)
+            .withTrackTotalHits(false)
+            .build();
+    }
+
+    /**
+     * Whether a candidate suggestion starts with the typed text, as a whole or at one of its words.
+     *
+     * @param candidate the candidate suggestion, may be {@code null}.
+     * @param normalizedQuery the typed text, trimmed and lower-cased.
+     * @return {@code true} if the candidate should be suggested.
+     */
+    static boolean matchesPrefix(String candidate, String normalizedQuery) {
+        if (candidate == null) {
+            return false;
+        }
+        String value = candidate.toLowerCase(Locale.ROOT);
+        return value.startsWith(normalizedQuery) || value.contains(" " + normalizedQuery);
+    }
+
+    static String normalize(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,16 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of search results reached through a continuation cursor rather than an offset.
+ *
+ * @param content the hits of this page.
+ * @param nextCursor the opaque cursor of the next page, or {@code null} on the last page.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor);
+    }
+}
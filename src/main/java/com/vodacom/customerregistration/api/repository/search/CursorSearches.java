@@ -0,0 +1,115 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Deep pagination with a point in time and {@code search_after}.
+ * <p>
+ * The first page opens a point in time (PIT) on the index, a consistent snapshot kept alive between pages, and
+ * every page is sorted by score with the PIT's implicit {@code _shard_doc} tiebreaker. The next page resumes
+ * after the sort values of the last hit, so each page costs the same as the first one however deep the client
+ * scrolls, and {@code max_result_window} never applies. The PIT id and sort values travel to the client as an
+ * opaque base64url token, which also carries a fingerprint of the query so it cannot be replayed against another
+ * one. The PIT is closed as soon as a short page shows the results are exhausted; abandoned ones expire after
+ * their keep-alive.
+ */
+final class CursorSearches {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private record Token(String pit, List<Object> after, String query) {}
+
+    private CursorSearches() {}
+
+    /**
+     * @param template the template to search with.
+     * @param type the class hits are decoded into.
+     * @param index the index or alias to search.
+     * @param sourceFields the {@code _source} fields to fetch.
+     * @param query the query, without paging or sorting.
+     * @param queryKey a stable representation of the query, used to check the cursor belongs to it.
+     * @param cursor the cursor returned with the previous page, or {@code null} to start.
+     * @param size the page size.
+     * @param keepAlive how long the point in time survives between two pages.
+     * @param timeout the Elasticsearch-side timeout of each page.
+     * @return the page and the cursor of the next one.
+     * @throws InvalidSearchCursorException if the cursor is malformed or was issued for another query.
+     */
+    static <T> CursorPage<T> search(
+        ElasticsearchTemplate template,
+        Class<T> type,
+        IndexCoordinates index,
+        String[] sourceFields,
+        co.elastic.clients.elasticsearch._types.query_dsl.Query query,
+        String queryKey,
+        String cursor,
+        int size,
+        Duration keepAlive,
+        Duration timeout
+    ) {
+        String fingerprint = DigestUtils.md5DigestAsHex(queryKey.getBytes(StandardCharsets.UTF_8));
+        Token token = cursor == null ? null : decode(cursor);
+        if (token != null && !token.query().equals(fingerprint)) {
+            throw new InvalidSearchCursorException("The cursor was issued for a different query");
+        }
+        String pit = token != null ? token.pit() : template.openPointInTime(index, keepAlive, false);
+
+        var builder = NativeQuery.builder()
+            .withQuery(query)
+            .withPointInTime(new Query.PointInTime(pit, keepAlive))
+            .withSourceFilter(new FetchSourceFilter(sourceFields, null))
+            .withSort(s -> s.score(sc -> sc.order(SortOrder.Desc)))
+            .withSort(s -> s.field(f -> f.field("_shard_doc").order(SortOrder.Asc)))
+            .withMaxResults(size)
+            .withTrackTotalHits(false)
+            .withTimeout(timeout);
+        if (token != null) {
+            builder.withSearchAfter(token.after());
+        }
+        SearchHits<T> hits = template.search(builder.build(), type, index);
+        List<SearchHit<T>> searchHits = hits.getSearchHits();
+        String nextPit = hits.getPointInTimeId() != null ? hits.getPointInTimeId() : pit;
+
+        List<T> content = searchHits.stream().map(SearchHit::getContent).toList();
+        if (searchHits.size() < size) {
+            template.closePointInTime(nextPit);
+            return new CursorPage<>(content, null);
+        }
+        List<Object> after = searchHits.get(searchHits.size() - 1).getSortValues();
+        return new CursorPage<>(content, encode(new Token(nextPit, after, fingerprint)));
+    }
+
+    private static String encode(Token token) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(token));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode search cursor", e);
+        }
+    }
+
+    private static Token decode(String cursor) {
+        try {
+            Token token = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), Token.class);
+            if (token.pit() == null || token.after() == null || token.query() == null) {
+                throw new InvalidSearchCursorException("Malformed search cursor");
+            }
+            return token;
+        } catch (IllegalArgumentException | java.io.IOException e) {
+            throw new InvalidSearchCursorException("Malformed search cursor");
+        }
+    }
+}
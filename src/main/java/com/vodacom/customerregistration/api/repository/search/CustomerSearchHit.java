@@ -0,0 +1,104 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import com.vodacom.customerregistration.api.domain.Customer;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Read-only projection of a customer search hit, holding only the fields search responses return.
+ * <p>
+ * Searches request just {@link #SOURCE_FIELDS} from {@code _source} and decode them straight into this class,
+ * instead of materializing a full {@link Customer} per hit.
+ */
+public class CustomerSearchHit {
+
+    static final String[] SOURCE_FIELDS = {
+        "id",
+        "firstName",
+        "middleName",
+        "lastName",
+        "dateOfBirth",
+        "nidaNumber",
+        "region",
+        "district",
+        "ward",
+    };
+
+    @org.springframework.data.elasticsearch.annotations.Field(type = org.springframework.data.elasticsearch.annotations.FieldType.Keyword)
+    private UUID id;
+
+    private String firstName;
+
+    private String middleName;
+
+    private String lastName;
+
+    private LocalDate dateOfBirth;
+
+    private String nidaNumber;
+
+    private String region;
+
+    private String district;
+
+    private String ward;
+
+    /**
+     * @param customer a customer read from the database, when search is answered by Postgres.
+     * @return the hit holding the same fields as one read from Elasticsearch.
+     */
+    static CustomerSearchHit of(Customer customer) {
+        CustomerSearchHit hit = new CustomerSearchHit();
+        hit.id = customer.getId();
+        hit.firstName = customer.getFirstName();
+        hit.middleName = customer.getMiddleName();
+        hit.lastName = customer.getLastName();
+        hit.dateOfBirth = customer.getDateOfBirth();
+        hit.nidaNumber = customer.getNidaNumber();
+        hit.region = customer.getRegion();
+        hit.district = customer.getDistrict();
+        hit.ward = customer.getWard();
+        return hit;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getMiddleName() {
+        return middleName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public String getNidaNumber() {
+        return nidaNumber;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getDistrict() {
+        return district;
+    }
+
+    public String getWard() {
+        return ward;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerSearchHit{id=" + id + "}";
+    }
+}
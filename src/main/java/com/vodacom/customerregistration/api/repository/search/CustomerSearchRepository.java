@@ -1,25 +1,41 @@
 package com.vodacom.customerregistration.api.repository.search;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
 import com.vodacom.customerregistration.api.domain.Customer;
 import com.vodacom.customerregistration.api.repository.CustomerRepository;
+import com.vodacom.customerregistration.api.repository.LikePatterns;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
 import org.springframework.data.elasticsearch.core.query.Query;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.data.jpa.domain.Specification;
 
 /**
  * Spring Data Elasticsearch repository for the {@link Customer} entity.
@@ -27,39 +43,190 @@ import org.springframework.data.elasticsearch.repository.ElasticsearchRepository
 public interface CustomerSearchRepository extends ElasticsearchRepository<Customer, Long>, CustomerSearchRepositoryInternal {}
 
 interface CustomerSearchRepositoryInternal {
-    Page<Customer> search(String query, Pageable pageable);
+    /**
+     * Search the text typed by the user, fetching only the fields of {@link CustomerSearchHit} from {@code _source}.
+     * While Elasticsearch fails or is slow, the search is answered from Postgres instead, matching each term of
+     * the text against the customer names and NIDA number.
+     *
+     * @param query the search text.
+     * @param raw whether to parse the text as {@code query_string} syntax; restricted to administrators.
+     * @param pageable the pagination information.
+     * @return the page of hits, with the backend that answered.
+     * @throws InvalidSearchQueryException if the query is rejected by the query guards.
+     */
+    SearchPage<CustomerSearchHit> search(String query, boolean raw, Pageable pageable);
 
     Page<Customer> search(Query query);
 
+    /**
+     * Search with a point in time and {@code search_after} instead of an offset, for deep pagination.
+     *
+     * @param query the search text.
+     * @param raw whether to parse the text as {@code query_string} syntax; restricted to administrators.
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the page and the cursor of the next one.
+     * @throws InvalidSearchCursorException if the cursor is malformed or was issued for another query.
+     * @throws InvalidSearchQueryException if the query is rejected by the query guards.
+     */
+    CursorPage<CustomerSearchHit> search(String query, boolean raw, String cursor, int size);
+
     List<String> getAutocompleteSuggestions(String query, int limit);
 
+    /**
+     * Index the given entity as it is, without reloading it from the database.
+     *
+     * @param entity the saved entity to index.
+     */
     void index(Customer entity);
 
+    /**
+     * Index the given, already loaded entities and delete the given ids with a single bulk request.
+     *
+     * @param entities the entities to index.
+     * @param deletedIds the ids of the documents to delete.
+     * @return the ids Elasticsearch rejected, mapped to the rejection reason.
+     */
+    Map<UUID, String> bulkWrite(Collection<Customer> entities, Collection<UUID> deletedIds);
+
+    /**
+     * Bulk index into a specific physical index, bypassing the write alias; used while rebuilding.
+     *
+     * @param entities the entities to index.
+     * @param index the target index.
+     * @return the ids Elasticsearch rejected, mapped to the rejection reason.
+     */
+    Map<UUID, String> bulkIndex(Collection<Customer> entities, IndexCoordinates index);
+
     void deleteFromIndexById(UUID id);
+
+    /**
+     * Delete from a specific physical index, bypassing the write alias; used while rebuilding.
+     *
+     * @param id the id of the deleted entity.
+     * @param index the target index.
+     */
+    void deleteFromIndexById(UUID id, IndexCoordinates index);
 }
 
 class CustomerSearchRepositoryInternalImpl implements CustomerSearchRepositoryInternal {
 
     private static final Logger LOG = LoggerFactory.getLogger(CustomerSearchRepositoryInternalImpl.class);
 
+    /** Sort of database answers when the request has none, as there is no relevance to sort by. */
+    private static final Sort DATABASE_SORT = Sort.by("lastName", "firstName", "id");
+
     private final ElasticsearchTemplate elasticsearchTemplate;
     private final CustomerRepository repository;
+    private final IndexCoordinates readIndex;
+    private final IndexCoordinates writeIndex;
+    private final RefreshPolicy defaultRefreshPolicy;
+    private final Duration cursorKeepAlive;
+    private final SearchQueries searchQueries;
+    private final SearchCircuitBreaker circuitBreaker;
+    private final ElasticsearchOperations writeOperations;
+    private final SearchBulkWrites bulkWrites;
 
-    CustomerSearchRepositoryInternalImpl(ElasticsearchTemplate elasticsearchTemplate, CustomerRepository repository) {
+    CustomerSearchRepositoryInternalImpl(
+        ElasticsearchTemplate elasticsearchTemplate,
+        CustomerRepository repository,
+        SearchIndexManager indexManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
         this.elasticsearchTemplate = elasticsearchTemplate;
         this.repository = repository;
+        this.readIndex = IndexCoordinates.of(indexManager.readAlias(Customer.class));
+        this.writeIndex = indexManager.writeIndex(Customer.class);
+        this.defaultRefreshPolicy = applicationProperties.getSearch().getRefresh().getCustomer();
+        this.cursorKeepAlive = Duration.ofSeconds(applicationProperties.getSearch().getCursor().getKeepAliveSeconds());
+        this.searchQueries = new SearchQueries(
+            applicationProperties.getSearch().getQuery(),
+            "firstName^3", "lastName^3", "middleName^2", "nidaNumber^4", "region", "district", "ward"
+        );
+        this.circuitBreaker = new SearchCircuitBreaker(
+            "customer",
+            applicationProperties.getSearch().getCircuitBreaker(),
+            CustomerSearchRepositoryInternalImpl::isFailure,
+            registry
+        );
+        this.writeOperations = elasticsearchTemplate.withRefreshPolicy(defaultRefreshPolicy);
+        this.bulkWrites = new SearchBulkWrites(elasticsearchTemplate);
     }
 
     @Override
-    public Page<Customer> search(String query, Pageable pageable) {
+    public SearchPage<CustomerSearchHit> search(String query, boolean raw, Pageable pageable) {
         LOG.debug("Searching customers with query: '{}'", query);
-        try {
-            NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
-            return search(nativeQuery.setPageable(pageable));
-        } catch (Exception e) {
-            LOG.error("Customer search failed: {}", e.getMessage());
-            throw e;
+        NativeQuery nativeQuery = new NativeQuery(searchQueries.build(query, raw));
+        nativeQuery.setPageable(pageable);
+        nativeQuery.setTimeout(searchQueries.timeout());
+        nativeQuery.addSourceFilter(new FetchSourceFilter(CustomerSearchHit.SOURCE_FIELDS, null));
+        return circuitBreaker.execute(
+            () -> {
+                SearchHits<CustomerSearchHit> searchHits = elasticsearchTemplate.search(nativeQuery, CustomerSearchHit.class, readIndex);
+                List<CustomerSearchHit> hits = searchHits.map(SearchHit::getContent).stream().toList();
+                return new SearchPage<>(hits, pageable, searchHits.getTotalHits(), SearchBackend.ELASTICSEARCH);
+            },
+            () -> searchDatabase(query, pageable)
+        );
+    }
+
+    /**
+     * Every term must occur in the first name, last name or NIDA number. The {@code lower(column) LIKE '%term%'}
+     * predicates are served by the trigram indexes of {@code db/indexes/01_customer_search_indexes.sql}.
+     */
+    private SearchPage<CustomerSearchHit> searchDatabase(String query, Pageable pageable) {
+        LOG.debug("Searching customers in the database with query: '{}'", query);
+        Specification<Customer> specification = Stream.of(query.trim().toLowerCase(Locale.ROOT).split("\\s+"))
+            .map(term -> term.replace("*", "").replace("?", ""))
+            .filter(term -> !term.isEmpty())
+            .map(CustomerSearchRepositoryInternalImpl::containing)
+            .reduce(Specification::and)
+            .orElse((root, criteriaQuery, cb) -> cb.disjunction());
+        Pageable sorted = pageable.isPaged() && pageable.getSort().isUnsorted()
+            ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), DATABASE_SORT)
+            : pageable;
+        return new SearchPage<>(repository.findAll(specification, sorted).map(CustomerSearchHit::of), SearchBackend.POSTGRES);
+    }
+
+    private static Specification<Customer> containing(String term) {
+        String pattern = LikePatterns.contains(term);
+        return (root, criteriaQuery, cb) ->
+            cb.or(
+                cb.like(cb.lower(root.get("firstName")), pattern, '\\'),
+                cb.like(cb.lower(root.get("lastName")), pattern, '\\'),
+                cb.like(cb.lower(root.get("nidaNumber")), pattern, '\\')
+            );
+    }
+
+    /**
+     * Errors Elasticsearch answered with a 4xx status, such as a malformed raw query, are the request's fault and
+     * do not count against the circuit; everything else, including timeouts and connection failures, does.
+     */
+    private static boolean isFailure(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof UncategorizedElasticsearchException es && es.getStatusCode() != null && es.getStatusCode() < 500) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    @Override
+    public CursorPage<CustomerSearchHit> search(String query, boolean raw, String cursor, int size) {
+        LOG.debug("Searching customers with query: '{}', cursor: {}", query, cursor != null);
+        return CursorSearches.search(
+            elasticsearchTemplate,
+            CustomerSearchHit.class,
+            readIndex,
+            CustomerSearchHit.SOURCE_FIELDS,
+            searchQueries.build(query, raw),
+            (raw ? "raw:" : "") + query,
+            cursor,
+            size,
+            cursorKeepAlive,
+            searchQueries.timeout()
+        );
     }
 
     @Override
@@ -81,11 +248,8 @@ class CustomerSearchRepositoryInternalImpl implements CustomerSearchRepositoryIn
         }
 
         try {
-            String lowercaseQuery = query.toLowerCase().trim();
-            String searchQuery = "*" + lowercaseQuery + "*";
-
-            NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(searchQuery))._toQuery());
-            nativeQuery.setPageable(PageRequest.of(0, limit * 3));
+            String normalizedQuery = AutocompleteQueries.normalize(query);
+            NativeQuery nativeQuery = AutocompleteQueries.prefixQuery(normalizedQuery, limit, "firstName", "lastName", "nidaNumber");
 
             SearchHits<Customer> searchHits = elasticsearchTemplate.search(nativeQuery, Customer.class);
 
@@ -98,8 +262,7 @@ class CustomerSearchRepositoryInternalImpl implements CustomerSearchRepositoryIn
                     customer.getFirstName() + " " + customer.getLastName(),
                     customer.getNidaNumber()
                 ))
-                .filter(suggestion -> suggestion != null &&
-                        suggestion.toLowerCase().contains(lowercaseQuery))
+                .filter(suggestion -> AutocompleteQueries.matchesPrefix(suggestion, normalizedQuery))
                 .distinct()
                 .limit(limit)
                 .collect(Collectors.toList());
@@ -116,23 +279,55 @@ class CustomerSearchRepositoryInternalImpl implements CustomerSearchRepositoryIn
             if (entity.getId() == null) {
                 return;
             }
-            Optional<Customer> customerOpt = repository.findById(entity.getId());
-            if (customerOpt.isPresent()) {
-                elasticsearchTemplate.save(customerOpt.orElseThrow());
-                elasticsearchTemplate.indexOps(Customer.class).refresh();
-            }
+            writeOperations.save(entity, writeIndex);
         } catch (Exception e) {
             LOG.error("Failed to index customer ID {}: {}", entity.getId(), e.getMessage());
         }
     }
 
+    @Override
+    public Map<UUID, String> bulkWrite(Collection<Customer> entities, Collection<UUID> deletedIds) {
+        return bulkWrites.write(entities, Customer::getId, deletedIds, defaultRefreshPolicy, writeIndex);
+    }
+
+    @Override
+    public Map<UUID, String> bulkIndex(Collection<Customer> entities, IndexCoordinates index) {
+        return bulkIndex(entities, RefreshPolicy.NONE, index);
+    }
+
+    private Map<UUID, String> bulkIndex(Collection<Customer> entities, RefreshPolicy refreshPolicy, IndexCoordinates index) {
+        if (entities.isEmpty()) {
+            return Map.of();
+        }
+        List<IndexQuery> queries = entities
+            .stream()
+            .map(customer -> new IndexQueryBuilder().withId(String.valueOf(customer.getId())).withObject(customer).build())
+            .toList();
+        try {
+            elasticsearchTemplate.bulkIndex(queries, BulkOptions.builder().withRefreshPolicy(refreshPolicy).build(), index);
+            return Map.of();
+        } catch (BulkFailureException e) {
+            LOG.warn("Bulk index of {} customers had {} rejected documents", queries.size(), e.getFailedDocuments().size());
+            return e
+                .getFailedDocuments()
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(entry -> UUID.fromString(entry.getKey()), entry -> String.valueOf(entry.getValue().errorMessage())));
+        }
+    }
+
     @Override
     public void deleteFromIndexById(UUID id) {
         try {
-            elasticsearchTemplate.delete(String.valueOf(id), Customer.class);
-            elasticsearchTemplate.indexOps(Customer.class).refresh();
+            writeOperations.delete(String.valueOf(id), writeIndex);
         } catch (Exception e) {
             LOG.error("Failed to delete customer from Elasticsearch: {}", e.getMessage());
+            throw e;
         }
     }
+
+    @Override
+    public void deleteFromIndexById(UUID id, IndexCoordinates index) {
+        elasticsearchTemplate.delete(String.valueOf(id), index);
+    }
 }
@@ -0,0 +1,13 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+/**
+ * Thrown when a search or keyset continuation cursor cannot be decoded or belongs to another query.
+ */
+public class InvalidSearchCursorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidSearchCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+/**
+ * Thrown when a search query is rejected by the query guards, e.g. because it is too long or has too many terms.
+ */
+public class InvalidSearchQueryException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidSearchQueryException(String message) {
+        super(message);
+    }
+}
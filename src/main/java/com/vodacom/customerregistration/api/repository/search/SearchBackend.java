@@ -0,0 +1,10 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+/**
+ * The store that answered a search.
+ */
+public enum SearchBackend {
+    ELASTICSEARCH,
+    /** Elasticsearch was failing or slow, and the search was answered from the database. */
+    POSTGRES,
+}
@@ -0,0 +1,84 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+/**
+ * Indexes and deletes documents of one index with a single bulk request.
+ * <p>
+ * Spring Data's bulk methods only index or update, so the request is built here; documents are mapped by the
+ * template's converter, as {@code bulkIndex} maps them. Deleting a document that is not in the index succeeds.
+ */
+final class SearchBulkWrites {
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    SearchBulkWrites(ElasticsearchTemplate elasticsearchTemplate) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+    }
+
+    /**
+     * @param entities the entities to index.
+     * @param id the id of an entity.
+     * @param deletedIds the ids of the documents to delete.
+     * @param refreshPolicy the refresh policy of the request.
+     * @param index the target index or alias.
+     * @return the ids Elasticsearch rejected, mapped to the rejection reason.
+     */
+    <T> Map<UUID, String> write(
+        Collection<T> entities,
+        Function<T, UUID> id,
+        Collection<UUID> deletedIds,
+        RefreshPolicy refreshPolicy,
+        IndexCoordinates index
+    ) {
+        if (entities.isEmpty() && deletedIds.isEmpty()) {
+            return Map.of();
+        }
+        ElasticsearchConverter converter = elasticsearchTemplate.getElasticsearchConverter();
+        List<BulkOperation> operations = new ArrayList<>(entities.size() + deletedIds.size());
+        for (T entity : entities) {
+            String documentId = String.valueOf(id.apply(entity));
+            Document document = converter.mapObject(entity);
+            operations.add(BulkOperation.of(operation -> operation.index(indexOperation -> indexOperation.id(documentId).document(document))));
+        }
+        for (UUID deletedId : deletedIds) {
+            operations.add(BulkOperation.of(operation -> operation.delete(delete -> delete.id(String.valueOf(deletedId)))));
+        }
+        BulkRequest request = BulkRequest.of(bulk -> bulk.index(index.getIndexName()).refresh(refresh(refreshPolicy)).operations(operations));
+        BulkResponse response = elasticsearchTemplate.execute(client -> client.bulk(request));
+        if (!response.errors()) {
+            return Map.of();
+        }
+        Map<UUID, String> failures = new HashMap<>();
+        for (BulkResponseItem item : response.items()) {
+            if (item.error() != null && item.id() != null) {
+                failures.put(UUID.fromString(item.id()), String.valueOf(item.error().reason()));
+            }
+        }
+        return failures;
+    }
+
+    private static Refresh refresh(RefreshPolicy refreshPolicy) {
+        return switch (refreshPolicy) {
+            case IMMEDIATE -> Refresh.True;
+            case WAIT_UNTIL -> Refresh.WaitFor;
+            case NONE -> Refresh.False;
+        };
+    }
+}
@@ -0,0 +1,185 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breaker around Elasticsearch searches, switching to a fallback while Elasticsearch fails or is slow.
+ * <p>
+ * While closed, the outcome of the last {@code sliding-window-size} calls is recorded; a call fails when it throws
+ * an error counted by the failure predicate or takes longer than {@code slow-call-ms}. Once at least
+ * {@code minimum-calls} were recorded and the failure rate reaches {@code failure-rate-threshold} percent, the
+ * circuit opens and every call goes straight to the fallback for {@code open-duration-ms}. It then half-opens and
+ * lets a single trial call through: success closes the circuit, failure opens it again. A failed call is also
+ * answered by the fallback, so callers never see the Elasticsearch error itself.
+ */
+final class SearchCircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchCircuitBreaker.class);
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN,
+    }
+
+    private final String name;
+    private final ApplicationProperties.Search.CircuitBreaker properties;
+    private final Predicate<RuntimeException> isFailure;
+    private final LongSupplier nanoClock;
+    private final Counter openFallbacks;
+    private final Counter errorFallbacks;
+
+    private final boolean[] window;
+    private int windowPosition;
+    private int recordedCalls;
+    private int failedCalls;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    SearchCircuitBreaker(
+        String name,
+        ApplicationProperties.Search.CircuitBreaker properties,
+        Predicate<RuntimeException> isFailure,
+        MeterRegistry registry
+    ) {
+        this(name, properties, isFailure, registry, System::nanoTime);
+    }
+
+    SearchCircuitBreaker(
+        String name,
+        ApplicationProperties.Search.CircuitBreaker properties,
+        Predicate<RuntimeException> isFailure,
+        MeterRegistry registry,
+        LongSupplier nanoClock
+    ) {
+        this.name = name;
+        this.properties = properties;
+        this.isFailure = isFailure;
+        this.nanoClock = nanoClock;
+        this.window = new boolean[properties.getSlidingWindowSize()];
+        this.openFallbacks = fallbackCounter(registry, "open");
+        this.errorFallbacks = fallbackCounter(registry, "error");
+        Gauge.builder("search.circuit.state", this, breaker -> breaker.state().ordinal())
+            .description("Search circuit breaker state: 0 closed, 1 open, 2 half-open")
+            .tag("name", name)
+            .register(registry);
+    }
+
+    private Counter fallbackCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("search.circuit.fallbacks")
+            .description("Searches answered by the fallback instead of Elasticsearch")
+            .tag("name", name)
+            .tag("reason", reason)
+            .register(registry);
+    }
+
+    /**
+     * @param call the Elasticsearch call.
+     * @param fallback answers instead of the call while the circuit is open or when the call fails.
+     * @return the result of the call or of the fallback.
+     */
+    <T> T execute(Supplier<T> call, Supplier<T> fallback) {
+        if (!tryAcquire()) {
+            openFallbacks.increment();
+            return fallback.get();
+        }
+        long start = nanoClock.getAsLong();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (!isFailure.test(e)) {
+                // Elasticsearch answered, the request itself was wrong.
+                record(true);
+                throw e;
+            }
+            record(false);
+            errorFallbacks.increment();
+            LOG.warn("{} search failed, answering from the fallback: {}", name, e.getMessage());
+            return fallback.get();
+        }
+        record(nanoClock.getAsLong() - start <= properties.getSlowCallMs() * 1_000_000L);
+        return result;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < properties.getOpenDurationMs() * 1_000_000L) {
+                    return false;
+                }
+                transition(State.HALF_OPEN);
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    private synchronized void record(boolean success) {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (success) {
+                transition(State.CLOSED);
+            } else {
+                open();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call that started before the circuit opened; its outcome is no longer relevant.
+            return;
+        }
+        if (recordedCalls == window.length) {
+            if (window[windowPosition]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        window[windowPosition] = !success;
+        if (!success) {
+            failedCalls++;
+        }
+        windowPosition = (windowPosition + 1) % window.length;
+        if (recordedCalls >= properties.getMinimumCalls() && failedCalls * 100 >= properties.getFailureRateThreshold() * recordedCalls) {
+            open();
+        }
+    }
+
+    private void open() {
+        openedAt = nanoClock.getAsLong();
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (next == State.CLOSED || next == State.OPEN) {
+            recordedCalls = 0;
+            failedCalls = 0;
+            windowPosition = 0;
+        }
+        if (state != next) {
+            LOG.warn("{} search circuit breaker {} -> {}", name, state, next);
+        }
+        state = next;
+    }
+}
@@ -0,0 +1,207 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Manages the versioned physical indices behind the customer and agent aliases.
+ * <p>
+ * The {@code indexName} of a {@code @Document} is used as the read alias; writes go through a separate
+ * {@code <alias>_write} alias. Both point at a physical index named {@code <alias>_v<n>}. A rebuild creates
+ * version {@code n + 1} tuned for bulk loading, and only once it is complete are its settings restored and
+ * both aliases moved over in a single atomic update, so searches never see a partial index.
+ */
+@Component
+public class SearchIndexManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchIndexManager.class);
+
+    public static final String WRITE_ALIAS_SUFFIX = "_write";
+
+    private static final String VERSION_SEPARATOR = "_v";
+
+    private static final String REPLICAS_SETTING = "index.number_of_replicas";
+
+    private static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+    private final ApplicationProperties.Search.Reindex properties;
+
+    public SearchIndexManager(ElasticsearchTemplate elasticsearchTemplate, ApplicationProperties applicationProperties) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.properties = applicationProperties.getSearch().getReindex();
+    }
+
+    /**
+     * @param type the document class.
+     * @return the alias searches are run against.
+     */
+    public String readAlias(Class<?> type) {
+        return elasticsearchTemplate.getIndexCoordinatesFor(type).getIndexName();
+    }
+
+    /**
+     * @param type the document class.
+     * @return the alias index, bulk and delete requests are sent to.
+     */
+    public IndexCoordinates writeIndex(Class<?> type) {
+        return IndexCoordinates.of(readAlias(type) + WRITE_ALIAS_SUFFIX);
+    }
+
+    /**
+     * @param type the document class.
+     * @return whether the read alias exists.
+     */
+    public boolean indexExists(Class<?> type) {
+        return aliasExists(readAlias(type));
+    }
+
+    /**
+     * Fingerprint of the mapping and settings derived from the document class; a change means
+     * existing indices were built with an outdated mapping and must be rebuilt.
+     *
+     * @param type the document class.
+     * @return the hex digest of the mapping and settings.
+     */
+    public String mappingVersion(Class<?> type) {
+        IndexOperations indexOps = elasticsearchTemplate.indexOps(type);
+        String definition = indexOps.createMapping(type).toJson() + indexOps.createSettings(type).toJson();
+        return DigestUtils.md5DigestAsHex(definition.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create the next index version for a rebuild, with no replicas and refresh disabled.
+     *
+     * @param type the document class.
+     * @return the new physical index, not yet visible through the aliases.
+     */
+    public IndexCoordinates createRebuildIndex(Class<?> type) {
+        return createVersion(type, indexOps -> {
+            Settings settings = indexOps.createSettings(type).flatten();
+            settings.put(REPLICAS_SETTING, "0");
+            settings.put(REFRESH_INTERVAL_SETTING, "-1");
+            return settings;
+        });
+    }
+
+    /**
+     * Restore the live settings of a rebuilt index, move both aliases onto it and delete old versions.
+     *
+     * @param type the document class.
+     * @param index the rebuilt index.
+     */
+    public void promote(Class<?> type, IndexCoordinates index) {
+        Settings live = elasticsearchTemplate.indexOps(type).createSettings(type).flatten();
+        String replicas = String.valueOf(live.getOrDefault(REPLICAS_SETTING, "1"));
+        String refreshInterval = String.valueOf(live.getOrDefault(REFRESH_INTERVAL_SETTING, "1s"));
+        elasticsearchTemplate.execute(client ->
+            client
+                .indices()
+                .putSettings(r -> r.index(index.getIndexName()).settings(s -> s.numberOfReplicas(replicas).refreshInterval(t -> t.time(refreshInterval))))
+        );
+        elasticsearchTemplate.indexOps(index).refresh();
+        switchAliases(type, index);
+        deleteOldVersions(type, index.getIndexName());
+    }
+
+    /**
+     * @param index a physical index.
+     * @return whether it exists.
+     */
+    public boolean exists(IndexCoordinates index) {
+        return elasticsearchTemplate.indexOps(index).exists();
+    }
+
+    private IndexCoordinates createVersion(Class<?> type, Function<IndexOperations, Settings> settings) {
+        String alias = readAlias(type);
+        int version = versions(alias).stream().mapToInt(Version::number).max().orElse(0) + 1;
+        IndexCoordinates index = IndexCoordinates.of(alias + VERSION_SEPARATOR + version);
+        IndexOperations indexOps = elasticsearchTemplate.indexOps(index);
+        indexOps.create(settings.apply(indexOps), indexOps.createMapping(type));
+        LOG.info("Created index {}", index.getIndexName());
+        return index;
+    }
+
+    private void switchAliases(Class<?> type, IndexCoordinates index) {
+        String alias = readAlias(type);
+        String writeAlias = alias + WRITE_ALIAS_SUFFIX;
+        String target = index.getIndexName();
+        List<Action> actions = new ArrayList<>();
+        for (Version version : versions(alias)) {
+            if (version.aliases().contains(alias) && !version.name().equals(target)) {
+                actions.add(Action.of(a -> a.remove(r -> r.index(version.name()).alias(alias))));
+            }
+            if (version.aliases().contains(writeAlias) && !version.name().equals(target)) {
+                actions.add(Action.of(a -> a.remove(r -> r.index(version.name()).alias(writeAlias))));
+            }
+        }
+        // A concrete index carrying the alias name predates versioning and would block the alias.
+        if (elasticsearchTemplate.indexOps(IndexCoordinates.of(alias)).exists() && !aliasExists(alias)) {
+            actions.add(Action.of(a -> a.removeIndex(r -> r.index(alias))));
+        }
+        actions.add(Action.of(a -> a.add(ad -> ad.index(target).alias(alias))));
+        actions.add(Action.of(a -> a.add(ad -> ad.index(target).alias(writeAlias).isWriteIndex(true))));
+        elasticsearchTemplate.execute(client -> client.indices().updateAliases(r -> r.actions(actions)));
+        LOG.info("Aliases {} and {} now point at {}", alias, writeAlias, target);
+    }
+
+    private void deleteOldVersions(Class<?> type, String current) {
+        List<Version> versions = versions(readAlias(type));
+        int currentNumber = versions.stream().filter(version -> version.name().equals(current)).mapToInt(Version::number).findFirst().orElse(0);
+        // Newer versions may belong to a rebuild still in progress, so only older ones are candidates.
+        List<Version> old = versions
+            .stream()
+            .filter(version -> version.number() < currentNumber && version.aliases().isEmpty())
+            .sorted(Comparator.comparingInt(Version::number).reversed())
+            .toList();
+        for (Version version : old.subList(Math.min(properties.getRetainedVersions(), old.size()), old.size())) {
+            LOG.info("Deleting old index {}", version.name());
+            elasticsearchTemplate.indexOps(IndexCoordinates.of(version.name())).delete();
+        }
+    }
+
+    private boolean aliasExists(String alias) {
+        return elasticsearchTemplate.execute(client -> client.indices().existsAlias(r -> r.name(alias)).value());
+    }
+
+    private record Version(String name, int number, Set<String> aliases) {}
+
+    private List<Version> versions(String alias) {
+        Pattern pattern = Pattern.compile(Pattern.quote(alias + VERSION_SEPARATOR) + "(\\d+)");
+        Map<String, Set<String>> aliasesByIndex = elasticsearchTemplate.execute(client ->
+            client
+                .indices()
+                .get(r -> r.index(alias + VERSION_SEPARATOR + "*"))
+                .result()
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().aliases().keySet()))
+        );
+        List<Version> versions = new ArrayList<>();
+        aliasesByIndex.forEach((name, aliases) -> {
+            Matcher matcher = pattern.matcher(name);
+            if (matcher.matches()) {
+                versions.add(new Version(name, Integer.parseInt(matcher.group(1)), aliases));
+            }
+        });
+        return versions;
+    }
+}
@@ -0,0 +1,35 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * A page of search results that remembers which {@link SearchBackend} answered, also across {@link #map}.
+ */
+public class SearchPage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SearchBackend backend;
+
+    public SearchPage(List<T> content, Pageable pageable, long total, SearchBackend backend) {
+        super(content, pageable, total);
+        this.backend = backend;
+    }
+
+    public SearchPage(Page<T> page, SearchBackend backend) {
+        this(page.getContent(), page.getPageable(), page.getTotalElements(), backend);
+    }
+
+    public SearchBackend getBackend() {
+        return backend;
+    }
+
+    @Override
+    public <U> SearchPage<U> map(Function<? super T, ? extends U> converter) {
+        return new SearchPage<>(getConvertedContent(converter), getPageable(), getTotalElements(), backend);
+    }
+}
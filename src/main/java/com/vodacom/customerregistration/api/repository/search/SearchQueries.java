@@ -0,0 +1,119 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.MultiMatchQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the text typed in a search box into a bounded Elasticsearch query.
+ * <p>
+ * The structured query never interprets query syntax: every term becomes one {@code multi_match} over a fixed,
+ * boosted field set with bounded fuzziness, and all terms must match. Wildcards are rewritten rather than passed
+ * on: leading and inner ones are dropped, and a trailing {@code *} on the last term turns it into a bounded
+ * {@code phrase_prefix}, so no query scans the whole term dictionary. Over-long queries and queries with too many
+ * terms are rejected, and every search carries an Elasticsearch-side timeout.
+ * <p>
+ * The raw {@code query_string} syntax remains available for administrators; it is subject to the same length
+ * limit and timeout and refuses leading wildcards.
+ */
+final class SearchQueries {
+
+    private static final String FUZZINESS = "AUTO";
+
+    private static final int PREFIX_LENGTH = 1;
+
+    private static final int MAX_EXPANSIONS = 50;
+
+    private final List<String> fields;
+    private final int maxLength;
+    private final int maxTerms;
+    private final Duration timeout;
+
+    /**
+     * @param properties the guard limits.
+     * @param fields the searched fields, optionally boosted as {@code field^boost}.
+     */
+    SearchQueries(ApplicationProperties.Search.Query properties, String... fields) {
+        this.fields = List.of(fields);
+        this.maxLength = properties.getMaxLength();
+        this.maxTerms = properties.getMaxTerms();
+        this.timeout = Duration.ofMillis(properties.getTimeoutMs());
+    }
+
+    /**
+     * @param query the text typed by the user.
+     * @param raw whether to parse the text as {@code query_string} syntax; callers must restrict this to administrators.
+     * @return the query.
+     * @throws InvalidSearchQueryException if the text is empty, too long or has too many terms.
+     */
+    Query build(String query, boolean raw) {
+        String text = query == null ? "" : query.trim();
+        if (text.length() > maxLength) {
+            throw new InvalidSearchQueryException("Search query must not be longer than " + maxLength + " characters");
+        }
+        if (raw) {
+            if (text.isEmpty()) {
+                throw new InvalidSearchQueryException("Search query must not be empty");
+            }
+            return QueryStringQuery.of(qs -> qs.query(text).allowLeadingWildcard(false))._toQuery();
+        }
+
+        String[] tokens = text.split("\\s+");
+        boolean prefix = tokens[tokens.length - 1].endsWith("*");
+        List<String> terms = new ArrayList<>();
+        for (String token : tokens) {
+            String term = token.replace("*", "").replace("?", "");
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        if (terms.isEmpty()) {
+            throw new InvalidSearchQueryException("Search query must contain at least one term besides wildcards");
+        }
+        if (terms.size() > maxTerms) {
+            throw new InvalidSearchQueryException("Search query must not have more than " + maxTerms + " terms");
+        }
+
+        List<Query> clauses = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            boolean last = i == terms.size() - 1;
+            clauses.add(last && prefix ? prefixClause(term) : termClause(term));
+        }
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        return Query.of(q -> q.bool(b -> b.must(clauses)));
+    }
+
+    /**
+     * @return the Elasticsearch-side timeout to set on every search.
+     */
+    Duration timeout() {
+        return timeout;
+    }
+
+    private Query termClause(String term) {
+        return MultiMatchQuery.of(m ->
+            m
+                .query(term)
+                .fields(fields)
+                .type(TextQueryType.BestFields)
+                .fuzziness(FUZZINESS)
+                .prefixLength(PREFIX_LENGTH)
+                .maxExpansions(MAX_EXPANSIONS)
+                .lenient(true)
+        )._toQuery();
+    }
+
+    private Query prefixClause(String term) {
+        return MultiMatchQuery.of(m ->
+            m.query(term).fields(fields).type(TextQueryType.PhrasePrefix).maxExpansions(MAX_EXPANSIONS).lenient(true)
+        )._toQuery();
+    }
+}
@@ -1,9 +1,10 @@
 package com.vodacom.customerregistration.api.repository.search;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
 import com.vodacom.customerregistration.api.domain.User;
 import com.vodacom.customerregistration.api.repository.UserRepository;
 import java.util.stream.Stream;
+import org.hibernate.Hibernate;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.core.SearchHit;
@@ -17,6 +18,11 @@ import org.springframework.transaction.annotation.Transactional;
 public interface UserSearchRepository extends ElasticsearchRepository<User, Long>, UserSearchRepositoryInternal {}
 
 interface UserSearchRepositoryInternal {
+    /**
+     * @param query the search text, matched as a structured query.
+     * @return the matching users.
+     * @throws InvalidSearchQueryException if the query is rejected by the query guards.
+     */
     Stream<User> search(String query);
 
     @Async
@@ -32,21 +38,36 @@ class UserSearchRepositoryInternalImpl implements UserSearchRepositoryInternal {
 
     private final ElasticsearchTemplate elasticsearchTemplate;
     private final UserRepository repository;
+    private final SearchQueries searchQueries;
 
-    UserSearchRepositoryInternalImpl(ElasticsearchTemplate elasticsearchTemplate, UserRepository repository) {
+    UserSearchRepositoryInternalImpl(
+        ElasticsearchTemplate elasticsearchTemplate,
+        UserRepository repository,
+        ApplicationProperties applicationProperties
+    ) {
         this.elasticsearchTemplate = elasticsearchTemplate;
         this.repository = repository;
+        this.searchQueries = new SearchQueries(
+            applicationProperties.getSearch().getQuery(),
+            "login^3", "firstName^2", "lastName^2", "email^2"
+        );
     }
 
     @Override
     public Stream<User> search(String query) {
-        NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
+        NativeQuery nativeQuery = new NativeQuery(searchQueries.build(query, false));
+        nativeQuery.setTimeout(searchQueries.timeout());
         return elasticsearchTemplate.search(nativeQuery, User.class).map(SearchHit::getContent).stream();
     }
 
     @Override
     public void index(User entity) {
-        repository.findById(entity.getId()).ifPresent(elasticsearchTemplate::save);
+        // Runs asynchronously, so a detached user may still carry an uninitialized authorities proxy.
+        if (Hibernate.isInitialized(entity.getAuthorities())) {
+            elasticsearchTemplate.save(entity);
+        } else {
+            repository.findOneWithAuthoritiesById(entity.getId()).ifPresent(elasticsearchTemplate::save);
+        }
     }
 
     @Override
@@ -30,7 +30,7 @@ public class DomainUserDetailsService implements UserDetailsService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public UserDetails loadUserByUsername(final String login) {
         LOG.debug("Authenticating {}", login);
 
@@ -0,0 +1,40 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maintains the activity log partitions once the application is ready, so the current month exists before the first
+ * logs are written, and then daily on {@code application.activity-log.partitions.cron}.
+ */
+@Component
+public class ActivityLogPartitionScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActivityLogPartitionScheduler.class);
+
+    private final ActivityLogPartitionService partitionService;
+    private final ApplicationProperties.ActivityLog.Partitions properties;
+
+    public ActivityLogPartitionScheduler(ActivityLogPartitionService partitionService, ApplicationProperties applicationProperties) {
+        this.partitionService = partitionService;
+        this.properties = applicationProperties.getActivityLog().getPartitions();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${application.activity-log.partitions.cron:0 0 3 * * ?}")
+    public void maintain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            partitionService.maintainPartitions();
+        } catch (Exception e) {
+            LOG.error("Activity log partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+}
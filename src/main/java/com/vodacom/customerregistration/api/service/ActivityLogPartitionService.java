@@ -0,0 +1,78 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.repository.ActivityLogPartitions;
+import com.vodacom.customerregistration.api.repository.search.ActivityLogSearchRepository;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service keeping the monthly partitions of the activity log in line with {@code application.activity-log.partitions}.
+ */
+@Service
+public class ActivityLogPartitionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActivityLogPartitionService.class);
+
+    private final ActivityLogPartitions partitions;
+    private final ActivityLogSearchRepository activityLogSearchRepository;
+    private final ApplicationProperties.ActivityLog.Partitions properties;
+
+    public ActivityLogPartitionService(
+        ActivityLogPartitions partitions,
+        ActivityLogSearchRepository activityLogSearchRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.partitions = partitions;
+        this.activityLogSearchRepository = activityLogSearchRepository;
+        this.properties = applicationProperties.getActivityLog().getPartitions();
+    }
+
+    /**
+     * Partition the table if it is not yet, create the missing months through {@code months-ahead} months from now and
+     * drop the months past retention, along with their search indices. Does nothing while another node holds the maintenance lock.
+     */
+    @Transactional
+    public void maintainPartitions() {
+        if (!partitions.tryLock()) {
+            LOG.debug("Activity log partitions are being maintained by another node");
+            return;
+        }
+        Boolean partitioned = partitions.isPartitioned();
+        if (partitioned == null) {
+            LOG.warn("Table activity_log does not exist, skipping partition maintenance");
+            return;
+        }
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth last = current.plusMonths(properties.getMonthsAhead());
+        if (!partitioned) {
+            partitions.partition(last);
+        }
+
+        Set<YearMonth> months = partitions.months();
+        for (YearMonth month = current; !month.isAfter(last); month = month.plusMonths(1)) {
+            if (!months.contains(month)) {
+                partitions.createMonth(month);
+            }
+        }
+
+        if (properties.getRetentionMonths() > 0) {
+            YearMonth oldest = current.minusMonths(properties.getRetentionMonths());
+            for (YearMonth month : months) {
+                if (month.isBefore(oldest)) {
+                    partitions.dropMonth(month);
+                }
+            }
+            int deleted = partitions.deleteDefaultRowsBefore(oldest);
+            if (deleted > 0) {
+                LOG.info("Deleted {} activity logs older than {} from the default partition", deleted, oldest);
+            }
+            activityLogSearchRepository.deleteMonthsBefore(oldest);
+        }
+    }
+}
@@ -1,21 +1,34 @@
 package com.vodacom.customerregistration.api.service;
 
+import com.vodacom.customerregistration.api.config.Constants;
 import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
 import com.vodacom.customerregistration.api.repository.ActivityLogRepository;
+import com.vodacom.customerregistration.api.repository.search.ActivityLogSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.SearchPage;
 import com.vodacom.customerregistration.api.security.SecurityUtils;
+import com.vodacom.customerregistration.api.service.dto.ActivityCountsDTO;
 import com.vodacom.customerregistration.api.service.dto.ActivityLogDTO;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
 import com.vodacom.customerregistration.api.service.mapper.ActivityLogMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,10 +40,22 @@ public class ActivityLogService {
 
     private final ActivityLogRepository activityLogRepository;
     private final ActivityLogMapper activityLogMapper;
-
-    public ActivityLogService(ActivityLogRepository activityLogRepository, ActivityLogMapper activityLogMapper) {
+    private final ActivityLogWriter activityLogWriter;
+    private final ActivityLogSearchRepository activityLogSearchRepository;
+    private final SearchReindexJobService searchReindexJobService;
+
+    public ActivityLogService(
+        ActivityLogRepository activityLogRepository,
+        ActivityLogMapper activityLogMapper,
+        ActivityLogWriter activityLogWriter,
+        ActivityLogSearchRepository activityLogSearchRepository,
+        SearchReindexJobService searchReindexJobService
+    ) {
         this.activityLogRepository = activityLogRepository;
         this.activityLogMapper = activityLogMapper;
+        this.activityLogWriter = activityLogWriter;
+        this.activityLogSearchRepository = activityLogSearchRepository;
+        this.searchReindexJobService = searchReindexJobService;
     }
 
     public ActivityLogDTO save(ActivityLogDTO activityLogDTO) {
@@ -57,6 +82,18 @@ public class ActivityLogService {
         activityLogRepository.deleteById(id);
     }
 
+    /**
+     * Start a background job indexing every activity log into the index of its month, month by month.
+     *
+     * @return the started job.
+     * @throws ReindexJobAlreadyRunningException if an activity log backfill job is already running.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SearchReindexJobDTO reindexAll() {
+        LOG.info("Starting a job to backfill all activity logs from database to Elasticsearch");
+        return searchReindexJobService.start(ActivityLog.class);
+    }
+
     @Transactional(readOnly = true)
     public Page<ActivityLogDTO> findByCurrentUser(Pageable pageable) {
         String currentUserLogin = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new IllegalStateException("No authenticated user found"));
@@ -73,12 +110,15 @@ public class ActivityLogService {
         return activityLogRepository.findByCreatedByAndActionTypeOrderByTimestampDesc(currentUserLogin, actionType, pageable).map(activityLogMapper::toDto);
     }
 
+    /**
+     * Search the activity logs of the current user, see {@link #search}.
+     */
     @Transactional(readOnly = true)
-    public Page<ActivityLogDTO> findByCurrentUserAndSearch(String searchTerm, Pageable pageable) {
+    public SearchPage<ActivityLogDTO> searchCurrentUser(String query, ActivityLog.ActionType actionType, Instant from, Instant to, Pageable pageable) {
         String currentUserLogin = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new IllegalStateException("No authenticated user found"));
 
-        LOG.debug("Request to search ActivityLogs for user: {} with term: {}", currentUserLogin, searchTerm);
-        return activityLogRepository.findByCreatedByAndDescriptionOrEntityTypeContaining(currentUserLogin, searchTerm, pageable).map(activityLogMapper::toDto);
+        LOG.debug("Request to search ActivityLogs for user: {} with query: {}", currentUserLogin, query);
+        return activityLogSearchRepository.search(query, currentUserLogin, actionType, from, to, pageable).map(activityLogMapper::toDto);
     }
 
     @Transactional(readOnly = true)
@@ -89,30 +129,51 @@ public class ActivityLogService {
         return activityLogRepository.findByCreatedByAndTimestampBetweenOrderByTimestampDesc(currentUserLogin, startDate, endDate, pageable).map(activityLogMapper::toDto);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void logActivity(ActivityLog.ActionType actionType, String entityType, UUID entityId, String description) {
         logActivity(actionType, entityType, entityId, description, ActivityLog.ActionStatus.SUCCESS, null);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void logActivity(ActivityLog.ActionType actionType, String entityType, UUID entityId, String description, ActivityLog.ActionStatus status) {
         logActivity(actionType, entityType, entityId, description, status, null);
     }
 
+    /**
+     * Record an activity of the current user. The log is captured here, with the details of the current request,
+     * and written in the background by the {@link ActivityLogWriter}; values longer than their column are truncated.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void logActivity(ActivityLog.ActionType actionType, String entityType, UUID entityId, String description, ActivityLog.ActionStatus status, String errorMessage) {
         try {
-            ActivityLog activityLog = new ActivityLog().actionType(actionType).entityType(entityType).entityId(entityId).description(description).timestamp(Instant.now()).status(status).errorMessage(errorMessage);
+            String login = SecurityUtils.getCurrentUserLogin().orElse(Constants.SYSTEM);
+            ActivityLog activityLog = new ActivityLog()
+                .id(UuidV7Generator.next())
+                .actionType(actionType)
+                .entityType(StringUtils.truncate(entityType, 100))
+                .entityId(entityId)
+                .description(StringUtils.truncate(description, 1000))
+                .timestamp(Instant.now())
+                .status(status)
+                .errorMessage(StringUtils.truncate(errorMessage, 2000));
+            activityLog.setCreatedBy(login);
+            activityLog.setLastModifiedBy(login);
 
             try {
                 ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
                 HttpServletRequest request = requestAttributes.getRequest();
-                activityLog.setIpAddress(getClientIpAddress(request));
-                activityLog.setUserAgent(request.getHeader("User-Agent"));
-                activityLog.setSessionId(request.getSession(false) != null ? request.getSession(false).getId() : null);
+                activityLog.setIpAddress(StringUtils.truncate(getClientIpAddress(request), 45));
+                activityLog.setUserAgent(StringUtils.truncate(request.getHeader("User-Agent"), 500));
+                activityLog.setSessionId(request.getSession(false) != null ? StringUtils.truncate(request.getSession(false).getId(), 100) : null);
             } catch (Exception e) {
                 LOG.debug("Could not extract request details for activity log: {}", e.getMessage());
             }
 
-            activityLogRepository.save(activityLog);
-            LOG.debug("Activity logged: {} - {}", actionType, description);
+            if (activityLogWriter.submit(activityLog)) {
+                LOG.debug("Activity logged: {} - {}", actionType, description);
+            } else {
+                LOG.warn("Activity log queue full, dropped: {} - {}", actionType, description);
+            }
         } catch (Exception e) {
             LOG.error("Failed to log activity: {}", e.getMessage(), e);
         }
@@ -132,10 +193,18 @@ public class ActivityLogService {
         return request.getRemoteAddr();
     }
 
-    public long countActivitiesByTypeAndSince(ActivityLog.ActionType actionType, Instant since) {
+    /**
+     * Count the recent activities of the current user, from the hourly rollups and the logs not written yet.
+     * Each period starts at the beginning of the hour it would start in.
+     *
+     * @param actionTypes the action types to count.
+     * @return the counts of each of the action types.
+     */
+    @Transactional(readOnly = true)
+    public Map<ActivityLog.ActionType, ActivityCountsDTO> countRecentActivitiesOfCurrentUser(Collection<ActivityLog.ActionType> actionTypes) {
         String currentUserLogin = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new IllegalStateException("No authenticated user found"));
 
-        return activityLogRepository.countByCreatedByAndActionTypeAndTimestampAfter(currentUserLogin, actionType, since);
+        return countRecentActivities(currentUserLogin, actionTypes);
     }
 
     // Admin methods for comprehensive system-wide activity log management
@@ -154,11 +223,29 @@ public class ActivityLogService {
                 .map(activityLogMapper::toDto);
     }
 
+    /**
+     * Search activity logs in Elasticsearch, or in the database while Elasticsearch is unavailable. Logs reach
+     * the index shortly after they are written, so the latest ones may be missing from the results.
+     *
+     * @param query the search text, or {@code null} to only filter.
+     * @param username the login of the user who performed the actions, or {@code null} for all users.
+     * @param actionType the action type, or {@code null} for all types.
+     * @param from the start of the date range, inclusive, or {@code null}.
+     * @param to the end of the date range, exclusive, or {@code null}.
+     * @param pageable the pagination information.
+     * @return the page of logs, with the backend that answered.
+     */
     @Transactional(readOnly = true)
-    public Page<ActivityLogDTO> searchAll(String searchTerm, Pageable pageable) {
-        LOG.debug("Admin request to search all ActivityLogs with term: {}", searchTerm);
-        return activityLogRepository.findByDescriptionContainingIgnoreCaseOrEntityTypeContainingIgnoreCaseOrderByTimestampDesc(searchTerm, searchTerm, pageable)
-                .map(activityLogMapper::toDto);
+    public SearchPage<ActivityLogDTO> search(
+        String query,
+        String username,
+        ActivityLog.ActionType actionType,
+        Instant from,
+        Instant to,
+        Pageable pageable
+    ) {
+        LOG.debug("Admin request to search all ActivityLogs with query: {}", query);
+        return activityLogSearchRepository.search(query, username, actionType, from, to, pageable).map(activityLogMapper::toDto);
     }
 
     @Transactional(readOnly = true)
@@ -168,7 +255,30 @@ public class ActivityLogService {
                 .map(activityLogMapper::toDto);
     }
 
-    public long countByActionTypeAndSince(ActivityLog.ActionType actionType, Instant since) {
-        return activityLogRepository.countByActionTypeAndTimestampAfter(actionType, since);
+    /**
+     * Count the recent activities of all users, like {@link #countRecentActivitiesOfCurrentUser(Collection)}.
+     *
+     * @param actionTypes the action types to count.
+     * @return the counts of each of the action types.
+     */
+    @Transactional(readOnly = true)
+    public Map<ActivityLog.ActionType, ActivityCountsDTO> countRecentActivities(Collection<ActivityLog.ActionType> actionTypes) {
+        return countRecentActivities(ActivityLogRepository.ROLLUP_ALL_USERS, actionTypes);
+    }
+
+    private Map<ActivityLog.ActionType, ActivityCountsDTO> countRecentActivities(String createdBy, Collection<ActivityLog.ActionType> actionTypes) {
+        Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        List<ActivityLogRepository.RollupTotals> totals = activityLogRepository.sumRollups(
+            createdBy,
+            actionTypes.stream().map(Enum::name).toList(),
+            hour.minus(1, ChronoUnit.DAYS),
+            hour.minus(7, ChronoUnit.DAYS),
+            hour.minus(30, ChronoUnit.DAYS)
+        );
+        Map<ActivityLog.ActionType, ActivityCountsDTO> counts = new EnumMap<>(ActivityLog.ActionType.class);
+        actionTypes.forEach(actionType -> counts.put(actionType, ActivityCountsDTO.NONE));
+        totals.forEach(total -> counts.put(total.getType(), new ActivityCountsDTO(total.getDay(), total.getWeek(), total.getMonth())));
+        counts.replaceAll((actionType, count) -> count.plus(activityLogWriter.pending(createdBy, actionType)));
+        return counts;
     }
 }
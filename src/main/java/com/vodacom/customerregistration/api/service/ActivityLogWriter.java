@@ -0,0 +1,265 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.repository.ActivityLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background writer of activity logs, keeping their inserts off the request thread.
+ * <p>
+ * Request threads only append to a bounded lock-free queue; when it is full the log is dropped and counted rather
+ * than slowing the request down. A single writer thread inserts the queue in JDBC batches as soon as it holds a full
+ * batch, or after the flush interval otherwise. On shutdown the writer stops after the web server, so it also
+ * writes the logs of the last requests, and drains the queue before the connection pools close.
+ * <p>
+ * A batch that fails to insert, for instance while the database fails over, is retried with a doubling backoff up
+ * to {@code max-attempts} times; the insert is one transaction, so a failed attempt writes nothing. While the writer
+ * waits, new logs keep queuing and are dropped once the queue is full. A batch still failing after its last attempt
+ * is dropped and counted as failed.
+ * <p>
+ * The writer also counts the queued logs per user and action type, for the activity statistics to add them to the
+ * rollups updated as the logs are written.
+ * <p>
+ * Written batches are then handed to Elasticsearch, which indexes them on the task executor, so a slow or failing
+ * search cluster never holds up the database writes. Logs it fails to index, and whole batches the executor has no
+ * room for, are left to the search outbox to retry.
+ */
+@Component
+public class ActivityLogWriter implements SmartLifecycle {
+
+    static final String EVENTS_METER_NAME = "activity.log.events";
+    static final String QUEUE_METER_NAME = "activity.log.queue.size";
+    static final String FLUSH_METER_NAME = "activity.log.flush";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ActivityLogWriter.class);
+
+    private record PendingKey(String createdBy, ActivityLog.ActionType actionType) {}
+
+    private final ActivityLogRepository activityLogRepository;
+    private final SearchIndexOutboxService searchIndexOutboxService;
+    private final ApplicationProperties.ActivityLog.Writer properties;
+
+    private final Queue<ActivityLog> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<PendingKey, AtomicLong> pending = new ConcurrentHashMap<>();
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public ActivityLogWriter(
+        ActivityLogRepository activityLogRepository,
+        SearchIndexOutboxService searchIndexOutboxService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.activityLogRepository = activityLogRepository;
+        this.searchIndexOutboxService = searchIndexOutboxService;
+        this.properties = applicationProperties.getActivityLog().getWriter();
+
+        this.writtenCounter = eventsCounter("written").register(registry);
+        this.droppedCounter = eventsCounter("dropped").register(registry);
+        this.retriedCounter = eventsCounter("retried").register(registry);
+        this.failedCounter = eventsCounter("failed").register(registry);
+        this.flushTimer = Timer.builder(FLUSH_METER_NAME).description("Time spent inserting one batch of activity logs").register(registry);
+        Gauge.builder(QUEUE_METER_NAME, queued, AtomicInteger::get).description("Activity logs waiting to be written").register(registry);
+    }
+
+    private Counter.Builder eventsCounter(String outcome) {
+        return Counter.builder(EVENTS_METER_NAME).description("Activity logs handled by the background writer").tag("outcome", outcome);
+    }
+
+    /**
+     * Queue an activity log for writing. The log must have its id and audit fields set.
+     *
+     * @param activityLog the log to write.
+     * @return {@code false} if the queue was full and the log was dropped.
+     */
+    public boolean submit(ActivityLog activityLog) {
+        int size = queued.incrementAndGet();
+        if (size > properties.getQueueCapacity()) {
+            queued.decrementAndGet();
+            droppedCounter.increment();
+            return false;
+        }
+        addPending(activityLog, 1);
+        queue.offer(activityLog);
+        if (size == properties.getBatchSize()) {
+            Thread current = writer;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param createdBy the login of a user, or {@link ActivityLogRepository#ROLLUP_ALL_USERS} for all users.
+     * @param actionType the action type.
+     * @return the number of such logs queued on this node and not yet written, so not yet in the rollups.
+     */
+    public long pending(String createdBy, ActivityLog.ActionType actionType) {
+        AtomicLong count = pending.get(new PendingKey(createdBy, actionType));
+        return count != null ? count.get() : 0;
+    }
+
+    private void addPending(ActivityLog activityLog, long delta) {
+        for (String createdBy : new String[] { activityLog.getCreatedBy(), ActivityLogRepository.ROLLUP_ALL_USERS }) {
+            pending.computeIfAbsent(new PendingKey(createdBy, activityLog.getActionType()), key -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    private void run() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        while (running) {
+            if (queued.get() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flushSafely();
+        }
+        flushSafely();
+    }
+
+    /**
+     * Flush, logging rather than propagating anything thrown, so that an {@link Error} does not end the writer thread.
+     */
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Throwable e) {
+            LOG.error("Activity log writer failed to flush the queue: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flush() {
+        List<ActivityLog> batch = new ArrayList<>();
+        ActivityLog activityLog;
+        while ((activityLog = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(activityLog);
+            if (batch.size() == properties.getBatchSize()) {
+                write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<ActivityLog> batch) {
+        try {
+            if (!insert(batch)) {
+                return;
+            }
+        } finally {
+            batch.forEach(activityLog -> addPending(activityLog, -1));
+        }
+        try {
+            searchIndexOutboxService.indexActivityLogs(batch);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to queue {} activity logs for indexing, leaving them to the outbox: {}", batch.size(), e.getMessage());
+            try {
+                searchIndexOutboxService.enqueueActivityLogs(batch.stream().map(ActivityLog::getId).toList());
+            } catch (RuntimeException outboxFailure) {
+                LOG.error("Failed to enqueue {} activity logs for indexing: {}", batch.size(), outboxFailure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} once the batch is inserted, {@code false} if it failed on every attempt and was dropped.
+     */
+    private boolean insert(List<ActivityLog> batch) {
+        long backoffMs = properties.getInitialBackoffMs();
+        for (int attempt = 1;; attempt++) {
+            try {
+                flushTimer.record(() -> activityLogRepository.insertAll(batch));
+                writtenCounter.increment(batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    failedCounter.increment(batch.size());
+                    LOG.error("Failed to write {} activity logs after {} attempts: {}", batch.size(), attempt, e.getMessage(), e);
+                    return false;
+                }
+                retriedCounter.increment(batch.size());
+                LOG.warn("Failed to write {} activity logs, retrying in {}ms: {}", batch.size(), backoffMs, e.getMessage());
+            }
+            pause(backoffMs);
+            backoffMs *= 2;
+        }
+    }
+
+    /**
+     * Sleep through the backoff even when a full queue or {@link #stop} unparks the writer.
+     */
+    private void pause(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::run, "activity-log-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writer;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(properties.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive() || queued.get() > 0) {
+            LOG.warn("Activity log writer stopped with {} logs still queued", queued.get());
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before and stopped after the web server, whose graceful shutdown runs in a later phase.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+}
@@ -3,15 +3,28 @@ package com.vodacom.customerregistration.api.service;
 import com.vodacom.customerregistration.api.domain.*; // for static metamodels
 import com.vodacom.customerregistration.api.domain.Agent;
 import com.vodacom.customerregistration.api.repository.AgentRepository;
+import com.vodacom.customerregistration.api.repository.KeysetCursors;
 import com.vodacom.customerregistration.api.repository.search.AgentSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.CursorPage;
 import com.vodacom.customerregistration.api.service.criteria.AgentCriteria;
 import com.vodacom.customerregistration.api.service.dto.AgentDTO;
+import com.vodacom.customerregistration.api.service.dto.AgentDetailResponseDTO;
 import com.vodacom.customerregistration.api.service.mapper.AgentMapper;
 import jakarta.persistence.criteria.JoinType;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +42,8 @@ public class AgentQueryService extends QueryService<Agent> {
 
     private static final Logger LOG = LoggerFactory.getLogger(AgentQueryService.class);
 
+    private static final Sort KEYSET_DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "createdDate");
+
     private final AgentRepository agentRepository;
 
     private final AgentMapper agentMapper;
@@ -54,6 +69,41 @@ public class AgentQueryService extends QueryService<Agent> {
         return agentRepository.findAll(specification, page).map(agentMapper::toDto);
     }
 
+    /**
+     * Return a {@link Page} of {@link AgentDetailResponseDTO} which matches the criteria from the database.
+     * The users of the page are loaded together, see {@link #toDetails(List)}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities with their user.
+     */
+    @Transactional(readOnly = true)
+    public Page<AgentDetailResponseDTO> findDetailsByCriteria(AgentCriteria criteria, Pageable page) {
+        LOG.debug("find details by criteria : {}, page: {}", criteria, page);
+        final Specification<Agent> specification = createSpecification(criteria);
+        Page<Agent> agents = agentRepository.findAll(specification, page);
+        return new PageImpl<>(toDetails(agents.getContent()), agents.getPageable(), agents.getTotalElements());
+    }
+
+    /**
+     * Return a keyset page of {@link AgentDetailResponseDTO} which matches the criteria from the database, without
+     * counting them. Each page seeks past the sort values of the previous one, see {@link KeysetCursors}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The order of the entities, newest first when unsorted; the id is appended as tiebreaker.
+     * @param cursor The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size The page size.
+     * @return the matching entities with their user and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AgentDetailResponseDTO> findDetailsByCriteria(AgentCriteria criteria, Sort sort, String cursor, int size) {
+        LOG.debug("find details by criteria : {}, sort: {}, cursor page of {}", criteria, sort, size);
+        final Specification<Agent> specification = createSpecification(criteria);
+        final Sort order = sort.isSorted() ? sort : KEYSET_DEFAULT_SORT;
+        final String queryKey = String.valueOf(criteria);
+        final ScrollPosition position = KeysetCursors.position(Agent.class, queryKey, order, cursor);
+        Window<Agent> window = agentRepository.findBy(specification, query -> query.sortBy(order).limit(size).scroll(position));
+        return new CursorPage<>(toDetails(window.getContent()), KeysetCursors.nextCursor(window, queryKey, order));
+    }
+
     /**
      * Return the number of matching entities in the database.
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -66,6 +116,22 @@ public class AgentQueryService extends QueryService<Agent> {
         return agentRepository.count(specification);
     }
 
+    /**
+     * Load the users and authorities of a page of agents with a single query rather than one lazy load per agent,
+     * keeping the page order. The fetch is not part of the paged query because a collection fetch cannot be
+     * limited in SQL.
+     */
+    private List<AgentDetailResponseDTO> toDetails(List<Agent> agents) {
+        if (agents.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Agent> withUsers = agentRepository
+            .findAllWithUserByIdIn(agents.stream().map(Agent::getId).toList())
+            .stream()
+            .collect(Collectors.toMap(Agent::getId, Function.identity()));
+        return agents.stream().map(agent -> withUsers.get(agent.getId())).filter(Objects::nonNull).map(agentMapper::toDetailResponse).toList();
+    }
+
     /**
      * Function to convert {@link AgentCriteria} to a {@link Specification}
      * @param criteria The object which holds all the filters, which the entities should match.
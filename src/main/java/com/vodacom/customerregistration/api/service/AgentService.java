@@ -1,9 +1,11 @@
 package com.vodacom.customerregistration.api.service;
 
+import com.vodacom.customerregistration.api.repository.search.CursorPage;
 import com.vodacom.customerregistration.api.service.dto.AgentDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentDetailResponseDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentRegistrationDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentRegistrationResponseDTO;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,6 +17,11 @@ import org.springframework.data.domain.Pageable;
  * Service Interface for managing {@link com.vodacom.customerregistration.api.domain.Agent}.
  */
 public interface AgentService {
+    /**
+     * Cache of {@link #findOne(UUID)} results by agent id; agent and user writes evict it.
+     */
+    String AGENT_DETAILS_CACHE = "agent-details";
+
     /**
      * Save a agent.
      *
@@ -76,10 +83,23 @@ public interface AgentService {
      * Search for agents with detailed user information.
      *
      * @param query the query of the search.
+     * @param raw whether to parse the query as {@code query_string} syntax instead of a structured query;
+     *            callers must restrict this to administrators.
      * @param pageable the pagination information.
      * @return the list of entities with user details.
      */
-    Page<AgentDetailResponseDTO> search(String query, Pageable pageable);
+    Page<AgentDetailResponseDTO> search(String query, boolean raw, Pageable pageable);
+
+    /**
+     * Search for the agent corresponding to the query, one cursor page at a time.
+     *
+     * @param query the query of the search.
+     * @param raw whether to parse the query as {@code query_string} syntax instead of a structured query.
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the page and the cursor of the next one.
+     */
+    CursorPage<AgentDetailResponseDTO> search(String query, boolean raw, String cursor, int size);
 
     /**
      * Get autocomplete suggestions for agent search.
@@ -91,9 +111,11 @@ public interface AgentService {
     List<String> getAutocompleteSuggestions(String query, int limit);
 
     /**
-     * Reindex all agents from database to Elasticsearch.
+     * Start a background job rebuilding the agent search index from the database into a new index version
+     * and swapping it in.
      *
-     * @return the number of agents reindexed.
+     * @return the started job.
+     * @throws com.vodacom.customerregistration.api.service.ReindexJobAlreadyRunningException if an agent reindex job is already running.
      */
-    int reindexAllAgents();
+    SearchReindexJobDTO reindexAllAgents();
 }
@@ -0,0 +1,463 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.Agent;
+import com.vodacom.customerregistration.api.domain.Customer;
+import com.vodacom.customerregistration.api.domain.SearchIndexOutbox;
+import com.vodacom.customerregistration.api.repository.AgentRepository;
+import com.vodacom.customerregistration.api.repository.CustomerRepository;
+import com.vodacom.customerregistration.api.repository.SearchIndexOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory prefix index serving customer and agent autocomplete without a round trip to Elasticsearch.
+ * <p>
+ * Each {@link Dictionary} is a {@link PrefixTrie} of the values autocomplete suggests (customer names and NIDA
+ * numbers, agent phone numbers), loaded in keyset pages once the application is ready and then kept up to date
+ * by the service write paths after their transaction commits. Suggestions are only served from memory once a
+ * dictionary is fully loaded; while it is cold, or after it grew past
+ * {@code application.search.autocomplete.max-memory-bytes} and was dropped, {@link #suggest} returns empty and
+ * callers fall back to Elasticsearch.
+ * <p>
+ * The write paths only reach the node that served the write, so every {@code resync-interval-ms} each node also
+ * applies the rows modified and the deletes recorded in the search outbox since its last pass, read from the
+ * primary. A write made on another node is therefore suggested here at most {@code resync-interval-ms} plus one
+ * pass later. A dictionary that failed to load or went over budget is loaded again after {@code reload-interval-ms}.
+ */
+@Service
+public class AutocompleteIndexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AutocompleteIndexService.class);
+
+    private static final String MEMORY_METER_NAME = "search.autocomplete.memory";
+
+    /** Rough heap cost of one document entry in the reverse map, excluding its values. */
+    private static final int DOCUMENT_BYTES = 96;
+
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    /** Overlap between two resync passes, for clock differences between the nodes stamping the rows. */
+    private static final Duration RESYNC_MARGIN = Duration.ofMinutes(1);
+
+    public enum Dictionary {
+        CUSTOMER,
+        AGENT,
+    }
+
+    private enum State {
+        DISABLED,
+        COLD,
+        LOADING,
+        READY,
+        OVER_BUDGET,
+    }
+
+    /**
+     * One trie with the values each document contributed, so an update can remove the previous ones.
+     */
+    private static final class Entries {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<UUID, String[]> valuesByDocument = new HashMap<>();
+        /** Documents written or deleted while loading; the loader must not overwrite them with older rows. */
+        private final Set<UUID> touchedWhileLoading = new HashSet<>();
+        private PrefixTrie trie = new PrefixTrie();
+        private long documentBytes;
+        private volatile State state;
+        /** Rows modified and deletes recorded since this instant are not applied yet. */
+        private volatile Instant watermark;
+        private volatile Instant loadStartedAt;
+
+        Entries(State state) {
+            this.state = state;
+        }
+
+        long estimatedBytes() {
+            return trie.estimatedBytes() + documentBytes;
+        }
+    }
+
+    private final CustomerRepository customerRepository;
+    private final AgentRepository agentRepository;
+    private final SearchIndexOutboxRepository outboxRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate primaryTransaction;
+    private final Executor taskExecutor;
+    private final ApplicationProperties.Search.Autocomplete properties;
+    private final int fetchSize;
+    private final Map<Dictionary, Entries> dictionaries = new EnumMap<>(Dictionary.class);
+
+    public AutocompleteIndexService(
+        CustomerRepository customerRepository,
+        AgentRepository agentRepository,
+        SearchIndexOutboxRepository outboxRepository,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.customerRepository = customerRepository;
+        this.agentRepository = agentRepository;
+        this.outboxRepository = outboxRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.properties = applicationProperties.getSearch().getAutocomplete();
+        this.fetchSize = applicationProperties.getSearch().getReindex().getFetchSize();
+        for (Dictionary dictionary : Dictionary.values()) {
+            Entries entries = new Entries(properties.isInMemory() ? State.COLD : State.DISABLED);
+            dictionaries.put(dictionary, entries);
+            Gauge.builder(MEMORY_METER_NAME, entries, Entries::estimatedBytes)
+                .baseUnit("bytes")
+                .description("Estimated heap used by the in-memory autocomplete index")
+                .tag("dictionary", dictionary.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+        }
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!properties.isInMemory()) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            load(Dictionary.CUSTOMER);
+            load(Dictionary.AGENT);
+        });
+    }
+
+    /**
+     * Apply the writes made on other nodes since the last pass, and load again the dictionaries that failed to load
+     * or went over budget once {@code reload-interval-ms} has passed.
+     */
+    @Scheduled(fixedDelayString = "${application.search.autocomplete.resync-interval-ms:60000}")
+    public void resync() {
+        for (Dictionary dictionary : Dictionary.values()) {
+            Entries entries = dictionaries.get(dictionary);
+            try {
+                if (entries.state == State.READY) {
+                    catchUp(dictionary);
+                } else if (
+                    (entries.state == State.COLD || entries.state == State.OVER_BUDGET) &&
+                    entries.loadStartedAt != null &&
+                    entries.loadStartedAt.isBefore(Instant.now().minusMillis(properties.getReloadIntervalMs()))
+                ) {
+                    entries.state = State.LOADING;
+                    taskExecutor.execute(() -> load(dictionary));
+                }
+            } catch (RuntimeException e) {
+                LOG.error("Failed to resync the {} autocomplete dictionary: {}", dictionary, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @param dictionary the dictionary to search.
+     * @param query the text typed so far.
+     * @param limit the maximum number of suggestions.
+     * @return the suggestions, or empty if the dictionary cannot answer and Elasticsearch must be used instead.
+     */
+    public Optional<List<String>> suggest(Dictionary dictionary, String query, int limit) {
+        Entries entries = dictionaries.get(dictionary);
+        if (entries.state != State.READY) {
+            return Optional.empty();
+        }
+        if (query == null || query.trim().isEmpty()) {
+            return Optional.of(List.of());
+        }
+        entries.lock.readLock().lock();
+        try {
+            return Optional.of(entries.trie.collect(normalize(query), limit));
+        } finally {
+            entries.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the suggestions of a customer once the current transaction commits.
+     *
+     * @param customer the saved customer.
+     */
+    public void index(Customer customer) {
+        UUID id = customer.getId();
+        String[] values = values(customer);
+        afterCommit(() -> put(dictionaries.get(Dictionary.CUSTOMER), id, values, true));
+    }
+
+    /**
+     * Replace the suggestions of an agent once the current transaction commits.
+     *
+     * @param agent the saved agent.
+     */
+    public void index(Agent agent) {
+        UUID id = agent.getId();
+        String[] values = values(agent);
+        afterCommit(() -> put(dictionaries.get(Dictionary.AGENT), id, values, true));
+    }
+
+    /**
+     * Remove the suggestions of a document once the current transaction commits.
+     *
+     * @param dictionary the dictionary of the document.
+     * @param id the document id.
+     */
+    public void remove(Dictionary dictionary, UUID id) {
+        afterCommit(() -> put(dictionaries.get(dictionary), id, null, true));
+    }
+
+    private void load(Dictionary dictionary) {
+        switch (dictionary) {
+            case CUSTOMER -> load(dictionary, customerRepository::findByIdGreaterThanOrderByIdAsc, Customer::getId, AutocompleteIndexService::values);
+            case AGENT -> load(dictionary, agentRepository::findByIdGreaterThanOrderByIdAsc, Agent::getId, AutocompleteIndexService::values);
+        }
+    }
+
+    private <E> void load(Dictionary dictionary, BiFunction<UUID, Pageable, List<E>> reader, Function<E, UUID> idOf, Function<E, String[]> valuesOf) {
+        Entries entries = dictionaries.get(dictionary);
+        entries.lock.writeLock().lock();
+        try {
+            clear(entries);
+            entries.state = State.LOADING;
+        } finally {
+            entries.lock.writeLock().unlock();
+        }
+        entries.loadStartedAt = Instant.now();
+        Instant watermark = entries.loadStartedAt.minus(RESYNC_MARGIN);
+        long start = System.nanoTime();
+        try {
+            UUID after = FIRST_ID;
+            while (after != null) {
+                UUID cursor = after;
+                List<E> rows = readOnlyTransaction.execute(status -> reader.apply(cursor, PageRequest.of(0, fetchSize)));
+                entries.lock.writeLock().lock();
+                try {
+                    for (E row : rows) {
+                        if (!entries.touchedWhileLoading.contains(idOf.apply(row))) {
+                            put(entries, idOf.apply(row), valuesOf.apply(row), false);
+                        }
+                    }
+                } finally {
+                    entries.lock.writeLock().unlock();
+                }
+                if (entries.state == State.OVER_BUDGET) {
+                    return;
+                }
+                after = rows.isEmpty() ? null : idOf.apply(rows.get(rows.size() - 1));
+            }
+            entries.lock.writeLock().lock();
+            try {
+                entries.touchedWhileLoading.clear();
+                entries.watermark = watermark;
+                entries.state = State.READY;
+            } finally {
+                entries.lock.writeLock().unlock();
+            }
+            LOG.info(
+                "Loaded {} autocomplete values for {} documents into the {} dictionary in {} ms, ~{} KB",
+                entries.trie.size(),
+                entries.valuesByDocument.size(),
+                dictionary,
+                (System.nanoTime() - start) / 1_000_000,
+                entries.estimatedBytes() / 1024
+            );
+        } catch (RuntimeException e) {
+            LOG.error("Failed to load the {} autocomplete dictionary, falling back to Elasticsearch: {}", dictionary, e.getMessage(), e);
+            entries.state = State.COLD;
+        }
+    }
+
+    private void catchUp(Dictionary dictionary) {
+        Instant next = Instant.now().minus(RESYNC_MARGIN);
+        Instant since = dictionaries.get(dictionary).watermark;
+        switch (dictionary) {
+            case CUSTOMER -> catchUp(
+                dictionary,
+                SearchIndexOutboxService.ENTITY_CUSTOMER,
+                since,
+                after -> customerRepository.findByLastModifiedDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(since, after, firstPage()),
+                Customer::getId,
+                AutocompleteIndexService::values
+            );
+            case AGENT -> catchUp(
+                dictionary,
+                SearchIndexOutboxService.ENTITY_AGENT,
+                since,
+                after -> {
+                    List<UUID> ids = agentRepository.findIdsModifiedSinceByIdGreaterThan(since, after, firstPage());
+                    return ids.isEmpty() ? List.of() : agentRepository.findAllById(ids);
+                },
+                Agent::getId,
+                AutocompleteIndexService::values
+            );
+        }
+        dictionaries.get(dictionary).watermark = next;
+    }
+
+    /**
+     * Apply the rows modified and the deletes recorded since {@code since}. Keyset pages are read by id, so the
+     * cursor is the largest id of a page in database order, tracked from the ids the page was read with.
+     */
+    private <E> void catchUp(
+        Dictionary dictionary,
+        String entityType,
+        Instant since,
+        Function<UUID, List<E>> reader,
+        Function<E, UUID> idOf,
+        Function<E, String[]> valuesOf
+    ) {
+        Entries entries = dictionaries.get(dictionary);
+        long modified = 0;
+        UUID after = FIRST_ID;
+        while (after != null) {
+            UUID cursor = after;
+            List<E> rows = primaryTransaction.execute(status -> reader.apply(cursor));
+            rows.forEach(row -> put(entries, idOf.apply(row), valuesOf.apply(row), false));
+            modified += rows.size();
+            after = rows.stream().map(idOf).max(AutocompleteIndexService::compareAsDatabase).orElse(null);
+        }
+        long deleted = 0;
+        after = FIRST_ID;
+        while (after != null) {
+            UUID cursor = after;
+            List<UUID> ids = primaryTransaction.execute(status ->
+                outboxRepository.findEntityIdsSince(entityType, SearchIndexOutbox.Operation.DELETE, since, cursor, firstPage())
+            );
+            ids.forEach(id -> put(entries, id, null, false));
+            deleted += ids.size();
+            after = ids.isEmpty() ? null : ids.get(ids.size() - 1);
+        }
+        if (modified > 0 || deleted > 0) {
+            LOG.debug("Resynced the {} autocomplete dictionary: {} modified, {} deleted since {}", dictionary, modified, deleted, since);
+        }
+    }
+
+    private PageRequest firstPage() {
+        return PageRequest.of(0, fetchSize);
+    }
+
+    /** PostgreSQL orders UUIDs as unsigned bytes, unlike {@link UUID#compareTo}. */
+    private static int compareAsDatabase(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    /**
+     * Replace the values of a document, or remove them when {@code values} is {@code null}.
+     */
+    private void put(Entries entries, UUID id, String[] values, boolean fromWritePath) {
+        if (entries.state == State.DISABLED || entries.state == State.OVER_BUDGET || id == null) {
+            return;
+        }
+        entries.lock.writeLock().lock();
+        try {
+            if (fromWritePath && entries.state == State.LOADING) {
+                entries.touchedWhileLoading.add(id);
+            }
+            String[] previous = values == null ? entries.valuesByDocument.remove(id) : entries.valuesByDocument.put(id, values);
+            if (previous != null) {
+                for (String value : previous) {
+                    entries.trie.remove(normalize(value));
+                }
+                entries.documentBytes -= documentBytes(previous);
+            }
+            if (values != null) {
+                for (String value : values) {
+                    entries.trie.add(normalize(value), value);
+                }
+                entries.documentBytes += documentBytes(values);
+            }
+            if (entries.estimatedBytes() > properties.getMaxMemoryBytes()) {
+                LOG.warn(
+                    "Autocomplete dictionary outgrew its {} byte budget, serving it from Elasticsearch for {} ms",
+                    properties.getMaxMemoryBytes(),
+                    properties.getReloadIntervalMs()
+                );
+                entries.state = State.OVER_BUDGET;
+                clear(entries);
+            }
+        } finally {
+            entries.lock.writeLock().unlock();
+        }
+    }
+
+    private static void clear(Entries entries) {
+        entries.trie = new PrefixTrie();
+        entries.valuesByDocument.clear();
+        entries.touchedWhileLoading.clear();
+        entries.documentBytes = 0;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                }
+            );
+        } else {
+            action.run();
+        }
+    }
+
+    private static String[] values(Customer customer) {
+        String fullName = customer.getFirstName() != null && customer.getLastName() != null
+            ? customer.getFirstName() + " " + customer.getLastName()
+            : null;
+        return distinctValues(customer.getFirstName(), customer.getLastName(), fullName, customer.getNidaNumber());
+    }
+
+    private static String[] values(Agent agent) {
+        return distinctValues(agent.getPhoneNumber());
+    }
+
+    private static String[] distinctValues(String... values) {
+        return Stream.of(values).filter(value -> value != null && !value.isBlank()).distinct().toArray(String[]::new);
+    }
+
+    private static long documentBytes(String[] values) {
+        long bytes = DOCUMENT_BYTES;
+        for (String value : values) {
+            bytes += 40 + value.length() * 2L;
+        }
+        return bytes;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
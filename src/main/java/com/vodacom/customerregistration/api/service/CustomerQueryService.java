@@ -3,6 +3,8 @@ package com.vodacom.customerregistration.api.service;
 import com.vodacom.customerregistration.api.domain.*; // for static metamodels
 import com.vodacom.customerregistration.api.domain.Customer;
 import com.vodacom.customerregistration.api.repository.CustomerRepository;
+import com.vodacom.customerregistration.api.repository.KeysetCursors;
+import com.vodacom.customerregistration.api.repository.search.CursorPage;
 import com.vodacom.customerregistration.api.repository.search.CustomerSearchRepository;
 import com.vodacom.customerregistration.api.service.criteria.CustomerCriteria;
 import com.vodacom.customerregistration.api.service.dto.CustomerDTO;
@@ -13,6 +15,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,6 +35,8 @@ public class CustomerQueryService extends QueryService<Customer> {
 
     private static final Logger LOG = LoggerFactory.getLogger(CustomerQueryService.class);
 
+    private static final Sort KEYSET_DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "createdDate");
+
     private final CustomerRepository customerRepository;
 
     private final CustomerMapper customerMapper;
@@ -72,6 +79,26 @@ public class CustomerQueryService extends QueryService<Customer> {
         return customerRepository.findAll(specification, page).map(customerMapper::toResponseDto);
     }
 
+    /**
+     * Return a keyset page of {@link CustomerResponseDTO} which matches the criteria from the database, without counting them.
+     * Each page seeks past the sort values of the previous one, see {@link KeysetCursors}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The order of the entities, newest first when unsorted; the id is appended as tiebreaker.
+     * @param cursor The cursor returned with the previous page, or {@code null} for the first page.
+     * @param size The page size.
+     * @return the matching entities and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CustomerResponseDTO> findByCriteriaWithAuditFields(CustomerCriteria criteria, Sort sort, String cursor, int size) {
+        LOG.debug("find by criteria : {}, sort: {}, cursor page of {}", criteria, sort, size);
+        final Specification<Customer> specification = createSpecification(criteria);
+        final Sort order = sort.isSorted() ? sort : KEYSET_DEFAULT_SORT;
+        final String queryKey = String.valueOf(criteria);
+        final ScrollPosition position = KeysetCursors.position(Customer.class, queryKey, order, cursor);
+        Window<Customer> window = customerRepository.findBy(specification, query -> query.sortBy(order).limit(size).scroll(position));
+        return new CursorPage<>(window.map(customerMapper::toResponseDto).getContent(), KeysetCursors.nextCursor(window, queryKey, order));
+    }
+
     /**
      * Return the number of matching entities in the database.
      * @param criteria The object which holds all the filters, which the entities should match.
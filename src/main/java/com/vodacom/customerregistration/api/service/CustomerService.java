@@ -1,7 +1,10 @@
 package com.vodacom.customerregistration.api.service;
 
+import com.vodacom.customerregistration.api.repository.search.CursorPage;
+import com.vodacom.customerregistration.api.repository.search.SearchPage;
 import com.vodacom.customerregistration.api.service.dto.CustomerDTO;
 import com.vodacom.customerregistration.api.service.dto.CustomerResponseDTO;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -77,6 +80,26 @@ public interface CustomerService {
      */
     Optional<CustomerResponseDTO> findOneWithAuditFields(UUID id);
 
+    /**
+     * Get the customers registered by an agent with audit fields, newest first.
+     *
+     * @param createdBy the agent login.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<CustomerResponseDTO> findRegisteredBy(String createdBy, Pageable pageable);
+
+    /**
+     * Get the customers registered by an agent with audit fields, newest first, one keyset page at a time and
+     * without counting them.
+     *
+     * @param createdBy the agent login.
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the page and the cursor of the next one.
+     */
+    CursorPage<CustomerResponseDTO> findRegisteredBy(String createdBy, String cursor, int size);
+
     /**
      * Delete the "id" customer.
      *
@@ -88,10 +111,23 @@ public interface CustomerService {
      * Search for the customer corresponding to the query.
      *
      * @param query the query of the search.
+     * @param raw whether to parse the query as {@code query_string} syntax instead of a structured query;
+     *            callers must restrict this to administrators.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the list of entities, with the backend that answered.
+     */
+    SearchPage<CustomerDTO> search(String query, boolean raw, Pageable pageable);
+
+    /**
+     * Search for the customer corresponding to the query, one cursor page at a time.
+     *
+     * @param query the query of the search.
+     * @param raw whether to parse the query as {@code query_string} syntax instead of a structured query.
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page.
+     * @param size the page size.
+     * @return the page and the cursor of the next one.
      */
-    Page<CustomerDTO> search(String query, Pageable pageable);
+    CursorPage<CustomerDTO> search(String query, boolean raw, String cursor, int size);
 
     /**
      * Get autocomplete suggestions for customer search.
@@ -103,9 +139,11 @@ public interface CustomerService {
     List<String> getAutocompleteSuggestions(String query, int limit);
 
     /**
-     * Reindex all customers from database to Elasticsearch.
+     * Start a background job rebuilding the customer search index from the database into a new index version
+     * and swapping it in.
      *
-     * @return the number of customers reindexed.
+     * @return the started job.
+     * @throws com.vodacom.customerregistration.api.service.ReindexJobAlreadyRunningException if a customer reindex job is already running.
      */
-    int reindexAllCustomers();
+    SearchReindexJobDTO reindexAllCustomers();
 }
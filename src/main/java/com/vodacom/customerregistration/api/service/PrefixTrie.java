@@ -0,0 +1,222 @@
+package com.vodacom.customerregistration.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compressed (radix) trie from lower-cased keys to the display values they were added with.
+ * <p>
+ * Chains of single-child nodes are collapsed into one edge label, so memory grows with the number of distinct
+ * keys rather than their total length. Keys are reference counted: the same key added for several documents
+ * stays until it has been removed as many times. Not thread-safe; callers guard it with a lock.
+ */
+final class PrefixTrie {
+
+    /** Rough heap cost of a node: object header, fields and its share of a children array. */
+    private static final int NODE_BYTES = 64;
+
+    /** Rough heap cost of a {@code String} and its backing array, excluding the characters. */
+    private static final int STRING_BYTES = 40;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private String value;
+        private int count;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int insertionPoint, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertionPoint);
+            grown[insertionPoint] = child;
+            System.arraycopy(children, insertionPoint, grown, insertionPoint + 1, children.length - insertionPoint);
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+    }
+
+    private final Node root = new Node("");
+    private long nodes;
+    private long labelChars;
+    private long valueChars;
+    private long size;
+
+    /**
+     * Add a key, or one more reference to it.
+     *
+     * @param key the lower-cased key.
+     * @param value the value suggested for the key; the first value added for a key is kept.
+     */
+    void add(String key, String value) {
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            int index = node.indexOf(key.charAt(offset));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(offset));
+                node.insertChild(-index - 1, leaf);
+                nodes++;
+                labelChars += leaf.label.length();
+                node = leaf;
+                offset = key.length();
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, key, offset);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children = new Node[] { child };
+                node.children[index] = split;
+                nodes++;
+            }
+            node = node.children[index];
+            offset += common;
+        }
+        if (node.count++ == 0) {
+            node.value = value;
+            valueChars += value.length();
+            size++;
+        }
+    }
+
+    /**
+     * Drop one reference to a key, removing it once no reference is left.
+     *
+     * @param key the lower-cased key.
+     */
+    void remove(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int offset = 0;
+        path.add(node);
+        while (offset < key.length()) {
+            int index = node.indexOf(key.charAt(offset));
+            if (index < 0 || !key.startsWith(node.children[index].label, offset)) {
+                return;
+            }
+            node = node.children[index];
+            offset += node.label.length();
+            path.add(node);
+        }
+        if (node.count == 0 || --node.count > 0) {
+            return;
+        }
+        valueChars -= node.value.length();
+        node.value = null;
+        size--;
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            Node parent = path.get(i - 1);
+            if (current.count > 0) {
+                break;
+            }
+            if (current.children.length == 0) {
+                parent.removeChild(parent.indexOf(current.label.charAt(0)));
+                nodes--;
+                labelChars -= current.label.length();
+                continue;
+            }
+            if (current.children.length == 1) {
+                mergeWithChild(current);
+            }
+            break;
+        }
+    }
+
+    /**
+     * @param prefix the lower-cased prefix.
+     * @param limit the maximum number of values.
+     * @return the values of the keys starting with the prefix, in key order.
+     */
+    List<String> collect(String prefix, int limit) {
+        List<String> values = new ArrayList<>(Math.min(limit, 16));
+        Node node = root;
+        int offset = 0;
+        while (offset < prefix.length()) {
+            int index = node.indexOf(prefix.charAt(offset));
+            if (index < 0) {
+                return values;
+            }
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, prefix, offset);
+            if (common < child.label.length() && offset + common < prefix.length()) {
+                return values;
+            }
+            node = child;
+            offset += common;
+        }
+        collect(node, limit, values);
+        return values;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long estimatedBytes() {
+        return nodes * NODE_BYTES + labelChars * 2 + size * STRING_BYTES + valueChars * 2;
+    }
+
+    private void collect(Node node, int limit, List<String> values) {
+        if (values.size() >= limit) {
+            return;
+        }
+        if (node.count > 0) {
+            values.add(node.value);
+        }
+        for (Node child : node.children) {
+            collect(child, limit, values);
+            if (values.size() >= limit) {
+                return;
+            }
+        }
+    }
+
+    private void mergeWithChild(Node node) {
+        Node child = node.children[0];
+        node.label = node.label + child.label;
+        node.children = child.children;
+        node.value = child.value;
+        node.count = child.count;
+        nodes--;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
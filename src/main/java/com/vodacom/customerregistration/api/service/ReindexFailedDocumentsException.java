@@ -0,0 +1,13 @@
+package com.vodacom.customerregistration.api.service;
+
+public class ReindexFailedDocumentsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReindexFailedDocumentsException(String indexName, long failed, long maxFailed) {
+        super(
+            "Rebuild of index " + indexName + " left " + failed + " documents unindexed, more than the " + maxFailed + " allowed; " +
+            "the index was not swapped in"
+        );
+    }
+}
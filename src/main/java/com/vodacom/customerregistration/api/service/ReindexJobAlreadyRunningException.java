@@ -0,0 +1,10 @@
+package com.vodacom.customerregistration.api.service;
+
+public class ReindexJobAlreadyRunningException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReindexJobAlreadyRunningException(String indexName) {
+        super("A reindex job is already running for index " + indexName + "!");
+    }
+}
@@ -0,0 +1,44 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background worker draining the Elasticsearch outbox.
+ * <p>
+ * Each tick keeps claiming full batches until the outbox is empty (or only holds events that are
+ * backing off), then purges the dispatched deletes no rebuild needs any more and refreshes the outbox lag metrics.
+ */
+@Component
+public class SearchIndexOutboxDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchIndexOutboxDispatcher.class);
+
+    private final SearchIndexOutboxService outboxService;
+    private final ApplicationProperties.Search.Outbox properties;
+
+    public SearchIndexOutboxDispatcher(SearchIndexOutboxService outboxService, ApplicationProperties applicationProperties) {
+        this.outboxService = outboxService;
+        this.properties = applicationProperties.getSearch().getOutbox();
+    }
+
+    @Scheduled(fixedDelayString = "${application.search.outbox.poll-interval-ms:1000}")
+    public void drain() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            int claimed;
+            do {
+                claimed = outboxService.dispatchBatch();
+            } while (claimed >= properties.getBatchSize());
+            outboxService.purgeDispatched();
+            outboxService.refreshMetrics();
+        } catch (Exception e) {
+            LOG.error("Search index outbox dispatch failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.domain.Agent;
+import com.vodacom.customerregistration.api.domain.Customer;
+import com.vodacom.customerregistration.api.domain.SearchIndexOutbox;
+import com.vodacom.customerregistration.api.domain.SearchReindexJob;
+import com.vodacom.customerregistration.api.repository.ActivityLogRepository;
+import com.vodacom.customerregistration.api.repository.AgentRepository;
+import com.vodacom.customerregistration.api.repository.CustomerRepository;
+import com.vodacom.customerregistration.api.repository.SearchIndexOutboxRepository;
+import com.vodacom.customerregistration.api.repository.SearchReindexJobRepository;
+import com.vodacom.customerregistration.api.repository.search.ActivityLogSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.AgentSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.CustomerSearchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for the Elasticsearch transactional outbox.
+ * <p>
+ * Write paths record an {@link SearchIndexOutbox} row in their own transaction instead of calling
+ * Elasticsearch inline; {@link SearchIndexOutboxDispatcher} later drains the rows in batches, applying the
+ * index and delete operations of a batch with one bulk request per index, retrying with exponential backoff and
+ * parking events that keep failing as dead letters.
+ * Activity logs, written in bulk outside any entity transaction, are indexed directly and only the ones that failed
+ * become outbox events.
+ * <p>
+ * Dispatched deletes are kept as {@link SearchIndexOutbox.Status#DISPATCHED} rather than removed: until a rebuild
+ * swaps its index in, they only reach the previous version, so {@link SearchReindexService} replays them into the
+ * rebuilt one. They are purged after {@code delete-retention-ms}, but never while a rebuild that may need them runs.
+ */
+@Service
+@Transactional
+public class SearchIndexOutboxService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchIndexOutboxService.class);
+
+    public static final String ENTITY_CUSTOMER = "Customer";
+    public static final String ENTITY_AGENT = "Agent";
+    public static final String ENTITY_ACTIVITY_LOG = "ActivityLog";
+
+    public static final String EVENTS_METER_NAME = "search.outbox.events";
+    public static final String PENDING_METER_NAME = "search.outbox.pending";
+    public static final String DEAD_LETTER_METER_NAME = "search.outbox.dead-letter";
+    public static final String LAG_METER_NAME = "search.outbox.lag";
+    public static final String DISPATCH_METER_NAME = "search.outbox.dispatch";
+
+    private final SearchIndexOutboxRepository outboxRepository;
+    private final SearchReindexJobRepository jobRepository;
+    private final CustomerRepository customerRepository;
+    private final AgentRepository agentRepository;
+    private final ActivityLogRepository activityLogRepository;
+    private final CustomerSearchRepository customerSearchRepository;
+    private final AgentSearchRepository agentSearchRepository;
+    private final ActivityLogSearchRepository activityLogSearchRepository;
+    private final SearchResultCache searchResultCache;
+    private final TransactionTemplate transaction;
+    private final ApplicationProperties.Search.Outbox properties;
+
+    private final Counter dispatchedCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+    private final Timer dispatchTimer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public SearchIndexOutboxService(
+        SearchIndexOutboxRepository outboxRepository,
+        SearchReindexJobRepository jobRepository,
+        CustomerRepository customerRepository,
+        AgentRepository agentRepository,
+        ActivityLogRepository activityLogRepository,
+        CustomerSearchRepository customerSearchRepository,
+        AgentSearchRepository agentSearchRepository,
+        ActivityLogSearchRepository activityLogSearchRepository,
+        SearchResultCache searchResultCache,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry registry
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.jobRepository = jobRepository;
+        this.customerRepository = customerRepository;
+        this.agentRepository = agentRepository;
+        this.activityLogRepository = activityLogRepository;
+        this.customerSearchRepository = customerSearchRepository;
+        this.agentSearchRepository = agentSearchRepository;
+        this.activityLogSearchRepository = activityLogSearchRepository;
+        this.searchResultCache = searchResultCache;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getSearch().getOutbox();
+
+        this.dispatchedCounter = eventsCounter("dispatched").register(registry);
+        this.retriedCounter = eventsCounter("retried").register(registry);
+        this.deadLetteredCounter = eventsCounter("dead-lettered").register(registry);
+        this.dispatchTimer = Timer.builder(DISPATCH_METER_NAME).description("Time spent dispatching one outbox batch").register(registry);
+        Gauge.builder(PENDING_METER_NAME, pending, AtomicLong::get).description("Outbox events waiting to be indexed").register(registry);
+        Gauge.builder(DEAD_LETTER_METER_NAME, deadLetters, AtomicLong::get).description("Outbox events parked after exhausting retries").register(registry);
+        Gauge.builder(LAG_METER_NAME, lagSeconds, AtomicLong::get)
+            .baseUnit("seconds")
+            .description("Age of the oldest pending outbox event")
+            .register(registry);
+    }
+
+    private Counter.Builder eventsCounter(String outcome) {
+        return Counter.builder(EVENTS_METER_NAME).description("Outbox events processed by the dispatcher").tag("outcome", outcome);
+    }
+
+    /**
+     * Record that a customer must be (re)indexed once the current transaction commits.
+     *
+     * @param customer the saved customer.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueIndex(Customer customer) {
+        enqueue(ENTITY_CUSTOMER, customer.getId(), SearchIndexOutbox.Operation.INDEX);
+    }
+
+    /**
+     * Record that an agent must be (re)indexed once the current transaction commits.
+     *
+     * @param agent the saved agent.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueIndex(Agent agent) {
+        enqueue(ENTITY_AGENT, agent.getId(), SearchIndexOutbox.Operation.INDEX);
+    }
+
+    /**
+     * Record that a document must be removed from the index once the current transaction commits.
+     *
+     * @param entityType the entity type, {@link #ENTITY_CUSTOMER} or {@link #ENTITY_AGENT}.
+     * @param entityId the id of the deleted entity.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueDelete(String entityType, UUID entityId) {
+        enqueue(entityType, entityId, SearchIndexOutbox.Operation.DELETE);
+    }
+
+    /**
+     * Index written activity logs on the task executor, recording the ones that failed so the dispatcher retries them.
+     *
+     * @param activityLogs the logs written to the database.
+     */
+    @Async
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void indexActivityLogs(List<ActivityLog> activityLogs) {
+        Map<UUID, String> failures = activityLogSearchRepository.bulkIndex(activityLogs);
+        if (!failures.isEmpty()) {
+            enqueueActivityLogs(failures.keySet());
+        }
+    }
+
+    /**
+     * Record that activity logs must be indexed by the dispatcher.
+     *
+     * @param activityLogIds the ids of logs written to the database.
+     */
+    public void enqueueActivityLogs(Collection<UUID> activityLogIds) {
+        LOG.debug("Enqueue search index of {} activity logs", activityLogIds.size());
+        outboxRepository.saveAll(
+            activityLogIds
+                .stream()
+                .map(id -> new SearchIndexOutbox().entityType(ENTITY_ACTIVITY_LOG).entityId(id).operation(SearchIndexOutbox.Operation.INDEX))
+                .toList()
+        );
+    }
+
+    private void enqueue(String entityType, UUID entityId, SearchIndexOutbox.Operation operation) {
+        LOG.debug("Enqueue search index {} for {} {}", operation, entityType, entityId);
+        outboxRepository.save(new SearchIndexOutbox().entityType(entityType).entityId(entityId).operation(operation));
+    }
+
+    /**
+     * Claim and dispatch one batch of due outbox events.
+     * <p>
+     * The events are claimed in a short transaction that leases them for {@code claim-timeout-ms}, and their outcome
+     * is recorded in another one, so no row lock is held while Elasticsearch is called. An event whose dispatch never
+     * finished, e.g. because its node died, is claimed again once its lease runs out.
+     *
+     * @return the number of events claimed.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int dispatchBatch() {
+        List<SearchIndexOutbox> events = transaction.execute(status -> claim());
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            return dispatch(events);
+        } finally {
+            sample.stop(dispatchTimer);
+        }
+    }
+
+    private List<SearchIndexOutbox> claim() {
+        Instant now = Instant.now();
+        List<SearchIndexOutbox> events = outboxRepository.findDueForUpdateSkipLocked(
+            SearchIndexOutbox.Status.PENDING,
+            now,
+            PageRequest.of(0, properties.getBatchSize())
+        );
+        Instant leaseEnd = now.plus(Duration.ofMillis(properties.getClaimTimeoutMs()));
+        events.forEach(event -> event.setNextAttemptAt(leaseEnd));
+        return events;
+    }
+
+    private int dispatch(List<SearchIndexOutbox> events) {
+        // Events arrive oldest first, so the last event seen for an entity decides the operation to apply.
+        Map<String, Map<UUID, SearchIndexOutbox.Operation>> latestByType = new LinkedHashMap<>();
+        for (SearchIndexOutbox event : events) {
+            latestByType.computeIfAbsent(event.getEntityType(), type -> new LinkedHashMap<>()).put(event.getEntityId(), event.getOperation());
+        }
+
+        Map<String, Map<UUID, String>> failuresByType = new HashMap<>();
+        latestByType.forEach((entityType, operations) -> failuresByType.put(entityType, dispatchType(entityType, operations)));
+
+        Instant now = Instant.now();
+        List<SearchIndexOutbox> completed = new ArrayList<>();
+        List<UUID> dispatchedDeletes = new ArrayList<>();
+        Map<SearchIndexOutbox, String> failed = new LinkedHashMap<>();
+        for (SearchIndexOutbox event : events) {
+            String error = failuresByType.get(event.getEntityType()).get(event.getEntityId());
+            if (error != null) {
+                failed.put(event, error);
+            } else if (event.getOperation() == SearchIndexOutbox.Operation.DELETE) {
+                dispatchedDeletes.add(event.getId());
+            } else {
+                completed.add(event);
+            }
+        }
+        transaction.executeWithoutResult(status -> {
+            outboxRepository.deleteAllInBatch(completed);
+            if (!dispatchedDeletes.isEmpty()) {
+                outboxRepository.updateStatus(dispatchedDeletes, SearchIndexOutbox.Status.DISPATCHED);
+            }
+            failed.forEach((event, error) -> markFailed(event, error, now));
+        });
+        int dispatched = completed.size() + dispatchedDeletes.size();
+        dispatchedCounter.increment(dispatched);
+        LOG.debug("Dispatched {} of {} outbox events", dispatched, events.size());
+        return events.size();
+    }
+
+    private Map<UUID, String> dispatchType(String entityType, Map<UUID, SearchIndexOutbox.Operation> operations) {
+        Set<UUID> indexIds = new HashSet<>();
+        Set<UUID> deleteIds = new HashSet<>();
+        operations.forEach((id, operation) -> (operation == SearchIndexOutbox.Operation.INDEX ? indexIds : deleteIds).add(id));
+        try {
+            return switch (entityType) {
+                case ENTITY_CUSTOMER -> dispatchCustomers(indexIds, deleteIds);
+                case ENTITY_AGENT -> dispatchAgents(indexIds, deleteIds);
+                case ENTITY_ACTIVITY_LOG -> dispatchActivityLogs(indexIds);
+                default -> failAll(operations.keySet(), "Unsupported entity type: " + entityType);
+            };
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to dispatch {} {} outbox events: {}", operations.size(), entityType, e.getMessage());
+            return failAll(operations.keySet(), e.getMessage());
+        }
+    }
+
+    private Map<UUID, String> dispatchCustomers(Set<UUID> indexIds, Set<UUID> deleteIds) {
+        // Read in a read-write transaction so that the rows come from the primary, never a lagging replica.
+        List<Customer> customers = transaction.execute(status -> customerRepository.findAllById(indexIds));
+        Map<UUID, String> failures = customerSearchRepository.bulkWrite(customers, toDelete(indexIds, deleteIds, customers, Customer::getId));
+        searchResultCache.invalidate(SearchResultCache.Index.CUSTOMER);
+        return failures;
+    }
+
+    private Map<UUID, String> dispatchAgents(Set<UUID> indexIds, Set<UUID> deleteIds) {
+        List<Agent> agents = transaction.execute(status -> agentRepository.findAllWithUserByIdIn(indexIds));
+        Map<UUID, String> failures = agentSearchRepository.bulkWrite(agents, toDelete(indexIds, deleteIds, agents, Agent::getId));
+        searchResultCache.invalidate(SearchResultCache.Index.AGENT);
+        return failures;
+    }
+
+    /**
+     * Logs that no longer exist were dropped with their partition past retention, along with their index.
+     */
+    private Map<UUID, String> dispatchActivityLogs(Set<UUID> indexIds) {
+        return activityLogSearchRepository.bulkIndex(transaction.execute(status -> activityLogRepository.findAllById(indexIds)));
+    }
+
+    /**
+     * Entities that vanished since their index event was written are removed from the index instead.
+     */
+    private static <E> Set<UUID> toDelete(Set<UUID> indexIds, Set<UUID> deleteIds, List<E> found, Function<E, UUID> id) {
+        Set<UUID> toDelete = new HashSet<>(indexIds);
+        found.forEach(entity -> toDelete.remove(id.apply(entity)));
+        toDelete.addAll(deleteIds);
+        return toDelete;
+    }
+
+    private Map<UUID, String> failAll(Set<UUID> ids, String error) {
+        Map<UUID, String> failures = new HashMap<>();
+        ids.forEach(id -> failures.put(id, String.valueOf(error)));
+        return failures;
+    }
+
+    private void markFailed(SearchIndexOutbox event, String error, Instant now) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(StringUtils.abbreviate(error, 2000));
+        if (event.getAttempts() >= properties.getMaxAttempts()) {
+            LOG.error("Outbox event {} moved to dead letter after {} attempts: {}", event.getId(), event.getAttempts(), error);
+            event.setStatus(SearchIndexOutbox.Status.DEAD_LETTER);
+            deadLetteredCounter.increment();
+        } else {
+            event.setNextAttemptAt(now.plus(backoff(event.getAttempts())));
+            retriedCounter.increment();
+        }
+        outboxRepository.recordFailure(event.getId(), event.getStatus(), event.getAttempts(), event.getLastError(), event.getNextAttemptAt());
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = properties.getInitialBackoffMs() << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, properties.getMaxBackoffMs()));
+    }
+
+    /**
+     * Remove dispatched deletes older than the retention, keeping those recorded since the oldest running rebuild began.
+     *
+     * @return the number of events removed.
+     */
+    public int purgeDispatched() {
+        Instant before = Instant.now().minus(Duration.ofMillis(properties.getDeleteRetentionMs()));
+        Instant oldestRebuild = jobRepository
+            .findFirstByStatusAndBuildStartedAtNotNullOrderByBuildStartedAtAsc(SearchReindexJob.Status.RUNNING)
+            .map(job -> job.getBuildStartedAt().minus(SearchReindexService.CATCH_UP_MARGIN))
+            .orElse(before);
+        if (oldestRebuild.isBefore(before)) {
+            before = oldestRebuild;
+        }
+        int purged = outboxRepository.deleteByStatusAndCreatedDateBefore(SearchIndexOutbox.Status.DISPATCHED, before);
+        LOG.debug("Purged {} dispatched deletes recorded before {}", purged, before);
+        return purged;
+    }
+
+    /**
+     * Refresh the pending, dead letter and lag gauges from the outbox table.
+     */
+    @Transactional(readOnly = true)
+    public void refreshMetrics() {
+        pending.set(outboxRepository.countByStatus(SearchIndexOutbox.Status.PENDING));
+        deadLetters.set(outboxRepository.countByStatus(SearchIndexOutbox.Status.DEAD_LETTER));
+        lagSeconds.set(
+            outboxRepository
+                .findFirstByStatusOrderByCreatedDateAsc(SearchIndexOutbox.Status.PENDING)
+                .map(oldest -> Math.max(0, Duration.between(oldest.getCreatedDate(), Instant.now()).toSeconds()))
+                .orElse(0L)
+        );
+    }
+}
@@ -0,0 +1,293 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.SearchReindexJob;
+import com.vodacom.customerregistration.api.repository.SearchReindexJobRepository;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs search index rebuilds as background jobs.
+ * <p>
+ * A job is a {@link SearchReindexJob} row: starting one takes the per-index running slot guarded by a unique
+ * constraint, so concurrent requests on any node get a {@link ReindexJobAlreadyRunningException} instead of a
+ * second rebuild. The job records its progress and keyset cursor after every page; that heartbeat lets an admin
+ * follow it, and a job whose heartbeat stops (its node died) is released after
+ * {@code application.search.reindex.job-heartbeat-timeout-ms}. Progress is only recorded while the run that
+ * reports it still owns the job, and a run that lost it, e.g. because it was released, stops at its next
+ * checkpoint, so it can never swap its index in or complete the job behind a newer run. Cancellation is a flag checked between pages,
+ * and a cancelled or failed job can be resumed from its cursor as long as its target index still exists and the
+ * outbox still holds the deletes recorded since it started. A job that left more than {@code max-failed-documents}
+ * documents unindexed fails without swapping its index in. Which documents failed is only known to the run that
+ * indexed them, so a job stopped with failed documents is resumed with a new full scan into the same index.
+ */
+@Service
+public class SearchReindexJobService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchReindexJobService.class);
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final SearchReindexJobRepository jobRepository;
+    private final SearchReindexService reindexService;
+    private final Executor taskExecutor;
+    private final ApplicationProperties.Search.Reindex properties;
+    private final ApplicationProperties.Search.Outbox outboxProperties;
+
+    public SearchReindexJobService(
+        SearchReindexJobRepository jobRepository,
+        SearchReindexService reindexService,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.jobRepository = jobRepository;
+        this.reindexService = reindexService;
+        this.taskExecutor = taskExecutor;
+        this.properties = applicationProperties.getSearch().getReindex();
+        this.outboxProperties = applicationProperties.getSearch().getOutbox();
+    }
+
+    /**
+     * Start rebuilding the index of a document class in the background.
+     *
+     * @param type the document class.
+     * @return the started job.
+     * @throws ReindexJobAlreadyRunningException if a job is already running for the index.
+     */
+    public SearchReindexJobDTO start(Class<?> type) {
+        return start(reindexService.indexName(type));
+    }
+
+    /**
+     * Start rebuilding an index in the background.
+     *
+     * @param indexName the index name.
+     * @return the started job.
+     * @throws ReindexJobAlreadyRunningException if a job is already running for the index.
+     */
+    public SearchReindexJobDTO start(String indexName) {
+        LOG.debug("Request to start a reindex job for index {}", indexName);
+        releaseAbandonedJobs();
+        SearchReindexJob job = new SearchReindexJob().indexName(indexName).total(reindexService.count(indexName));
+        job.markRunning(Instant.now());
+        job = claim(job);
+        try {
+            job.setTargetIndex(reindexService.createRebuildIndex(indexName).getIndexName());
+            job.setBuildStartedAt(Instant.now());
+            job = jobRepository.save(job);
+        } catch (RuntimeException e) {
+            finish(job.getId(), job.getStartedDate(), SearchReindexJob.Status.FAILED, e, null);
+            throw e;
+        }
+        submit(job.getId());
+        return toDto(job);
+    }
+
+    /**
+     * Resume a failed or cancelled job from its last checkpoint.
+     *
+     * @param id the job id.
+     * @return the resumed job, or empty if there is no such job.
+     * @throws IllegalStateException if the job is not resumable.
+     * @throws ReindexJobAlreadyRunningException if another job is running for the index.
+     */
+    public Optional<SearchReindexJobDTO> resume(UUID id) {
+        LOG.debug("Request to resume reindex job {}", id);
+        releaseAbandonedJobs();
+        Optional<SearchReindexJob> existing = jobRepository.findById(id);
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        SearchReindexJob job = existing.orElseThrow();
+        if (job.getStatus() != SearchReindexJob.Status.FAILED && job.getStatus() != SearchReindexJob.Status.CANCELLED) {
+            throw new IllegalStateException("Only failed or cancelled jobs can be resumed, job " + id + " is " + job.getStatus());
+        }
+        if (job.getTargetIndex() == null || !reindexService.rebuildIndexExists(job.getIndexName(), IndexCoordinates.of(job.getTargetIndex()))) {
+            throw new IllegalStateException("Target index of job " + id + " no longer exists, start a new job instead");
+        }
+        Instant retainedSince = Instant.now().minus(Duration.ofMillis(outboxProperties.getDeleteRetentionMs()));
+        if (job.getBuildStartedAt() == null || job.getBuildStartedAt().isBefore(retainedSince)) {
+            throw new IllegalStateException("Deletes recorded since job " + id + " started are no longer retained, start a new job instead");
+        }
+        if (job.getFailed() > 0) {
+            LOG.info("Reindex job {} stopped with {} failed documents, resuming it with a full scan", id, job.getFailed());
+            job.setCursor(null);
+            job.setProcessed(0);
+            job.setFailed(0);
+        }
+        job.markRunning(Instant.now());
+        job = claim(job);
+        submit(job.getId());
+        return Optional.of(toDto(job));
+    }
+
+    /**
+     * Ask a running job to stop after its current page.
+     *
+     * @param id the job id.
+     * @return whether a running job was asked to stop.
+     */
+    public boolean cancel(UUID id) {
+        LOG.debug("Request to cancel reindex job {}", id);
+        return jobRepository.requestCancel(id, SearchReindexJob.Status.RUNNING) > 0;
+    }
+
+    /**
+     * @param id the job id.
+     * @return the job, or empty if there is no such job.
+     */
+    public Optional<SearchReindexJobDTO> findOne(UUID id) {
+        return jobRepository.findById(id).map(this::toDto);
+    }
+
+    /**
+     * @param indexName the index name to filter by, or {@code null} for all indices.
+     * @param pageable the pagination information.
+     * @return the jobs, most recent first.
+     */
+    public Page<SearchReindexJobDTO> findAll(String indexName, Pageable pageable) {
+        Page<SearchReindexJob> jobs = StringUtils.isBlank(indexName)
+            ? jobRepository.findAllByOrderByCreatedDateDesc(pageable)
+            : jobRepository.findByIndexNameOrderByCreatedDateDesc(indexName, pageable);
+        return jobs.map(this::toDto);
+    }
+
+    /**
+     * Bring the index of a document class up to date on startup: rows modified since the last run are indexed
+     * in place, unless the index is missing or its mapping changed, in which case a rebuild job is started.
+     *
+     * @param type the document class.
+     * @return the rebuild job, or empty if the index was caught up in place.
+     */
+    public Optional<SearchReindexJobDTO> synchronize(Class<?> type) {
+        String indexName = reindexService.indexName(type);
+        if (!reindexService.needsRebuild(indexName)) {
+            reindexService.catchUp(indexName);
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(start(indexName));
+        } catch (ReindexJobAlreadyRunningException e) {
+            LOG.info("Index {} is already being rebuilt by another node", indexName);
+            return Optional.empty();
+        }
+    }
+
+    private SearchReindexJob claim(SearchReindexJob job) {
+        try {
+            return jobRepository.saveAndFlush(job);
+        } catch (DataIntegrityViolationException e) {
+            throw new ReindexJobAlreadyRunningException(job.getIndexName());
+        }
+    }
+
+    private void releaseAbandonedJobs() {
+        Instant now = Instant.now();
+        Instant deadline = now.minus(Duration.ofMillis(properties.getJobHeartbeatTimeoutMs()));
+        for (SearchReindexJob job : jobRepository.findByStatusAndHeartbeatBefore(SearchReindexJob.Status.RUNNING, deadline)) {
+            String error = "No heartbeat since " + job.getHeartbeat();
+            if (jobRepository.release(job.getId(), deadline, SearchReindexJob.Status.FAILED, error, now) > 0) {
+                LOG.warn("Reindex job {} has not reported since {}, marked it as failed", job.getId(), job.getHeartbeat());
+            }
+        }
+    }
+
+    private void submit(UUID id) {
+        taskExecutor.execute(() -> run(id));
+    }
+
+    private void run(UUID id) {
+        SearchReindexJob job = jobRepository.findById(id).orElseThrow();
+        Instant startedDate = job.getStartedDate();
+        LOG.info("Running reindex job {} for index {} into {}", id, job.getIndexName(), job.getTargetIndex());
+        try {
+            SearchReindexService.ReindexResult result = reindexService.rebuild(
+                job.getIndexName(),
+                IndexCoordinates.of(job.getTargetIndex()),
+                job.getBuildStartedAt(),
+                job.getCursor(),
+                job.getProcessed(),
+                job.getFailed(),
+                (processed, failed, cursor) -> checkpoint(id, startedDate, processed, failed, cursor)
+            );
+            finish(id, startedDate, SearchReindexJob.Status.COMPLETED, null, result);
+        } catch (CancellationException e) {
+            LOG.info("Reindex job {} stopped: {}", id, e.getMessage());
+            finish(id, startedDate, SearchReindexJob.Status.CANCELLED, null, null);
+        } catch (ReindexFailedDocumentsException e) {
+            LOG.error("Reindex job {} failed: {}", id, e.getMessage());
+            finish(id, startedDate, SearchReindexJob.Status.FAILED, e, null);
+        } catch (Exception e) {
+            LOG.error("Reindex job {} failed: {}", id, e.getMessage(), e);
+            finish(id, startedDate, SearchReindexJob.Status.FAILED, e, null);
+        }
+    }
+
+    /**
+     * Record the progress of the run started at {@code startedDate}, which doubles as its heartbeat.
+     *
+     * @return whether the run should go on, {@code false} if a cancel was requested.
+     * @throws CancellationException if the job is no longer running that run.
+     */
+    private boolean checkpoint(UUID id, Instant startedDate, long processed, long failed, UUID cursor) {
+        Instant now = Instant.now();
+        int updated = cursor != null
+            ? jobRepository.updateProgress(id, startedDate, processed, failed, cursor, now)
+            : jobRepository.updateProgress(id, startedDate, processed, failed, now);
+        if (updated == 0) {
+            throw new CancellationException("Reindex job " + id + " is no longer running this run");
+        }
+        return !jobRepository.isCancelRequested(id);
+    }
+
+    private void finish(UUID id, Instant startedDate, SearchReindexJob.Status status, Exception error, SearchReindexService.ReindexResult result) {
+        Instant now = Instant.now();
+        if (result != null) {
+            jobRepository.updateProgress(id, startedDate, result.processed(), result.failed(), now);
+        }
+        String message = error == null ? null : StringUtils.abbreviate(String.valueOf(error.getMessage()), MAX_ERROR_LENGTH);
+        if (jobRepository.finish(id, startedDate, status, message, now) == 0) {
+            LOG.warn("Reindex job {} is no longer running this run, not marking it as {}", id, status);
+        }
+    }
+
+    private SearchReindexJobDTO toDto(SearchReindexJob job) {
+        SearchReindexJobDTO dto = new SearchReindexJobDTO();
+        dto.setId(job.getId());
+        dto.setIndexName(job.getIndexName());
+        dto.setStatus(job.getStatus());
+        dto.setTargetIndex(job.getTargetIndex());
+        dto.setTotal(job.getTotal());
+        dto.setProcessed(job.getProcessed());
+        dto.setFailed(job.getFailed());
+        dto.setCancelRequested(job.isCancelRequested());
+        dto.setError(job.getError());
+        dto.setCreatedDate(job.getCreatedDate());
+        dto.setStartedDate(job.getStartedDate());
+        dto.setFinishedDate(job.getFinishedDate());
+        if (job.getStartedDate() != null) {
+            Instant end = job.getFinishedDate() != null ? job.getFinishedDate() : Instant.now();
+            long millis = Math.max(1, Duration.between(job.getStartedDate(), end).toMillis());
+            double docsPerSecond = (job.getProcessed() - job.getProcessedAtStart()) * 1000.0 / millis;
+            dto.setDocsPerSecond(docsPerSecond);
+            if (job.getStatus() == SearchReindexJob.Status.RUNNING && docsPerSecond > 0) {
+                dto.setEtaSeconds(Math.round(Math.max(0, job.getTotal() - job.getProcessed()) / docsPerSecond));
+            }
+        }
+        return dto;
+    }
+}
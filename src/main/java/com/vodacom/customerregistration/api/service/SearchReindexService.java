@@ -0,0 +1,638 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.domain.Agent;
+import com.vodacom.customerregistration.api.domain.Customer;
+import com.vodacom.customerregistration.api.domain.SearchIndexOutbox;
+import com.vodacom.customerregistration.api.domain.SearchIndexState;
+import com.vodacom.customerregistration.api.repository.ActivityLogRepository;
+import com.vodacom.customerregistration.api.repository.AgentRepository;
+import com.vodacom.customerregistration.api.repository.CustomerRepository;
+import com.vodacom.customerregistration.api.repository.SearchIndexOutboxRepository;
+import com.vodacom.customerregistration.api.repository.SearchIndexStateRepository;
+import com.vodacom.customerregistration.api.repository.search.ActivityLogSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.AgentSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.CustomerSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.SearchIndexManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams customers, agents and activity logs from the database into Elasticsearch.
+ * <p>
+ * Rows are read in keyset pages of {@code fetch-size}, each in its own short read-only transaction, so the
+ * persistence context never holds more than one page. Pages are split into bulk requests of {@code bulk-size}
+ * documents run by a bounded pool of {@code workers} threads; once the pool and its queue are full the reader
+ * runs the next bulk itself, which keeps memory flat whatever the table size.
+ * <p>
+ * A rebuild fills a fresh index version next to the live one (see {@link SearchIndexManager}). Rows modified
+ * while it was being built are indexed again before and after the alias swap, since until the swap live writes
+ * still land in the previous version. For the same reason the deletes recorded in the outbox since the rebuild
+ * started are replayed into the new version before and after the swap; the last replay reads the primary, so a
+ * delete committed before the swap is never missed. Documents Elasticsearch rejected are retried once before the
+ * swap, and if more than {@code max-failed-documents} are still missing the new version is not swapped in at all.
+ * Rebuilds are run as jobs by {@link SearchReindexJobService}.
+ * <p>
+ * Activity logs are append-only and kept in monthly indices rather than versions, so their rebuild is a backfill:
+ * every log is indexed in place into the index of its month, with no catch-up and no swap. Rows are read in id
+ * order, which for time-ordered ids is month by month.
+ * <p>
+ * Each index records in {@link SearchIndexState} the mapping it was built with and a {@code lastModifiedDate}
+ * watermark. On startup only rows modified after the watermark are indexed; a full rebuild happens only when the
+ * index is missing or its mapping changed, so startup no longer scales with table size.
+ */
+@Service
+public class SearchReindexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchReindexService.class);
+
+    /** Smallest UUID in PostgreSQL ordering, used as the keyset cursor before the first page. */
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    /** Largest UUID in PostgreSQL ordering; as a cursor it marks the full scan of a rebuild as done. */
+    private static final UUID LAST_ID = new UUID(-1L, -1L);
+
+    /** Slack for clock differences between the nodes stamping {@code lastModifiedDate} and outbox events. */
+    static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(1);
+
+    private static final int PROGRESS_LOG_PAGES = 10;
+
+    private final SearchIndexManager indexManager;
+    private final SearchIndexStateRepository stateRepository;
+    private final SearchIndexOutboxRepository outboxRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate primaryTransaction;
+    private final ApplicationProperties.Search.Reindex properties;
+    private final Map<String, Source<?>> sources = new LinkedHashMap<>();
+
+    public SearchReindexService(
+        CustomerRepository customerRepository,
+        AgentRepository agentRepository,
+        ActivityLogRepository activityLogRepository,
+        CustomerSearchRepository customerSearchRepository,
+        AgentSearchRepository agentSearchRepository,
+        ActivityLogSearchRepository activityLogSearchRepository,
+        SearchIndexManager indexManager,
+        SearchIndexStateRepository stateRepository,
+        SearchIndexOutboxRepository outboxRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.indexManager = indexManager;
+        this.stateRepository = stateRepository;
+        this.outboxRepository = outboxRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getSearch().getReindex();
+        register(customers(customerRepository, customerSearchRepository));
+        register(agents(agentRepository, agentSearchRepository));
+        register(activityLogs(activityLogRepository, activityLogSearchRepository));
+    }
+
+    /**
+     * Outcome of a reindex run.
+     *
+     * @param processed the documents Elasticsearch accepted.
+     * @param failed the documents rejected or lost to a failed bulk request.
+     * @param duration the wall-clock time of the run.
+     */
+    public record ReindexResult(long processed, long failed, Duration duration) {
+        public double docsPerSecond() {
+            return processed * 1000.0 / Math.max(1, duration.toMillis());
+        }
+    }
+
+    /**
+     * Receives the progress of a rebuild after every page, including the catch-up, delete-replay and retry steps,
+     * and decides whether it goes on.
+     */
+    @FunctionalInterface
+    public interface RebuildListener {
+        /**
+         * @param processed the documents indexed so far.
+         * @param failed the documents rejected so far.
+         * @param cursor the id up to which every row has been indexed, or {@code null} outside the full scan.
+         * @return {@code false} to stop the rebuild with a {@link CancellationException}; ignored once the new
+         * index version is swapped in.
+         * @throws CancellationException to stop the rebuild at any step, even after the swap.
+         */
+        boolean onProgress(long processed, long failed, UUID cursor);
+    }
+
+    private record Chunk<E>(List<E> rows, UUID lastId) {}
+
+    /**
+     * Where to read one entity type from and how to bulk index it.
+     *
+     * @param entityType the entity type of its outbox events.
+     * @param inPlace whether a rebuild indexes into the live indices instead of a new version swapped in.
+     * @param reader reads the page after the given id, restricted to rows modified since the given instant when not {@code null}.
+     * @param loader reads the rows with the given ids, for retries.
+     */
+    private record Source<E>(
+        Class<E> type,
+        String name,
+        String entityType,
+        boolean inPlace,
+        LongSupplier count,
+        BiFunction<Instant, UUID, Chunk<E>> reader,
+        Function<Collection<UUID>, List<E>> loader,
+        Function<E, UUID> id,
+        BiFunction<List<E>, IndexCoordinates, Map<UUID, String>> bulkIndex,
+        BiConsumer<UUID, IndexCoordinates> delete
+    ) {}
+
+    private record PageInFlight(CompletableFuture<Void> done, UUID lastId) {}
+
+    private static final class Progress {
+
+        private final long start = System.nanoTime();
+        private final AtomicLong processed;
+        private final AtomicLong failed;
+        /** Documents of this run that are not in the index yet, retried before the swap. */
+        private final Set<UUID> failedIds = ConcurrentHashMap.newKeySet();
+
+        Progress(long processed, long failed) {
+            this.processed = new AtomicLong(processed);
+            this.failed = new AtomicLong(failed);
+        }
+
+        void indexed(UUID id) {
+            processed.incrementAndGet();
+            recovered(id);
+        }
+
+        void recovered(UUID id) {
+            if (failedIds.remove(id)) {
+                failed.decrementAndGet();
+            }
+        }
+
+        void failed(UUID id) {
+            if (failedIds.add(id)) {
+                failed.incrementAndGet();
+            }
+        }
+
+        ReindexResult snapshot() {
+            return new ReindexResult(processed.get(), failed.get(), Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * @return the names of the indices that can be rebuilt.
+     */
+    public Set<String> indexNames() {
+        return sources.keySet();
+    }
+
+    /**
+     * @param type the document class.
+     * @return the name of the index, i.e. its read alias.
+     */
+    public String indexName(Class<?> type) {
+        return indexManager.readAlias(type);
+    }
+
+    /**
+     * @param indexName the index name.
+     * @return the number of rows a full rebuild will index.
+     */
+    public long count(String indexName) {
+        return source(indexName).count().getAsLong();
+    }
+
+    /**
+     * Create the physical index a rebuild will fill.
+     *
+     * @param indexName the index name.
+     * @return the new physical index.
+     */
+    public IndexCoordinates createRebuildIndex(String indexName) {
+        Source<?> source = source(indexName);
+        return source.inPlace() ? IndexCoordinates.of(indexName + "-*") : indexManager.createRebuildIndex(source.type());
+    }
+
+    /**
+     * @param indexName the index name.
+     * @param target the index created by {@link #createRebuildIndex(String)}.
+     * @return whether it still exists, i.e. whether a rebuild into it can be resumed.
+     */
+    public boolean rebuildIndexExists(String indexName, IndexCoordinates target) {
+        return source(indexName).inPlace() || indexManager.exists(target);
+    }
+
+    /**
+     * Fill a rebuild index from the database, catch up on rows modified meanwhile and swap it in.
+     *
+     * @param indexName the index name.
+     * @param target the index created by {@link #createRebuildIndex(String)}.
+     * @param buildStartedAt when the rebuild was first started.
+     * @param resumeAfter the cursor to resume the full scan from, or {@code null} to start from the beginning.
+     * @param processed the documents already processed by earlier runs of the same rebuild.
+     * @param failed the documents already rejected by earlier runs of the same rebuild.
+     * @param listener notified after every page, and able to cancel the rebuild before the swap.
+     * @return the outcome of the run.
+     * @throws CancellationException if the listener stopped the rebuild.
+     */
+    public ReindexResult rebuild(
+        String indexName,
+        IndexCoordinates target,
+        Instant buildStartedAt,
+        UUID resumeAfter,
+        long processed,
+        long failed,
+        RebuildListener listener
+    ) {
+        return rebuild(source(indexName), target, buildStartedAt, resumeAfter, new Progress(processed, failed), listener);
+    }
+
+    /**
+     * Whether an index must be fully rebuilt because it is missing or was built with another mapping.
+     *
+     * @param indexName the index name.
+     * @return {@code true} if {@link #catchUp(String)} is not enough.
+     */
+    public boolean needsRebuild(String indexName) {
+        Source<?> source = source(indexName);
+        if (source.inPlace()) {
+            // Backfilled once; a changed mapping applies to the indices of the following months.
+            return stateRepository.findById(indexName).isEmpty();
+        }
+        if (!indexManager.indexExists(source.type())) {
+            LOG.info("Index {} does not exist", indexName);
+            return true;
+        }
+        Optional<SearchIndexState> state = stateRepository.findById(indexName);
+        if (state.isEmpty() || !indexManager.mappingVersion(source.type()).equals(state.orElseThrow().getMappingVersion())) {
+            LOG.info("Mapping of index {} changed", indexName);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Index the rows modified since the stored watermark into the live index and advance the watermark.
+     *
+     * @param indexName the index name.
+     * @return the outcome of the run.
+     */
+    public ReindexResult catchUp(String indexName) {
+        Source<?> source = source(indexName);
+        if (source.inPlace()) {
+            // Logs written since the backfill are indexed by the writer, and retried through the outbox.
+            return new ReindexResult(0, 0, Duration.ZERO);
+        }
+        SearchIndexState state = stateRepository.findById(indexName).orElseThrow();
+        Progress progress = new Progress(0, 0);
+        Instant watermark = Instant.now().minus(CATCH_UP_MARGIN);
+        stream(source, state.getWatermark(), null, indexManager.writeIndex(source.type()), progress, null);
+        saveState(source, watermark);
+        ReindexResult result = progress.snapshot();
+        LOG.info("Synchronized {} {} modified since {} in {} ms", result.processed(), source.name(), state.getWatermark(), result.duration().toMillis());
+        return result;
+    }
+
+    private void register(Source<?> source) {
+        sources.put(indexManager.readAlias(source.type()), source);
+    }
+
+    private Source<?> source(String indexName) {
+        Source<?> source = sources.get(indexName);
+        if (source == null) {
+            throw new IllegalArgumentException("Unknown search index: " + indexName);
+        }
+        return source;
+    }
+
+    private Source<Customer> customers(CustomerRepository customerRepository, CustomerSearchRepository customerSearchRepository) {
+        return new Source<>(
+            Customer.class,
+            "customers",
+            SearchIndexOutboxService.ENTITY_CUSTOMER,
+            false,
+            customerRepository::count,
+            (since, after) -> {
+                List<Customer> customers = since == null
+                    ? customerRepository.findByIdGreaterThanOrderByIdAsc(after, firstPage())
+                    : customerRepository.findByLastModifiedDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(since, after, firstPage());
+                return new Chunk<>(customers, customers.isEmpty() ? null : customers.get(customers.size() - 1).getId());
+            },
+            customerRepository::findAllById,
+            Customer::getId,
+            customerSearchRepository::bulkIndex,
+            customerSearchRepository::deleteFromIndexById
+        );
+    }
+
+    private Source<Agent> agents(AgentRepository agentRepository, AgentSearchRepository agentSearchRepository) {
+        return new Source<>(
+            Agent.class,
+            "agents",
+            SearchIndexOutboxService.ENTITY_AGENT,
+            false,
+            agentRepository::count,
+            (since, after) -> {
+                List<UUID> ids = since == null
+                    ? agentRepository.findIdsByIdGreaterThan(after, firstPage())
+                    : agentRepository.findIdsModifiedSinceByIdGreaterThan(since, after, firstPage());
+                if (ids.isEmpty()) {
+                    return new Chunk<>(List.of(), null);
+                }
+                return new Chunk<>(agentRepository.findAllWithUserByIdIn(ids), ids.get(ids.size() - 1));
+            },
+            agentRepository::findAllWithUserByIdIn,
+            Agent::getId,
+            agentSearchRepository::bulkIndex,
+            agentSearchRepository::deleteFromIndexById
+        );
+    }
+
+    private Source<ActivityLog> activityLogs(ActivityLogRepository activityLogRepository, ActivityLogSearchRepository activityLogSearchRepository) {
+        return new Source<>(
+            ActivityLog.class,
+            "activity logs",
+            SearchIndexOutboxService.ENTITY_ACTIVITY_LOG,
+            true,
+            activityLogRepository::count,
+            (since, after) -> {
+                List<ActivityLog> activityLogs = activityLogRepository.findByIdGreaterThanOrderByIdAsc(after, firstPage());
+                return new Chunk<>(activityLogs, activityLogs.isEmpty() ? null : activityLogs.get(activityLogs.size() - 1).getId());
+            },
+            activityLogRepository::findAllById,
+            ActivityLog::getId,
+            // Each log goes to the index of its month, whatever the target.
+            (activityLogs, index) -> activityLogSearchRepository.bulkIndex(activityLogs),
+            (id, index) -> {}
+        );
+    }
+
+    private PageRequest firstPage() {
+        return PageRequest.of(0, properties.getFetchSize());
+    }
+
+    private void saveState(Source<?> source, Instant watermark) {
+        stateRepository.save(
+            new SearchIndexState()
+                .indexName(indexManager.readAlias(source.type()))
+                .mappingVersion(indexManager.mappingVersion(source.type()))
+                .watermark(watermark)
+        );
+    }
+
+    private <E> ReindexResult rebuild(
+        Source<E> source,
+        IndexCoordinates target,
+        Instant buildStartedAt,
+        UUID resumeAfter,
+        Progress progress,
+        RebuildListener listener
+    ) {
+        stream(source, null, resumeAfter, target, progress, listener);
+        listener.onProgress(progress.processed.get(), progress.failed.get(), LAST_ID);
+        if (source.inPlace()) {
+            return backfilled(source, target, progress, listener);
+        }
+        Instant catchUpStarted = Instant.now().minus(CATCH_UP_MARGIN);
+        stream(source, buildStartedAt.minus(CATCH_UP_MARGIN), null, target, progress, listener);
+        replayDeletes(source, buildStartedAt.minus(CATCH_UP_MARGIN), target, progress, readOnlyTransaction, listener);
+        retryFailed(source, target, progress, listener);
+        if (progress.failed.get() > properties.getMaxFailedDocuments()) {
+            throw new ReindexFailedDocumentsException(indexManager.readAlias(source.type()), progress.failed.get(), properties.getMaxFailedDocuments());
+        }
+        heartbeat(source, progress, listener);
+        indexManager.promote(source.type(), target);
+        // Writes between the catch-up and the swap went to the previous version. Too late to cancel now, but the
+        // heartbeat goes on so that a long catch-up is not taken for an abandoned job.
+        RebuildListener heartbeat = (indexed, failed, cursor) -> {
+            listener.onProgress(indexed, failed, cursor);
+            return true;
+        };
+        stream(source, catchUpStarted, null, target, progress, heartbeat);
+        replayDeletes(source, buildStartedAt.minus(CATCH_UP_MARGIN), target, progress, primaryTransaction, heartbeat);
+        retryFailed(source, target, progress, heartbeat);
+        saveState(source, catchUpStarted);
+        ReindexResult result = progress.snapshot();
+        LOG.info(
+            "Rebuilt {} into {}: {} indexed ({} failed) in {} ms, {} docs/sec",
+            source.name(),
+            target.getIndexName(),
+            result.processed(),
+            result.failed(),
+            result.duration().toMillis(),
+            Math.round(result.docsPerSecond())
+        );
+        return result;
+    }
+
+    private ReindexResult backfilled(Source<?> source, IndexCoordinates target, Progress progress, RebuildListener listener) {
+        retryFailed(source, target, progress, listener);
+        if (progress.failed.get() > properties.getMaxFailedDocuments()) {
+            throw new ReindexFailedDocumentsException(indexManager.readAlias(source.type()), progress.failed.get(), properties.getMaxFailedDocuments());
+        }
+        saveState(source, Instant.now());
+        ReindexResult result = progress.snapshot();
+        LOG.info(
+            "Backfilled {}: {} indexed ({} failed) in {} ms, {} docs/sec",
+            source.name(),
+            result.processed(),
+            result.failed(),
+            result.duration().toMillis(),
+            Math.round(result.docsPerSecond())
+        );
+        return result;
+    }
+
+    /**
+     * Index every row, or only those modified since {@code since}. The cursor reported to the listener only
+     * advances past a page once all its bulk requests have completed, so resuming from it never skips rows.
+     */
+    private <E> void stream(Source<E> source, Instant since, UUID resumeAfter, IndexCoordinates index, Progress progress, RebuildListener listener) {
+        LOG.info(
+            "Indexing {}{} into {} with fetch size {}, bulk size {} and {} workers",
+            source.name(),
+            since == null ? "" : " modified since " + since,
+            index.getIndexName(),
+            properties.getFetchSize(),
+            properties.getBulkSize(),
+            properties.getWorkers()
+        );
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(
+            properties.getWorkers(),
+            properties.getWorkers(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getWorkers()),
+            new CustomizableThreadFactory("search-reindex-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        Deque<PageInFlight> inFlight = new ArrayDeque<>();
+        UUID after = resumeAfter != null ? resumeAfter : FIRST_ID;
+        UUID completed = after;
+        boolean cancelled = false;
+        try {
+            int pages = 0;
+            while (after != null) {
+                if (listener != null && !listener.onProgress(progress.processed.get(), progress.failed.get(), since == null ? completed : null)) {
+                    cancelled = true;
+                    break;
+                }
+                UUID cursor = after;
+                Chunk<E> chunk = readOnlyTransaction.execute(status -> source.reader().apply(since, cursor));
+                List<E> rows = chunk.rows();
+                List<CompletableFuture<Void>> batches = new ArrayList<>();
+                for (int from = 0; from < rows.size(); from += properties.getBulkSize()) {
+                    List<E> batch = rows.subList(from, Math.min(from + properties.getBulkSize(), rows.size()));
+                    batches.add(CompletableFuture.runAsync(() -> indexBatch(source, batch, index, progress), workers));
+                }
+                if (chunk.lastId() != null) {
+                    inFlight.add(new PageInFlight(CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)), chunk.lastId()));
+                }
+                while (!inFlight.isEmpty() && inFlight.peek().done().isDone()) {
+                    completed = inFlight.poll().lastId();
+                }
+                after = chunk.lastId();
+                if (++pages % PROGRESS_LOG_PAGES == 0) {
+                    ReindexResult current = progress.snapshot();
+                    LOG.info("Reindexing {}: {} indexed, {} failed, {} docs/sec", source.name(), current.processed(), current.failed(), Math.round(current.docsPerSecond()));
+                }
+            }
+        } finally {
+            workers.shutdown();
+            awaitTermination(source.name(), workers);
+        }
+        if (cancelled) {
+            throw new CancellationException("Reindexing " + source.name() + " was cancelled");
+        }
+    }
+
+    /**
+     * Delete from the index every entity the outbox recorded a delete for since {@code since}, whether or not the
+     * event was already dispatched: dispatched deletes only reached the index the write alias pointed at.
+     */
+    private void replayDeletes(
+        Source<?> source,
+        Instant since,
+        IndexCoordinates index,
+        Progress progress,
+        TransactionTemplate transaction,
+        RebuildListener listener
+    ) {
+        UUID after = FIRST_ID;
+        long replayed = 0;
+        while (after != null) {
+            heartbeat(source, progress, listener);
+            UUID cursor = after;
+            List<UUID> ids = transaction.execute(status ->
+                outboxRepository.findEntityIdsSince(source.entityType(), SearchIndexOutbox.Operation.DELETE, since, cursor, firstPage())
+            );
+            for (UUID id : ids) {
+                try {
+                    source.delete().accept(id, index);
+                    progress.recovered(id);
+                    replayed++;
+                } catch (RuntimeException e) {
+                    progress.failed(id);
+                    LOG.debug("Failed to replay the delete of {} document {}: {}", source.name(), id, e.getMessage());
+                }
+            }
+            after = ids.isEmpty() ? null : ids.get(ids.size() - 1);
+        }
+        LOG.info("Replayed {} deletes of {} recorded since {} into {}", replayed, source.name(), since, index.getIndexName());
+    }
+
+    /**
+     * Index once more the documents of this run that failed, reloading them so that rows deleted meanwhile are
+     * deleted from the index instead. Documents recovered no longer count as failed, whichever pass recovers them.
+     */
+    private <E> void retryFailed(Source<E> source, IndexCoordinates index, Progress progress, RebuildListener listener) {
+        if (progress.failedIds.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(progress.failedIds);
+        LOG.info("Retrying {} failed {} documents", ids.size(), source.name());
+        for (int from = 0; from < ids.size(); from += properties.getBulkSize()) {
+            heartbeat(source, progress, listener);
+            List<UUID> chunk = ids.subList(from, Math.min(from + properties.getBulkSize(), ids.size()));
+            List<E> rows = readOnlyTransaction.execute(status -> source.loader().apply(chunk));
+            indexBatch(source, rows, index, progress);
+            Set<UUID> vanished = new HashSet<>(chunk);
+            rows.forEach(row -> vanished.remove(source.id().apply(row)));
+            for (UUID id : vanished) {
+                try {
+                    source.delete().accept(id, index);
+                    progress.recovered(id);
+                } catch (RuntimeException e) {
+                    LOG.debug("Failed to delete {} document {}: {}", source.name(), id, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void heartbeat(Source<?> source, Progress progress, RebuildListener listener) {
+        if (!listener.onProgress(progress.processed.get(), progress.failed.get(), null)) {
+            throw new CancellationException("Reindexing " + source.name() + " was cancelled");
+        }
+    }
+
+    private <E> void indexBatch(Source<E> source, List<E> batch, IndexCoordinates index, Progress progress) {
+        try {
+            Map<UUID, String> failures = source.bulkIndex().apply(batch, index);
+            for (E row : batch) {
+                UUID id = source.id().apply(row);
+                if (failures.containsKey(id)) {
+                    progress.failed(id);
+                } else {
+                    progress.indexed(id);
+                }
+            }
+            failures.forEach((id, error) -> LOG.debug("Failed to reindex {} document {}: {}", source.name(), id, error));
+        } catch (RuntimeException e) {
+            batch.forEach(row -> progress.failed(source.id().apply(row)));
+            LOG.error("Bulk request of {} {} failed: {}", batch.size(), source.name(), e.getMessage());
+        }
+    }
+
+    private void awaitTermination(String name, ThreadPoolExecutor workers) {
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.info("Waiting for {} pending {} bulk requests", workers.getQueue().size() + workers.getActiveCount(), name);
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
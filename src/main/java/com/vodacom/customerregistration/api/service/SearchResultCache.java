@@ -0,0 +1,175 @@
+package com.vodacom.customerregistration.api.service;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.repository.search.SearchBackend;
+import com.vodacom.customerregistration.api.repository.search.SearchPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded, time-limited cache of offset-paged search results, one LRU map per searched {@link Index}.
+ * <p>
+ * Entries are keyed by the normalized query and the page request, and expire after
+ * {@code application.search.cache.ttl-seconds}. Each index has a generation counter that write paths bump once
+ * their transaction commits, and the outbox bumps again once it has applied the change to Elasticsearch; bumping
+ * drops the cached results of that index. A search that started under an older generation does not store its
+ * result, so a slow search racing a write cannot put pre-write results back. Documents only become searchable
+ * after the next index refresh, so a result cached in that short window is served until it expires.
+ * <p>
+ * Only Elasticsearch results are cached: a {@link SearchPage} answered by the database fallback is returned
+ * uncached, so searches go back to Elasticsearch as soon as it recovers.
+ * <p>
+ * The cache is local to each node. A write bumps the generation on the node that made it, and the outbox bumps it
+ * on the node that dispatched the change; other nodes serve their cached results until they expire.
+ * <p>
+ * Metrics follow Micrometer's cache conventions: {@code cache.gets} tagged {@code result=hit|miss},
+ * {@code cache.puts}, {@code cache.evictions} and {@code cache.size}, each tagged with the cache name.
+ */
+@Service
+public class SearchResultCache {
+
+    public enum Index {
+        CUSTOMER,
+        AGENT,
+    }
+
+    private record Key(String query, boolean raw, int page, int size, String sort) {}
+
+    private record Entry(Object value, long expiresAt) {}
+
+    private final class Cache {
+
+        private long generation;
+        private final Map<Key, Entry> entries;
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter puts;
+        private final Counter evictions;
+
+        Cache(String name, MeterRegistry registry) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                    if (size() > properties.getMaxEntries()) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+            this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").register(registry);
+            this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").register(registry);
+            this.puts = Counter.builder("cache.puts").tag("cache", name).register(registry);
+            this.evictions = Counter.builder("cache.evictions").tag("cache", name).register(registry);
+            Gauge.builder("cache.size", this, Cache::size).tag("cache", name).register(registry);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private final ApplicationProperties.Search.Cache properties;
+    private final Map<Index, Cache> caches = new EnumMap<>(Index.class);
+
+    public SearchResultCache(ApplicationProperties applicationProperties, MeterRegistry registry) {
+        this.properties = applicationProperties.getSearch().getCache();
+        for (Index index : Index.values()) {
+            caches.put(index, new Cache(index.name().toLowerCase(Locale.ROOT) + "-search", registry));
+        }
+    }
+
+    /**
+     * Return the cached page for the query, or run the search and cache its result.
+     *
+     * @param index the searched index.
+     * @param query the search text.
+     * @param raw whether the text is parsed as {@code query_string} syntax.
+     * @param pageable the page request.
+     * @param search runs the search on a miss; its exceptions are propagated and nothing is cached, nor is a
+     * {@link SearchPage} that Elasticsearch did not answer.
+     * @return the page of results.
+     */
+    @SuppressWarnings("unchecked")
+    public <P extends Page<?>> P get(Index index, String query, boolean raw, Pageable pageable, Supplier<P> search) {
+        if (!properties.isEnabled() || query == null) {
+            return search.get();
+        }
+        Cache cache = caches.get(index);
+        Key key = new Key(normalize(query, raw), raw, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+        long generation;
+        synchronized (cache) {
+            Entry entry = cache.entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                cache.hits.increment();
+                return (P) entry.value();
+            }
+            if (entry != null) {
+                cache.entries.remove(key);
+                cache.evictions.increment();
+            }
+            generation = cache.generation;
+        }
+        cache.misses.increment();
+
+        P result = search.get();
+        if (result instanceof SearchPage<?> page && page.getBackend() != SearchBackend.ELASTICSEARCH) {
+            return result;
+        }
+        synchronized (cache) {
+            if (cache.generation == generation) {
+                cache.entries.put(key, new Entry(result, System.nanoTime() + properties.getTtlSeconds() * 1_000_000_000L));
+                cache.puts.increment();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop the cached results of an index once the current transaction commits, or right away outside a transaction.
+     *
+     * @param index the index whose documents changed.
+     */
+    public void invalidate(Index index) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        bump(index);
+                    }
+                }
+            );
+        } else {
+            bump(index);
+        }
+    }
+
+    private void bump(Index index) {
+        Cache cache = caches.get(index);
+        synchronized (cache) {
+            cache.generation++;
+            cache.entries.clear();
+        }
+    }
+
+    /**
+     * Structured queries ignore case and spacing; raw {@code query_string} syntax is case-sensitive
+     * ({@code AND}, {@code OR}, field names), so only its spacing is trimmed.
+     */
+    private static String normalize(String query, boolean raw) {
+        String trimmed = query.trim();
+        return raw ? trimmed : trimmed.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
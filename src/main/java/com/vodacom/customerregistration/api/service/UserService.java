@@ -3,6 +3,7 @@ package com.vodacom.customerregistration.api.service;
 import com.vodacom.customerregistration.api.config.Constants;
 import com.vodacom.customerregistration.api.domain.Authority;
 import com.vodacom.customerregistration.api.domain.User;
+import com.vodacom.customerregistration.api.repository.AgentRepository;
 import com.vodacom.customerregistration.api.repository.AuthorityRepository;
 import com.vodacom.customerregistration.api.repository.UserRepository;
 import com.vodacom.customerregistration.api.repository.search.UserSearchRepository;
@@ -13,7 +14,9 @@ import com.vodacom.customerregistration.api.service.dto.AdminUserDTO;
 import com.vodacom.customerregistration.api.service.dto.UserDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -24,8 +27,12 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -45,11 +52,17 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchRepository userSearchRepository, AuthorityRepository authorityRepository) {
+    private final AgentRepository agentRepository;
+
+    private final CacheManager cacheManager;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchRepository userSearchRepository, AuthorityRepository authorityRepository, AgentRepository agentRepository, CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userSearchRepository = userSearchRepository;
         this.authorityRepository = authorityRepository;
+        this.agentRepository = agentRepository;
+        this.cacheManager = cacheManager;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -59,6 +72,7 @@ public class UserService {
             user.setActivated(true);
             user.setActivationKey(null);
             userSearchRepository.save(user);
+            this.evictAgentDetails(user);
             LOG.debug("Activated user: {}", user);
             return user;
         });
@@ -126,6 +140,7 @@ public class UserService {
         if (existingUser.isActivated()) {
             return false;
         }
+        this.evictAgentDetails(existingUser);
         userRepository.delete(existingUser);
         userRepository.flush();
         return true;
@@ -179,6 +194,7 @@ public class UserService {
      */
     public Optional<AdminUserDTO> updateUser(AdminUserDTO userDTO) {
         return Optional.of(userRepository.findById(userDTO.getId())).filter(Optional::isPresent).map(Optional::get).map(user -> {
+            this.evictAgentDetails(user);
             user.setLogin(userDTO.getLogin().toLowerCase());
             user.setFirstName(userDTO.getFirstName());
             user.setLastName(userDTO.getLastName());
@@ -201,6 +217,7 @@ public class UserService {
 
     public void deleteUser(String login) {
         userRepository.findOneByLogin(login).ifPresent(user -> {
+            this.evictAgentDetails(user);
             userRepository.delete(user);
             userSearchRepository.deleteFromIndex(user);
             LOG.debug("Deleted User: {}", user);
@@ -218,6 +235,7 @@ public class UserService {
      */
     public void updateUser(String firstName, String lastName, String email, String langKey, String imageUrl) {
         SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneByLogin).ifPresent(user -> {
+            this.evictAgentDetails(user);
             user.setFirstName(firstName);
             user.setLastName(lastName);
             if (email != null) {
@@ -244,9 +262,22 @@ public class UserService {
         });
     }
 
+    /**
+     * Page of users with their authorities, loaded in two queries whatever the page size: the page of ids, then
+     * the users of those ids joined with their authorities. The COUNT of the id page is skipped when the page
+     * shows the total, as on a short first page.
+     *
+     * @param pageable the pagination information.
+     * @return the page of users.
+     */
     @Transactional(readOnly = true)
     public Page<AdminUserDTO> getAllManagedUsers(Pageable pageable) {
-        return userRepository.findAll(pageable).map(AdminUserDTO::new);
+        Page<UUID> ids = userRepository.findAllIds(pageable);
+        Map<UUID, User> users = ids.isEmpty()
+            ? Map.of()
+            : userRepository.findAllWithAuthoritiesByIdIn(ids.getContent()).stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        List<AdminUserDTO> content = ids.getContent().stream().map(users::get).filter(Objects::nonNull).map(AdminUserDTO::new).toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
     }
 
     @Transactional(readOnly = true)
@@ -254,12 +285,10 @@ public class UserService {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
     }
 
-    @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
         return userRepository.findOneWithAuthoritiesByLogin(login);
     }
 
-    @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthorities() {
         return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
     }
@@ -273,6 +302,7 @@ public class UserService {
     public void removeNotActivatedUsers() {
         userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS)).forEach(user -> {
             LOG.debug("Deleting not activated user {}", user.getLogin());
+            this.evictAgentDetails(user);
             userRepository.delete(user);
             userSearchRepository.deleteFromIndex(user);
         });
@@ -283,8 +313,19 @@ public class UserService {
      *
      * @return a list of all the authorities.
      */
-    @Transactional(readOnly = true)
     public List<String> getAuthorities() {
         return authorityRepository.findAll().stream().map(Authority::getName).toList();
     }
+
+    /**
+     * Evict the details of the user's agent, which embed the user. The eviction applies once the transaction commits.
+     */
+    private void evictAgentDetails(User user) {
+        if (user.getId() == null) {
+            return;
+        }
+        agentRepository
+            .findIdByUserId(user.getId())
+            .ifPresent(agentId -> Objects.requireNonNull(cacheManager.getCache(AgentService.AGENT_DETAILS_CACHE)).evict(agentId));
+    }
 }
@@ -0,0 +1,14 @@
+package com.vodacom.customerregistration.api.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Counts of one type of activity over the last day, week and 30 days.
+ */
+public record ActivityCountsDTO(long lastDay, long lastWeek, long lastMonth) implements Serializable {
+    public static final ActivityCountsDTO NONE = new ActivityCountsDTO(0, 0, 0);
+
+    public ActivityCountsDTO plus(long count) {
+        return new ActivityCountsDTO(lastDay + count, lastWeek + count, lastMonth + count);
+    }
+}
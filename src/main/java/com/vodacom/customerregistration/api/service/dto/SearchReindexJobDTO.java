@@ -0,0 +1,189 @@
+package com.vodacom.customerregistration.api.service.dto;
+
+import com.vodacom.customerregistration.api.domain.SearchReindexJob;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A DTO for the {@link SearchReindexJob} entity, with the throughput and remaining time of the current run.
+ */
+public class SearchReindexJobDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private UUID id;
+
+    private String indexName;
+
+    private SearchReindexJob.Status status;
+
+    private String targetIndex;
+
+    private long total;
+
+    private long processed;
+
+    private long failed;
+
+    private Double docsPerSecond;
+
+    private Long etaSeconds;
+
+    private boolean cancelRequested;
+
+    private String error;
+
+    private Instant createdDate;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public SearchReindexJob.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(SearchReindexJob.Status status) {
+        this.status = status;
+    }
+
+    public String getTargetIndex() {
+        return targetIndex;
+    }
+
+    public void setTargetIndex(String targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public Double getDocsPerSecond() {
+        return docsPerSecond;
+    }
+
+    public void setDocsPerSecond(Double docsPerSecond) {
+        this.docsPerSecond = docsPerSecond;
+    }
+
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchReindexJobDTO)) {
+            return false;
+        }
+
+        SearchReindexJobDTO searchReindexJobDTO = (SearchReindexJobDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, searchReindexJobDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchReindexJobDTO{" +
+            "id=" + getId() +
+            ", indexName='" + getIndexName() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", total=" + getTotal() +
+            ", processed=" + getProcessed() +
+            ", failed=" + getFailed() +
+            "}";
+    }
+}
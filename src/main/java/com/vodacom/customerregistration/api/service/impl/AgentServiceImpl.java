@@ -5,15 +5,21 @@ import com.vodacom.customerregistration.api.domain.User;
 import com.vodacom.customerregistration.api.domain.enumeration.AgentStatus;
 import com.vodacom.customerregistration.api.repository.AgentRepository;
 import com.vodacom.customerregistration.api.repository.UserRepository;
+import com.vodacom.customerregistration.api.repository.search.CursorPage;
 import com.vodacom.customerregistration.api.repository.search.AgentSearchRepository;
 import com.vodacom.customerregistration.api.service.AgentService;
+import com.vodacom.customerregistration.api.service.AutocompleteIndexService;
 import com.vodacom.customerregistration.api.service.MailService;
+import com.vodacom.customerregistration.api.service.SearchIndexOutboxService;
+import com.vodacom.customerregistration.api.service.SearchReindexJobService;
+import com.vodacom.customerregistration.api.service.SearchResultCache;
 import com.vodacom.customerregistration.api.service.UserService;
 import com.vodacom.customerregistration.api.service.dto.AgentDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentDetailResponseDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentRegistrationDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentRegistrationResponseDTO;
 import com.vodacom.customerregistration.api.service.dto.AdminUserDTO;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
 import com.vodacom.customerregistration.api.web.rest.vm.ManagedUserVM;
 import com.vodacom.customerregistration.api.service.mapper.AgentMapper;
 import java.util.List;
@@ -22,9 +28,12 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -48,14 +57,28 @@ public class AgentServiceImpl implements AgentService {
 
     private final MailService mailService;
 
+    private final SearchIndexOutboxService searchIndexOutboxService;
+
+    private final SearchReindexJobService searchReindexJobService;
+
+    private final AutocompleteIndexService autocompleteIndexService;
+
+    private final SearchResultCache searchResultCache;
+
     public AgentServiceImpl(AgentRepository agentRepository, AgentMapper agentMapper, AgentSearchRepository agentSearchRepository,
-                           UserRepository userRepository, UserService userService, MailService mailService) {
+                           UserRepository userRepository, UserService userService, MailService mailService,
+                           SearchIndexOutboxService searchIndexOutboxService, SearchReindexJobService searchReindexJobService,
+                           AutocompleteIndexService autocompleteIndexService, SearchResultCache searchResultCache) {
         this.agentRepository = agentRepository;
         this.agentMapper = agentMapper;
         this.agentSearchRepository = agentSearchRepository;
         this.userRepository = userRepository;
         this.userService = userService;
         this.mailService = mailService;
+        this.searchIndexOutboxService = searchIndexOutboxService;
+        this.searchReindexJobService = searchReindexJobService;
+        this.autocompleteIndexService = autocompleteIndexService;
+        this.searchResultCache = searchResultCache;
     }
 
     @Override
@@ -63,20 +86,26 @@ public class AgentServiceImpl implements AgentService {
         LOG.debug("Request to save Agent : {}", agentDTO);
         Agent agent = agentMapper.toEntity(agentDTO);
         agent = agentRepository.save(agent);
-        agentSearchRepository.index(agent);
+        searchIndexOutboxService.enqueueIndex(agent);
+        autocompleteIndexService.index(agent);
+        searchResultCache.invalidate(SearchResultCache.Index.AGENT);
         return agentMapper.toDetailResponse(agent);
     }
 
     @Override
+    @CacheEvict(cacheNames = AGENT_DETAILS_CACHE, key = "#agentDTO.id")
     public AgentDetailResponseDTO update(AgentDTO agentDTO) {
         LOG.debug("Request to update Agent : {}", agentDTO);
         Agent agent = agentMapper.toEntity(agentDTO);
         agent = agentRepository.save(agent);
-        agentSearchRepository.index(agent);
+        searchIndexOutboxService.enqueueIndex(agent);
+        autocompleteIndexService.index(agent);
+        searchResultCache.invalidate(SearchResultCache.Index.AGENT);
         return agentMapper.toDetailResponse(agent);
     }
 
     @Override
+    @CacheEvict(cacheNames = AGENT_DETAILS_CACHE, key = "#agentDTO.id")
     public Optional<AgentDetailResponseDTO> partialUpdate(AgentDTO agentDTO) {
         LOG.debug("Request to partially update Agent : {}", agentDTO);
 
@@ -89,24 +118,29 @@ public class AgentServiceImpl implements AgentService {
             })
             .map(agentRepository::save)
             .map(savedAgent -> {
-                agentSearchRepository.index(savedAgent);
+                searchIndexOutboxService.enqueueIndex(savedAgent);
+                autocompleteIndexService.index(savedAgent);
+                searchResultCache.invalidate(SearchResultCache.Index.AGENT);
                 return savedAgent;
             })
             .map(agentMapper::toDetailResponse);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = AGENT_DETAILS_CACHE, unless = "#result == null")
     public Optional<AgentDetailResponseDTO> findOne(UUID id) {
         LOG.debug("Request to get Agent : {}", id);
         return agentRepository.findById(id).map(agentMapper::toDetailResponse);
     }
 
     @Override
+    @CacheEvict(cacheNames = AGENT_DETAILS_CACHE, key = "#id")
     public void delete(UUID id) {
         LOG.debug("Request to delete Agent : {}", id);
         agentRepository.deleteById(id);
-        agentSearchRepository.deleteFromIndexById(id);
+        searchIndexOutboxService.enqueueDelete(SearchIndexOutboxService.ENTITY_AGENT, id);
+        autocompleteIndexService.remove(AutocompleteIndexService.Dictionary.AGENT, id);
+        searchResultCache.invalidate(SearchResultCache.Index.AGENT);
     }
 
     @Override
@@ -124,7 +158,9 @@ public class AgentServiceImpl implements AgentService {
         agent.setUser(createdUser);
 
         agent = agentRepository.save(agent);
-        agentSearchRepository.index(agent);
+        searchIndexOutboxService.enqueueIndex(agent);
+        autocompleteIndexService.index(agent);
+        searchResultCache.invalidate(SearchResultCache.Index.AGENT);
 
         LOG.debug("Created Agent: {} for User: {}", agent.getId(), createdUser.getLogin());
 
@@ -164,49 +200,37 @@ public class AgentServiceImpl implements AgentService {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<AgentDetailResponseDTO> search(String query, Pageable pageable) {
+    public Page<AgentDetailResponseDTO> search(String query, boolean raw, Pageable pageable) {
         LOG.debug("Request to search for a page of Agents for query {}", query);
-        return agentSearchRepository.search(query, pageable).map(agentMapper::toDetailResponse);
+        return searchResultCache.get(
+            SearchResultCache.Index.AGENT,
+            query,
+            raw,
+            pageable,
+            () -> agentSearchRepository.search(query, raw, pageable).map(agentMapper::toDetailResponse)
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AgentDetailResponseDTO> search(String query, boolean raw, String cursor, int size) {
+        LOG.debug("Request to search for a cursor page of Agents for query {}", query);
+        return agentSearchRepository.search(query, raw, cursor, size).map(agentMapper::toDetailResponse);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<String> getAutocompleteSuggestions(String query, int limit) {
         LOG.debug("Request to get autocomplete suggestions for query: {}", query);
-        return agentSearchRepository.getAutocompleteSuggestions(query, limit);
+        return autocompleteIndexService
+            .suggest(AutocompleteIndexService.Dictionary.AGENT, query, limit)
+            .orElseGet(() -> agentSearchRepository.getAutocompleteSuggestions(query, limit));
     }
 
     @Override
-    @Transactional
-    public int reindexAllAgents() {
-        LOG.info("Starting reindexing of all agents from database to Elasticsearch");
-
-        try {
-            List<Agent> allAgents = agentRepository.findAll();
-            LOG.info("Found {} agents in database to reindex", allAgents.size());
-
-            if (allAgents.isEmpty()) {
-                return 0;
-            }
-
-            agentSearchRepository.deleteAll();
-
-            int reindexedCount = 0;
-            for (Agent agent : allAgents) {
-                try {
-                    agentSearchRepository.index(agent);
-                    reindexedCount++;
-                } catch (Exception e) {
-                    LOG.error("Failed to reindex agent ID: {}", agent.getId());
-                }
-            }
-
-            LOG.info("Successfully completed reindexing {} of {} agents", reindexedCount, allAgents.size());
-            return reindexedCount;
-
-        } catch (Exception e) {
-            LOG.error("Failed to reindex agents: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to reindex agents: " + e.getMessage(), e);
-        }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SearchReindexJobDTO reindexAllAgents() {
+        LOG.info("Starting a job to reindex all agents from database to Elasticsearch");
+        return searchReindexJobService.start(Agent.class);
     }
 }
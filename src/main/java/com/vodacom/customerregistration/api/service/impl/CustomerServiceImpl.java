@@ -2,10 +2,18 @@ package com.vodacom.customerregistration.api.service.impl;
 
 import com.vodacom.customerregistration.api.domain.Customer;
 import com.vodacom.customerregistration.api.repository.CustomerRepository;
+import com.vodacom.customerregistration.api.repository.KeysetCursors;
+import com.vodacom.customerregistration.api.repository.search.CursorPage;
 import com.vodacom.customerregistration.api.repository.search.CustomerSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.SearchPage;
+import com.vodacom.customerregistration.api.service.AutocompleteIndexService;
 import com.vodacom.customerregistration.api.service.CustomerService;
+import com.vodacom.customerregistration.api.service.SearchIndexOutboxService;
+import com.vodacom.customerregistration.api.service.SearchReindexJobService;
+import com.vodacom.customerregistration.api.service.SearchResultCache;
 import com.vodacom.customerregistration.api.service.dto.CustomerDTO;
 import com.vodacom.customerregistration.api.service.dto.CustomerResponseDTO;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
 import com.vodacom.customerregistration.api.service.mapper.CustomerMapper;
 import java.util.List;
 import java.util.Optional;
@@ -13,9 +21,14 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -27,20 +40,38 @@ public class CustomerServiceImpl implements CustomerService {
 
     private static final Logger LOG = LoggerFactory.getLogger(CustomerServiceImpl.class);
 
+    private static final Sort REGISTERED_BY_SORT = Sort.by(Sort.Direction.DESC, "createdDate");
+
     private final CustomerRepository customerRepository;
 
     private final CustomerMapper customerMapper;
 
     private final CustomerSearchRepository customerSearchRepository;
 
+    private final SearchIndexOutboxService searchIndexOutboxService;
+
+    private final SearchReindexJobService searchReindexJobService;
+
+    private final AutocompleteIndexService autocompleteIndexService;
+
+    private final SearchResultCache searchResultCache;
+
     public CustomerServiceImpl(
         CustomerRepository customerRepository,
         CustomerMapper customerMapper,
-        CustomerSearchRepository customerSearchRepository
+        CustomerSearchRepository customerSearchRepository,
+        SearchIndexOutboxService searchIndexOutboxService,
+        SearchReindexJobService searchReindexJobService,
+        AutocompleteIndexService autocompleteIndexService,
+        SearchResultCache searchResultCache
     ) {
         this.customerRepository = customerRepository;
         this.customerMapper = customerMapper;
         this.customerSearchRepository = customerSearchRepository;
+        this.searchIndexOutboxService = searchIndexOutboxService;
+        this.searchReindexJobService = searchReindexJobService;
+        this.autocompleteIndexService = autocompleteIndexService;
+        this.searchResultCache = searchResultCache;
     }
 
     @Override
@@ -48,7 +79,9 @@ public class CustomerServiceImpl implements CustomerService {
         LOG.debug("Request to save Customer : {}", customerDTO);
         Customer customer = customerMapper.toEntity(customerDTO);
         customer = customerRepository.save(customer);
-        customerSearchRepository.index(customer);
+        searchIndexOutboxService.enqueueIndex(customer);
+        autocompleteIndexService.index(customer);
+        searchResultCache.invalidate(SearchResultCache.Index.CUSTOMER);
         return customerMapper.toDto(customer);
     }
 
@@ -57,7 +90,9 @@ public class CustomerServiceImpl implements CustomerService {
         LOG.debug("Request to save Customer with audit fields : {}", customerDTO);
         Customer customer = customerMapper.toEntity(customerDTO);
         customer = customerRepository.save(customer);
-        customerSearchRepository.index(customer);
+        searchIndexOutboxService.enqueueIndex(customer);
+        autocompleteIndexService.index(customer);
+        searchResultCache.invalidate(SearchResultCache.Index.CUSTOMER);
         return customerMapper.toResponseDto(customer);
     }
 
@@ -66,7 +101,9 @@ public class CustomerServiceImpl implements CustomerService {
         LOG.debug("Request to update Customer : {}", customerDTO);
         Customer customer = customerMapper.toEntity(customerDTO);
         customer = customerRepository.save(customer);
-        customerSearchRepository.index(customer);
+        searchIndexOutboxService.enqueueIndex(customer);
+        autocompleteIndexService.index(customer);
+        searchResultCache.invalidate(SearchResultCache.Index.CUSTOMER);
         return customerMapper.toDto(customer);
     }
 
@@ -75,7 +112,9 @@ public class CustomerServiceImpl implements CustomerService {
         LOG.debug("Request to update Customer with audit fields : {}", customerDTO);
         Customer customer = customerMapper.toEntity(customerDTO);
         customer = customerRepository.save(customer);
-        customerSearchRepository.index(customer);
+        searchIndexOutboxService.enqueueIndex(customer);
+        autocompleteIndexService.index(customer);
+        searchResultCache.invalidate(SearchResultCache.Index.CUSTOMER);
         return customerMapper.toResponseDto(customer);
     }
 
@@ -92,7 +131,9 @@ public class CustomerServiceImpl implements CustomerService {
             })
             .map(customerRepository::save)
             .map(savedCustomer -> {
-                customerSearchRepository.index(savedCustomer);
+                searchIndexOutboxService.enqueueIndex(savedCustomer);
+                autocompleteIndexService.index(savedCustomer);
+                searchResultCache.invalidate(SearchResultCache.Index.CUSTOMER);
                 return savedCustomer;
             })
             .map(customerMapper::toDto);
@@ -111,7 +152,9 @@ public class CustomerServiceImpl implements CustomerService {
             })
             .map(customerRepository::save)
             .map(savedCustomer -> {
-                customerSearchRepository.index(savedCustomer);
+                searchIndexOutboxService.enqueueIndex(savedCustomer);
+                autocompleteIndexService.index(savedCustomer);
+                searchResultCache.invalidate(SearchResultCache.Index.CUSTOMER);
                 return savedCustomer;
             })
             .map(customerMapper::toResponseDto);
@@ -131,70 +174,68 @@ public class CustomerServiceImpl implements CustomerService {
         return customerRepository.findById(id).map(customerMapper::toResponseDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CustomerResponseDTO> findRegisteredBy(String createdBy, Pageable pageable) {
+        LOG.debug("Request to get Customers registered by : {}", createdBy);
+        return customerRepository.findByCreatedByOrderByCreatedDateDesc(createdBy, pageable).map(customerMapper::toResponseDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CustomerResponseDTO> findRegisteredBy(String createdBy, String cursor, int size) {
+        LOG.debug("Request to get a cursor page of Customers registered by : {}", createdBy);
+        String queryKey = "createdBy=" + createdBy;
+        ScrollPosition position = KeysetCursors.position(Customer.class, queryKey, REGISTERED_BY_SORT, cursor);
+        Window<Customer> window = customerRepository.findByCreatedByOrderByCreatedDateDesc(createdBy, position, Limit.of(size));
+        return new CursorPage<>(
+            window.map(customerMapper::toResponseDto).getContent(),
+            KeysetCursors.nextCursor(window, queryKey, REGISTERED_BY_SORT)
+        );
+    }
+
     @Override
     public void delete(UUID id) {
         LOG.debug("Request to delete Customer : {}", id);
         customerRepository.deleteById(id);
-        customerSearchRepository.deleteFromIndexById(id);
+        searchIndexOutboxService.enqueueDelete(SearchIndexOutboxService.ENTITY_CUSTOMER, id);
+        autocompleteIndexService.remove(AutocompleteIndexService.Dictionary.CUSTOMER, id);
+        searchResultCache.invalidate(SearchResultCache.Index.CUSTOMER);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<CustomerDTO> search(String query, Pageable pageable) {
+    public SearchPage<CustomerDTO> search(String query, boolean raw, Pageable pageable) {
         LOG.debug("Request to search for a page of Customers for query {}", query);
-        return customerSearchRepository.search(query, pageable).map(customerMapper::toDto);
+        return searchResultCache.get(
+            SearchResultCache.Index.CUSTOMER,
+            query,
+            raw,
+            pageable,
+            () -> customerSearchRepository.search(query, raw, pageable).map(customerMapper::toDto)
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CustomerDTO> search(String query, boolean raw, String cursor, int size) {
+        LOG.debug("Request to search for a cursor page of Customers for query {}", query);
+        return customerSearchRepository.search(query, raw, cursor, size).map(customerMapper::toDto);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<String> getAutocompleteSuggestions(String query, int limit) {
         LOG.debug("Request to get autocomplete suggestions for query: {}", query);
-        return customerSearchRepository.getAutocompleteSuggestions(query, limit);
+        return autocompleteIndexService
+            .suggest(AutocompleteIndexService.Dictionary.CUSTOMER, query, limit)
+            .orElseGet(() -> customerSearchRepository.getAutocompleteSuggestions(query, limit));
     }
 
     @Override
-    @Transactional
-    public int reindexAllCustomers() {
-        LOG.info("Starting reindexing of all customers from database to Elasticsearch");
-
-        try {
-            // Get all customers from database
-            List<Customer> allCustomers = customerRepository.findAll();
-            LOG.info("Found {} customers in database to reindex", allCustomers.size());
-
-            if (allCustomers.isEmpty()) {
-                LOG.info("No customers found in database to reindex");
-                return 0;
-            }
-
-            // Clear existing Elasticsearch index
-            LOG.info("Clearing existing Elasticsearch index...");
-            customerSearchRepository.deleteAll();
-
-            // Reindex all customers
-            int reindexedCount = 0;
-            for (Customer customer : allCustomers) {
-                try {
-                    LOG.debug("Reindexing customer ID: {} - '{} {}'", customer.getId(), customer.getFirstName(), customer.getLastName());
-                    customerSearchRepository.index(customer);
-                    reindexedCount++;
-
-                    // Log progress every 100 customers
-                    if (reindexedCount % 100 == 0) {
-                        LOG.info("Reindexed {} of {} customers", reindexedCount, allCustomers.size());
-                    }
-                } catch (Exception e) {
-                    LOG.error("Failed to reindex customer ID: {} - Error: {}", customer.getId(), e.getMessage());
-                    // Continue with other customers even if one fails
-                }
-            }
-
-            LOG.info("✓ Successfully completed reindexing {} of {} customers", reindexedCount, allCustomers.size());
-            return reindexedCount;
-
-        } catch (Exception e) {
-            LOG.error("✗ Failed to reindex customers: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to reindex customers: " + e.getMessage(), e);
-        }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SearchReindexJobDTO reindexAllCustomers() {
+        LOG.info("Starting a job to reindex all customers from database to Elasticsearch");
+        return searchReindexJobService.start(Customer.class);
     }
 }
@@ -1,6 +1,7 @@
 package com.vodacom.customerregistration.api.service.mapper;
 
 import com.vodacom.customerregistration.api.domain.Agent;
+import com.vodacom.customerregistration.api.repository.search.AgentSearchHit;
 import com.vodacom.customerregistration.api.service.dto.AgentDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentDetailResponseDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentRegistrationDTO;
@@ -58,6 +59,41 @@ public interface AgentMapper extends EntityMapper<AgentDTO, Agent> {
         return new AgentDetailResponseDTO(userDTO, agentResponseDTO);
     }
 
+    AgentResponseDTO toResponseDto(AgentSearchHit hit);
+
+    default AgentDetailResponseDTO toDetailResponse(AgentSearchHit hit) {
+        if (hit == null) {
+            return null;
+        }
+        return new AgentDetailResponseDTO(toAdminUserDTO(hit.getUser()), toResponseDto(hit));
+    }
+
+    default AdminUserDTO toAdminUserDTO(AgentSearchHit.User user) {
+        if (user == null) {
+            return null;
+        }
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setId(user.getId());
+        userDTO.setLogin(user.getLogin());
+        userDTO.setFirstName(user.getFirstName());
+        userDTO.setLastName(user.getLastName());
+        userDTO.setEmail(user.getEmail());
+        userDTO.setPhoneNumber(user.getPhoneNumber());
+        userDTO.setImageUrl(user.getImageUrl());
+        userDTO.setActivated(user.isActivated());
+        userDTO.setLangKey(user.getLangKey());
+        userDTO.setCreatedBy(user.getCreatedBy());
+        userDTO.setCreatedDate(user.getCreatedDate());
+        userDTO.setLastModifiedBy(user.getLastModifiedBy());
+        userDTO.setLastModifiedDate(user.getLastModifiedDate());
+        if (user.getAuthorities() != null) {
+            userDTO.setAuthorities(
+                user.getAuthorities().stream().map(AgentSearchHit.Authority::getName).collect(java.util.stream.Collectors.toSet())
+            );
+        }
+        return userDTO;
+    }
+
     default AgentRegistrationResponseDTO toRegistrationResponse(AdminUserDTO userDTO, Agent agent) {
         if (agent == null || userDTO == null) {
             return null;
@@ -1,6 +1,7 @@
 package com.vodacom.customerregistration.api.service.mapper;
 
 import com.vodacom.customerregistration.api.domain.Customer;
+import com.vodacom.customerregistration.api.repository.search.CustomerSearchHit;
 import com.vodacom.customerregistration.api.service.dto.CustomerDTO;
 import com.vodacom.customerregistration.api.service.dto.CustomerResponseDTO;
 import org.mapstruct.*;
@@ -14,5 +15,7 @@ public interface CustomerMapper extends EntityMapper<CustomerDTO, Customer> {
     
     CustomerResponseDTO toResponseDto(Customer customer);
 
+    CustomerDTO toDto(CustomerSearchHit hit);
+
     Customer toEntity(CustomerDTO customerDTO);
 }
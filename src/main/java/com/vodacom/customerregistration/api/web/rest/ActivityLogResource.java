@@ -1,8 +1,16 @@
 package com.vodacom.customerregistration.api.web.rest;
 
 import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.repository.search.InvalidSearchQueryException;
+import com.vodacom.customerregistration.api.repository.search.SearchBackend;
+import com.vodacom.customerregistration.api.repository.search.SearchPage;
 import com.vodacom.customerregistration.api.service.ActivityLogService;
+import com.vodacom.customerregistration.api.service.ReindexJobAlreadyRunningException;
+import com.vodacom.customerregistration.api.service.dto.ActivityCountsDTO;
 import com.vodacom.customerregistration.api.service.dto.ActivityLogDTO;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
+import com.vodacom.customerregistration.api.web.rest.errors.BadRequestAlertException;
+import com.vodacom.customerregistration.api.web.rest.errors.ElasticsearchExceptionMapper;
 import com.vodacom.customerregistration.api.web.rest.util.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,6 +25,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -25,7 +34,10 @@ import tech.jhipster.web.util.PaginationUtil;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Tag(name = "Activity Log", description = "APIs for accessing agent activity logs and audit trail")
 @RestController
@@ -34,6 +46,10 @@ public class ActivityLogResource {
 
     private static final Logger LOG = LoggerFactory.getLogger(ActivityLogResource.class);
 
+    private static final String ENTITY_NAME = "activityLog";
+
+    private static final String SEARCH_BACKEND_HEADER = "X-Search-Backend";
+
     private final ActivityLogService activityLogService;
 
     public ActivityLogResource(ActivityLogService activityLogService) {
@@ -93,18 +109,31 @@ public class ActivityLogResource {
     }
 
     @Operation(summary = "Search activity logs",
-        description = "Search through activity logs by description or entity type")
+        description = "Full-text search through the current agent's activity logs by description, entity type or error " +
+            "message, optionally filtered by action type and date range. Most recent first unless sorted.")
     @GetMapping("/me/search")
     public ResponseEntity<List<ActivityLogDTO>> searchMyActivityLogs(
-        @Parameter(description = "Search term to look for in description or entity type", example = "customer registration")
-        @RequestParam String searchTerm,
+        @Parameter(description = "Search text; omit to only filter", example = "customer registration")
+        @RequestParam(required = false) String searchTerm,
+        @Parameter(description = "Type of action to filter by", example = "CUSTOMER_REGISTERED")
+        @RequestParam(required = false) ActivityLog.ActionType actionType,
+        @Parameter(description = "Start date (inclusive)", example = "2024-01-01")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+        @Parameter(description = "End date (inclusive)", example = "2024-01-31")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
         @Parameter(description = "Pagination parameters")
         @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
 
         LOG.debug("REST request to search activity logs with term: {}", searchTerm);
 
-        Page<ActivityLogDTO> page = activityLogService.findByCurrentUserAndSearch(searchTerm, pageable);
+        SearchPage<ActivityLogDTO> page;
+        try {
+            page = activityLogService.searchCurrentUser(searchTerm, actionType, startOf(startDate), endOf(endDate), pageable);
+        } catch (InvalidSearchQueryException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "invalidquery");
+        }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        headers.add(SEARCH_BACKEND_HEADER, page.getBackend().name().toLowerCase(Locale.ROOT));
 
         return ResponseEntity.ok()
             .headers(headers)
@@ -141,17 +170,18 @@ public class ActivityLogResource {
     public ResponseEntity<ApiResponse<ActivityStatsDTO>> getMyActivityStats() {
         LOG.debug("REST request to get activity statistics");
 
-        Instant now = Instant.now();
-        Instant dayAgo = now.minusSeconds(24 * 60 * 60);
-        Instant weekAgo = now.minusSeconds(7 * 24 * 60 * 60);
-        Instant monthAgo = now.minusSeconds(30L * 24 * 60 * 60);
+        Map<ActivityLog.ActionType, ActivityCountsDTO> counts = activityLogService.countRecentActivitiesOfCurrentUser(
+            EnumSet.of(ActivityLog.ActionType.CUSTOMER_REGISTERED, ActivityLog.ActionType.AGENT_LOGIN)
+        );
+        ActivityCountsDTO customersRegistered = counts.get(ActivityLog.ActionType.CUSTOMER_REGISTERED);
+        ActivityCountsDTO logins = counts.get(ActivityLog.ActionType.AGENT_LOGIN);
 
         ActivityStatsDTO stats = new ActivityStatsDTO();
-        stats.setCustomersRegisteredToday(activityLogService.countActivitiesByTypeAndSince(ActivityLog.ActionType.CUSTOMER_REGISTERED, dayAgo));
-        stats.setCustomersRegisteredThisWeek(activityLogService.countActivitiesByTypeAndSince(ActivityLog.ActionType.CUSTOMER_REGISTERED, weekAgo));
-        stats.setCustomersRegisteredThisMonth(activityLogService.countActivitiesByTypeAndSince(ActivityLog.ActionType.CUSTOMER_REGISTERED, monthAgo));
-        stats.setLoginsToday(activityLogService.countActivitiesByTypeAndSince(ActivityLog.ActionType.AGENT_LOGIN, dayAgo));
-        stats.setLoginsThisWeek(activityLogService.countActivitiesByTypeAndSince(ActivityLog.ActionType.AGENT_LOGIN, weekAgo));
+        stats.setCustomersRegisteredToday(customersRegistered.lastDay());
+        stats.setCustomersRegisteredThisWeek(customersRegistered.lastWeek());
+        stats.setCustomersRegisteredThisMonth(customersRegistered.lastMonth());
+        stats.setLoginsToday(logins.lastDay());
+        stats.setLoginsThisWeek(logins.lastWeek());
 
         return ResponseEntity.ok().body(ApiResponse.success("Activity statistics retrieved successfully", stats));
     }
@@ -223,23 +253,52 @@ public class ActivityLogResource {
                 .body(ApiResponse.success("Activity logs by action type retrieved successfully", page));
     }
 
-    @Operation(summary = "Search all activity logs (Admin)", 
-               description = "Admin endpoint to search across all activity logs by description or entity type.")
+    @Operation(summary = "Search all activity logs (Admin)",
+               description = "Admin endpoint for full-text search across all activity logs by description, entity type or " +
+                   "error message, optionally filtered by user, action type and date range. Most recent first unless sorted.")
     @GetMapping("/admin/search")
     public ResponseEntity<ApiResponse<Page<ActivityLogDTO>>> searchAllActivityLogs(
-            @Parameter(description = "Search term to look for in description or entity type", example = "agent registration")
-            @RequestParam String searchTerm,
+            @Parameter(description = "Search text; omit to only filter", example = "agent registration")
+            @RequestParam(required = false) String searchTerm,
+            @Parameter(description = "Login of the user who performed the actions", example = "admin")
+            @RequestParam(required = false) String username,
+            @Parameter(description = "Type of action to filter by", example = "AGENT_REGISTERED")
+            @RequestParam(required = false) ActivityLog.ActionType actionType,
+            @Parameter(description = "Start date (inclusive)", example = "2024-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (inclusive)", example = "2024-01-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @Parameter(description = "Pagination parameters")
             @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
-        
+
         LOG.debug("Admin request to search all activity logs with term: {}", searchTerm);
-        
-        Page<ActivityLogDTO> page = activityLogService.searchAll(searchTerm, pageable);
+
+        SearchPage<ActivityLogDTO> page;
+        try {
+            page = activityLogService.search(searchTerm, username, actionType, startOf(startDate), endOf(endDate), pageable);
+        } catch (InvalidSearchQueryException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+        }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        
+        headers.add(SEARCH_BACKEND_HEADER, page.getBackend().name().toLowerCase(Locale.ROOT));
+
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(ApiResponse.success("Activity logs search completed successfully", page));
+                .body(ApiResponse.success(searchMessage(page), page));
+    }
+
+    private static String searchMessage(SearchPage<?> page) {
+        return page.getBackend() == SearchBackend.ELASTICSEARCH
+            ? "Activity logs search completed successfully"
+            : "Activity logs search completed from the database while the search service is unavailable";
+    }
+
+    private static Instant startOf(LocalDate date) {
+        return date != null ? date.atStartOfDay().toInstant(ZoneOffset.UTC) : null;
+    }
+
+    private static Instant endOf(LocalDate date) {
+        return date != null ? date.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC) : null;
     }
 
     @Operation(summary = "Get system-wide activity statistics (Admin)", 
@@ -248,21 +307,23 @@ public class ActivityLogResource {
     public ResponseEntity<ApiResponse<SystemActivityStatsDTO>> getSystemActivityStats() {
         LOG.debug("Admin request to get system-wide activity statistics");
         
-        Instant now = Instant.now();
-        Instant dayAgo = now.minusSeconds(24 * 60 * 60);
-        Instant weekAgo = now.minusSeconds(7 * 24 * 60 * 60);
-        Instant monthAgo = now.minusSeconds(30L * 24 * 60 * 60);
-        
+        Map<ActivityLog.ActionType, ActivityCountsDTO> counts = activityLogService.countRecentActivities(
+            EnumSet.of(ActivityLog.ActionType.AGENT_REGISTERED, ActivityLog.ActionType.CUSTOMER_REGISTERED, ActivityLog.ActionType.AGENT_LOGIN)
+        );
+        ActivityCountsDTO agentsRegistered = counts.get(ActivityLog.ActionType.AGENT_REGISTERED);
+        ActivityCountsDTO customersRegistered = counts.get(ActivityLog.ActionType.CUSTOMER_REGISTERED);
+        ActivityCountsDTO logins = counts.get(ActivityLog.ActionType.AGENT_LOGIN);
+
         SystemActivityStatsDTO stats = new SystemActivityStatsDTO();
-        stats.setTotalAgentsRegisteredToday(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.AGENT_REGISTERED, dayAgo));
-        stats.setTotalAgentsRegisteredThisWeek(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.AGENT_REGISTERED, weekAgo));
-        stats.setTotalAgentsRegisteredThisMonth(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.AGENT_REGISTERED, monthAgo));
-        stats.setTotalCustomersRegisteredToday(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.CUSTOMER_REGISTERED, dayAgo));
-        stats.setTotalCustomersRegisteredThisWeek(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.CUSTOMER_REGISTERED, weekAgo));
-        stats.setTotalCustomersRegisteredThisMonth(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.CUSTOMER_REGISTERED, monthAgo));
-        stats.setTotalLoginsToday(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.AGENT_LOGIN, dayAgo));
-        stats.setTotalLoginsThisWeek(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.AGENT_LOGIN, weekAgo));
-        stats.setTotalLoginsThisMonth(activityLogService.countByActionTypeAndSince(ActivityLog.ActionType.AGENT_LOGIN, monthAgo));
+        stats.setTotalAgentsRegisteredToday(agentsRegistered.lastDay());
+        stats.setTotalAgentsRegisteredThisWeek(agentsRegistered.lastWeek());
+        stats.setTotalAgentsRegisteredThisMonth(agentsRegistered.lastMonth());
+        stats.setTotalCustomersRegisteredToday(customersRegistered.lastDay());
+        stats.setTotalCustomersRegisteredThisWeek(customersRegistered.lastWeek());
+        stats.setTotalCustomersRegisteredThisMonth(customersRegistered.lastMonth());
+        stats.setTotalLoginsToday(logins.lastDay());
+        stats.setTotalLoginsThisWeek(logins.lastWeek());
+        stats.setTotalLoginsThisMonth(logins.lastMonth());
         
         return ResponseEntity.ok().body(ApiResponse.success("System activity statistics retrieved successfully", stats));
     }
@@ -291,6 +352,33 @@ public class ActivityLogResource {
                 .body(ApiResponse.success("Activity logs by date range retrieved successfully", page));
     }
 
+    @Operation(summary = "Reindex all activity logs (Admin)",
+               description = "Admin endpoint starting a background job that indexes every activity log into the Elasticsearch index of its month. Follow its progress with GET /api/v1/admin/reindex-jobs/{id}.")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202",
+            description = "Reindex job started"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409",
+            description = "An activity log reindex job is already running"
+        )
+    })
+    @PostMapping("/admin/_reindex")
+    public ResponseEntity<ApiResponse<SearchReindexJobDTO>> reindexActivityLogs() {
+        LOG.info("Admin request to reindex all activity logs to Elasticsearch");
+        try {
+            SearchReindexJobDTO job = activityLogService.reindexAll();
+            LOG.info("Started activity log reindex job {}", job.getId());
+            return ResponseEntity.accepted().body(ApiResponse.success("Activity log reindex job started", job));
+        } catch (ReindexJobAlreadyRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.conflict(e.getMessage()));
+        } catch (RuntimeException e) {
+            LOG.error("Failed to reindex activity logs: {}", e.getMessage(), e);
+            throw ElasticsearchExceptionMapper.mapException(e);
+        }
+    }
+
     public static class SystemActivityStatsDTO {
         private long totalAgentsRegisteredToday;
         private long totalAgentsRegisteredThisWeek;
@@ -2,14 +2,21 @@ package com.vodacom.customerregistration.api.web.rest;
 
 import com.vodacom.customerregistration.api.domain.ActivityLog;
 import com.vodacom.customerregistration.api.repository.AgentRepository;
+import com.vodacom.customerregistration.api.repository.search.CursorPage;
+import com.vodacom.customerregistration.api.repository.search.InvalidSearchCursorException;
+import com.vodacom.customerregistration.api.repository.search.InvalidSearchQueryException;
+import com.vodacom.customerregistration.api.security.AuthoritiesConstants;
+import com.vodacom.customerregistration.api.security.SecurityUtils;
 import com.vodacom.customerregistration.api.service.ActivityLogService;
 import com.vodacom.customerregistration.api.service.AgentQueryService;
 import com.vodacom.customerregistration.api.service.AgentService;
+import com.vodacom.customerregistration.api.service.ReindexJobAlreadyRunningException;
 import com.vodacom.customerregistration.api.service.criteria.AgentCriteria;
 import com.vodacom.customerregistration.api.service.dto.AgentDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentDetailResponseDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentRegistrationDTO;
 import com.vodacom.customerregistration.api.service.dto.AgentRegistrationResponseDTO;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
 import com.vodacom.customerregistration.api.web.rest.errors.BadRequestAlertException;
 import com.vodacom.customerregistration.api.web.rest.errors.ElasticsearchExceptionMapper;
 import com.vodacom.customerregistration.api.web.rest.util.ApiResponse;
@@ -27,7 +34,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -53,6 +62,13 @@ public class AgentResource {
 
     private static final String ENTITY_NAME = "agent";
 
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    /** Non-null columns cursor paging can seek on; a null sort key would end the scroll early. */
+    private static final List<String> KEYSET_ORDERED_PROPERTIES = List.of("id", "phoneNumber", "status", "createdDate");
+
+    private static final String KEYSET_ORDERED_PROPERTIES_DESCRIPTION = "id, phoneNumber, status or createdDate";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -312,8 +328,11 @@ public class AgentResource {
     /**
      * {@code GET  /agents} : get all the agents.
      *
-     * @param pageable the pagination information.
+     * @param pageable the pagination information; in cursor mode only the size and sort are used.
      * @param criteria the criteria which the requested entities should match.
+     * @param cursor   {@code *} to start keyset paging, or the {@code nextCursor} of the previous page;
+     *                 without it the list is offset paged.
+     * @param count    in cursor mode, also count the matching agents into the {@code X-Total-Count} header.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of agents in body.
      */
     @Operation(summary = "Get all agents with filtering", description = "Retrieve all agents with optional filtering and pagination. Supports complex filtering by various agent attributes including location data.", tags = {"Agent Management"})
@@ -348,16 +367,29 @@ public class AgentResource {
         }
         """)))})
     @GetMapping("")
-    public ResponseEntity<ApiResponse<List<AgentDetailResponseDTO>>> getAllAgents(@Parameter(description = "Filtering criteria for agents. Supports filtering by firstName, lastName, email, phoneNumber, region, district, ward, and userId.", example = "firstName.contains=John&region.equals=Dar es Salaam") AgentCriteria criteria, @Parameter(description = "Pagination and sorting parameters", example = "page=0&size=20&sort=firstName,asc") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<ApiResponse<List<AgentDetailResponseDTO>>> getAllAgents(@Parameter(description = "Filtering criteria for agents. Supports filtering by firstName, lastName, email, phoneNumber, region, district, ward, and userId.", example = "firstName.contains=John&region.equals=Dar es Salaam") AgentCriteria criteria, @Parameter(description = "Cursor paging: pass * for the first page, then the nextCursor of the previous response. Ignores page; sorts newest first unless sorted by " + KEYSET_ORDERED_PROPERTIES_DESCRIPTION + ".", example = "*") @RequestParam(value = "cursor", required = false) String cursor, @Parameter(description = "In cursor mode, also return the number of matching agents in the X-Total-Count header", example = "false") @RequestParam(value = "count", defaultValue = "false") boolean count, @Parameter(description = "Pagination and sorting parameters", example = "page=0&size=20&sort=firstName,asc") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
         LOG.debug("REST request to get Agents by criteria: {}", criteria);
 
-        Page<AgentDTO> page = agentQueryService.findByCriteria(criteria, pageable);
-
-        // Convert AgentDTO to AgentDetailResponseDTO to include user data and remove redundancy
-        List<AgentDetailResponseDTO> agentDetails = page.getContent().stream().map(agentDTO -> agentService.findOne(agentDTO.getId()).orElse(null)).filter(agentDetail -> agentDetail != null).toList();
+        if (cursor != null) {
+            if (!onlyContainsKeysetProperties(pageable)) {
+                return ResponseEntity.badRequest().body(ApiResponse.badRequest("Cursor paging can only sort by " + KEYSET_ORDERED_PROPERTIES_DESCRIPTION));
+            }
+            try {
+                CursorPage<AgentDetailResponseDTO> page = agentQueryService.findDetailsByCriteria(criteria, pageable.getSort(), "*".equals(cursor) ? null : cursor, pageable.getPageSize());
+                HttpHeaders headers = new HttpHeaders();
+                if (count) {
+                    headers.add(TOTAL_COUNT_HEADER, Long.toString(agentQueryService.countByCriteria(criteria)));
+                }
+                ApiResponse<List<AgentDetailResponseDTO>> response = ApiResponse.success("Agents retrieved successfully", page.content());
+                return ResponseEntity.ok().headers(headers).body(response.withNextCursor(page.nextCursor()));
+            } catch (InvalidSearchCursorException e) {
+                return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+            }
+        }
 
+        Page<AgentDetailResponseDTO> page = agentQueryService.findDetailsByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return ResponseEntity.ok().headers(headers).body(ApiResponse.success("Agents retrieved successfully", agentDetails));
+        return ResponseEntity.ok().headers(headers).body(ApiResponse.success("Agents retrieved successfully", page.getContent()));
     }
 
     /**
@@ -520,7 +552,10 @@ public class AgentResource {
      * to the query.
      *
      * @param query    the query of the agent search.
-     * @param pageable the pagination information.
+     * @param raw      parse the query as {@code query_string} syntax instead of a structured query; administrators only.
+     * @param cursor   {@code *} to start cursor paging, or the {@code nextCursor} of the previous page;
+     *                 without it the search is offset paged.
+     * @param pageable the pagination information; in cursor mode only the size is used.
      * @return the result of the search.
      */
     @Operation(summary = "Search agents using Elasticsearch", description = "Full-text search across agent data using Elasticsearch. Searches firstName, lastName, email, phoneNumber, and location fields.", tags = {"Agent Management"})
@@ -549,15 +584,25 @@ public class AgentResource {
         }
         """)))})
     @GetMapping("/_search")
-    public ResponseEntity<ApiResponse<List<AgentDetailResponseDTO>>> searchAgents(@Parameter(description = "Search query string. Searches across agent names, email, phone, and location fields.", required = true, example = "john kinondoni") @RequestParam("query") String query, @Parameter(description = "Pagination parameters for search results", example = "page=0&size=10&sort=firstName,asc") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<ApiResponse<List<AgentDetailResponseDTO>>> searchAgents(@Parameter(description = "Search query string. Searches across agent names, email, phone, and location fields.", required = true, example = "john kinondoni") @RequestParam("query") String query, @Parameter(description = "Parse the query as Elasticsearch query_string syntax instead of a structured query. Administrators only.", example = "false") @RequestParam(value = "raw", defaultValue = "false") boolean raw, @Parameter(description = "Cursor paging: pass * for the first page, then the nextCursor of the previous response. Pages by relevance and ignores page and sort.", example = "*") @RequestParam(value = "cursor", required = false) String cursor, @Parameter(description = "Pagination parameters for search results", example = "page=0&size=10&sort=firstName,asc") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
         LOG.debug("REST request to search for a page of Agents for query {}", query);
+        if (raw && !SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.forbidden("Raw query_string search is restricted to administrators"));
+        }
         try {
-            Page<AgentDetailResponseDTO> page = agentService.search(query, pageable);
+            if (cursor != null) {
+                CursorPage<AgentDetailResponseDTO> page = agentService.search(query, raw, "*".equals(cursor) ? null : cursor, pageable.getPageSize());
+                ApiResponse<List<AgentDetailResponseDTO>> response = ApiResponse.success("Agent search completed successfully", page.content());
+                return ResponseEntity.ok().body(response.withNextCursor(page.nextCursor()));
+            }
+            Page<AgentDetailResponseDTO> page = agentService.search(query, raw, pageable);
             HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
 
             ApiResponse<List<AgentDetailResponseDTO>> response = ApiResponse.success("Agent search completed successfully", page.getContent());
 
             return ResponseEntity.ok().headers(headers).body(response);
+        } catch (InvalidSearchCursorException | InvalidSearchQueryException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
         } catch (RuntimeException e) {
             throw ElasticsearchExceptionMapper.mapException(e);
         }
@@ -691,37 +736,52 @@ public class AgentResource {
 //    }
 
     /**
-     * {@code POST  /agents/_reindex} : Reindex all agents from database to Elasticsearch.
+     * {@code POST  /agents/_reindex} : Start a background job reindexing all agents from database to Elasticsearch.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and reindexing result.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the started job, or with status
+     * {@code 409 (Conflict)} if an agent reindex job is already running.
      */
-    @Operation(summary = "Reindex all agents to Elasticsearch", description = "Rebuild the Elasticsearch index for all agents from the database. Use this when search functionality is not working correctly or after data migrations. This operation may take some time for large datasets.", tags = {"Agent Management"})
-    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Agent reindexing completed successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class, subTypes = {AgentDetailResponseDTO.class}), examples = @ExampleObject(name = "Reindexing completed", value = """
+    @Operation(summary = "Reindex all agents to Elasticsearch", description = "Start a background job rebuilding the Elasticsearch index for all agents from the database. Use this when search functionality is not working correctly or after data migrations. The request returns immediately; follow the job with GET /api/v1/admin/reindex-jobs/{id}.", tags = {"Agent Management"})
+    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Agent reindex job started", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class, subTypes = {SearchReindexJobDTO.class}), examples = @ExampleObject(name = "Reindex job started", value = """
         {
             "status": "SUCCESS",
-            "message": "Agent reindexing completed successfully",
-            "data": "Successfully reindexed 150 agents to Elasticsearch"
+            "message": "Agent reindex job started",
+            "data": {
+                "id": "4b0f3c1e-8d2a-4f7e-9a51-2c6d8e0b7f13",
+                "indexName": "agent",
+                "status": "RUNNING",
+                "targetIndex": "agent_v3",
+                "total": 150,
+                "processed": 0,
+                "failed": 0,
+                "cancelRequested": false
+            }
         }
-        """))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Elasticsearch reindexing failed", content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Reindexing error", value = """
+        """))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "An agent reindex job is already running", content = @Content(mediaType = "application/json", examples = @ExampleObject(name = "Job already running", value = """
         {
-            "error": "Internal Server Error",
-            "message": "Failed to reindex agents: Elasticsearch cluster unavailable"
+            "status": "CONFLICT",
+            "message": "A reindex job is already running for index agent!"
         }
         """)))})
     @PostMapping("/_reindex")
-    public ResponseEntity<ApiResponse<String>> reindexAgents() {
+    public ResponseEntity<ApiResponse<SearchReindexJobDTO>> reindexAgents() {
         LOG.info("REST request to reindex all agents to Elasticsearch");
         try {
-            int reindexedCount = agentService.reindexAllAgents();
-            String message = String.format("Successfully reindexed %d agents to Elasticsearch", reindexedCount);
-            LOG.info(message);
+            SearchReindexJobDTO job = agentService.reindexAllAgents();
+            LOG.info("Started agent reindex job {}", job.getId());
 
-            ApiResponse<String> response = ApiResponse.success("Agent reindexing completed successfully", message);
+            ApiResponse<SearchReindexJobDTO> response = ApiResponse.success("Agent reindex job started", job);
 
-            return ResponseEntity.ok().body(response);
+            return ResponseEntity.accepted().body(response);
+        } catch (ReindexJobAlreadyRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.conflict(e.getMessage()));
         } catch (RuntimeException e) {
             LOG.error("Failed to reindex agents: {}", e.getMessage(), e);
             throw ElasticsearchExceptionMapper.mapException(e);
         }
     }
+
+    private boolean onlyContainsKeysetProperties(Pageable pageable) {
+        return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(KEYSET_ORDERED_PROPERTIES::contains);
+    }
 }
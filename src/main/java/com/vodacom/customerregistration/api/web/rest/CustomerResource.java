@@ -2,12 +2,21 @@ package com.vodacom.customerregistration.api.web.rest;
 
 import com.vodacom.customerregistration.api.domain.ActivityLog;
 import com.vodacom.customerregistration.api.repository.CustomerRepository;
+import com.vodacom.customerregistration.api.repository.search.CursorPage;
+import com.vodacom.customerregistration.api.repository.search.InvalidSearchCursorException;
+import com.vodacom.customerregistration.api.repository.search.InvalidSearchQueryException;
+import com.vodacom.customerregistration.api.repository.search.SearchBackend;
+import com.vodacom.customerregistration.api.repository.search.SearchPage;
+import com.vodacom.customerregistration.api.security.AuthoritiesConstants;
+import com.vodacom.customerregistration.api.security.SecurityUtils;
 import com.vodacom.customerregistration.api.service.ActivityLogService;
 import com.vodacom.customerregistration.api.service.CustomerQueryService;
 import com.vodacom.customerregistration.api.service.CustomerService;
+import com.vodacom.customerregistration.api.service.ReindexJobAlreadyRunningException;
 import com.vodacom.customerregistration.api.service.criteria.CustomerCriteria;
 import com.vodacom.customerregistration.api.service.dto.CustomerDTO;
 import com.vodacom.customerregistration.api.service.dto.CustomerResponseDTO;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
 import com.vodacom.customerregistration.api.web.rest.errors.BadRequestAlertException;
 import com.vodacom.customerregistration.api.web.rest.errors.ElasticsearchExceptionMapper;
 import com.vodacom.customerregistration.api.web.rest.util.ApiResponse;
@@ -24,8 +33,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -35,6 +47,7 @@ import tech.jhipster.web.util.PaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
@@ -51,6 +64,15 @@ public class CustomerResource {
 
     private static final String ENTITY_NAME = "customer";
 
+    private static final String SEARCH_BACKEND_HEADER = "X-Search-Backend";
+
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    /** Non-null columns cursor paging can seek on; a null sort key would end the scroll early. */
+    private static final List<String> KEYSET_ORDERED_PROPERTIES = List.of("id", "firstName", "lastName", "dateOfBirth", "nidaNumber", "createdDate");
+
+    private static final String KEYSET_ORDERED_PROPERTIES_DESCRIPTION = "id, firstName, lastName, dateOfBirth, nidaNumber or createdDate";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -247,8 +269,11 @@ public class CustomerResource {
     /**
      * {@code GET  /customers} : get all the customers.
      *
-     * @param pageable the pagination information.
+     * @param pageable the pagination information; in cursor mode only the size and sort are used.
      * @param criteria the criteria which the requested entities should match.
+     * @param cursor   {@code *} to start keyset paging, or the {@code nextCursor} of the previous page;
+     *                 without it the list is offset paged.
+     * @param count    in cursor mode, also count the matching customers into the {@code X-Total-Count} header.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of customers in body.
      */
     @Operation(summary = "Get all customers with filtering and pagination", description = "Retrieve a paginated list of customers with optional filtering by various criteria such as name, region, district, ward, registration date, etc.", tags = {"Customer Management"})
@@ -287,14 +312,61 @@ public class CustomerResource {
         }
         """)))})
     @GetMapping("")
-    public ResponseEntity<ApiResponse<List<CustomerResponseDTO>>> getAllCustomers(@Parameter(description = "Filtering criteria for customers (firstName, lastName, region, district, ward, etc.)") CustomerCriteria criteria, @Parameter(description = "Pagination information (page, size, sort)") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<ApiResponse<List<CustomerResponseDTO>>> getAllCustomers(@Parameter(description = "Filtering criteria for customers (firstName, lastName, region, district, ward, etc.)") CustomerCriteria criteria, @Parameter(description = "Cursor paging: pass * for the first page, then the nextCursor of the previous response. Ignores page; sorts newest first unless sorted by " + KEYSET_ORDERED_PROPERTIES_DESCRIPTION + ".", example = "*") @RequestParam(value = "cursor", required = false) String cursor, @Parameter(description = "In cursor mode, also return the number of matching customers in the X-Total-Count header", example = "false") @RequestParam(value = "count", defaultValue = "false") boolean count, @Parameter(description = "Pagination information (page, size, sort)") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
         LOG.debug("REST request to get Customers by criteria: {}", criteria);
 
+        if (cursor != null) {
+            if (!onlyContainsKeysetProperties(pageable)) {
+                return ResponseEntity.badRequest().body(ApiResponse.badRequest("Cursor paging can only sort by " + KEYSET_ORDERED_PROPERTIES_DESCRIPTION));
+            }
+            try {
+                CursorPage<CustomerResponseDTO> page = customerQueryService.findByCriteriaWithAuditFields(criteria, pageable.getSort(), "*".equals(cursor) ? null : cursor, pageable.getPageSize());
+                HttpHeaders headers = new HttpHeaders();
+                if (count) {
+                    headers.add(TOTAL_COUNT_HEADER, Long.toString(customerQueryService.countByCriteria(criteria)));
+                }
+                ApiResponse<List<CustomerResponseDTO>> response = ApiResponse.success("Customers retrieved successfully", page.content());
+                return ResponseEntity.ok().headers(headers).body(response.withNextCursor(page.nextCursor()));
+            } catch (InvalidSearchCursorException e) {
+                return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+            }
+        }
+
         Page<CustomerResponseDTO> page = customerQueryService.findByCriteriaWithAuditFields(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(ApiResponse.success("Customers retrieved successfully", page.getContent()));
     }
 
+    /**
+     * {@code GET  /customers/mine} : get the customers registered by the current user, newest first.
+     *
+     * @param cursor   {@code *} to start keyset paging, or the {@code nextCursor} of the previous page;
+     *                 without it the list is offset paged.
+     * @param pageable the pagination information; the sort is ignored, and in cursor mode so is the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of customers in body.
+     */
+    @Operation(summary = "Get the customers registered by the current user", description = "Retrieve the customers registered by the authenticated agent, newest first. Supports offset paging, or keyset paging without a total count through the cursor parameter.", tags = {"Customer Management"})
+    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Customers retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Malformed cursor", content = @Content(mediaType = "application/json"))})
+    @GetMapping("/mine")
+    public ResponseEntity<ApiResponse<List<CustomerResponseDTO>>> getMyCustomers(@Parameter(description = "Cursor paging: pass * for the first page, then the nextCursor of the previous response", example = "*") @RequestParam(value = "cursor", required = false) String cursor, @Parameter(description = "Pagination information (page, size)") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
+        String login = SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new IllegalStateException("No authenticated user found"));
+        LOG.debug("REST request to get Customers registered by: {}", login);
+
+        if (cursor != null) {
+            try {
+                CursorPage<CustomerResponseDTO> page = customerService.findRegisteredBy(login, "*".equals(cursor) ? null : cursor, pageable.getPageSize());
+                ApiResponse<List<CustomerResponseDTO>> response = ApiResponse.success("Customers retrieved successfully", page.content());
+                return ResponseEntity.ok().body(response.withNextCursor(page.nextCursor()));
+            } catch (InvalidSearchCursorException e) {
+                return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
+            }
+        }
+
+        Page<CustomerResponseDTO> page = customerService.findRegisteredBy(login, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(ApiResponse.success("Customers retrieved successfully", page.getContent()));
+    }
+
     /**
      * {@code GET  /customers/count} : count all the customers.
      *
@@ -400,8 +472,12 @@ public class CustomerResource {
      * to the query.
      *
      * @param query    the query of the customer search.
-     * @param pageable the pagination information.
-     * @return the result of the search.
+     * @param raw      parse the query as {@code query_string} syntax instead of a structured query; administrators only.
+     * @param cursor   {@code *} to start cursor paging, or the {@code nextCursor} of the previous page;
+     *                 without it the search is offset paged.
+     * @param pageable the pagination information; in cursor mode only the size is used.
+     * @return the result of the search; the {@code X-Search-Backend} header of an offset page tells whether
+     *         Elasticsearch or, while it is unavailable, Postgres answered.
      */
     @Operation(summary = "Search customers with Elasticsearch", description = "Perform full-text search across customer records using Elasticsearch. Supports searching by name, NIDA number, location, and other fields.", tags = {"Customer Management"})
     @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Search completed successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class), examples = @ExampleObject(name = "Search results", value = """
@@ -420,15 +496,29 @@ public class CustomerResource {
         }
         """))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Elasticsearch error", content = @Content(mediaType = "application/json"))})
     @GetMapping("/_search")
-    public ResponseEntity<ApiResponse<List<CustomerDTO>>> searchCustomers(@Parameter(description = "Search query string (supports full-text search)", required = true, example = "John Doe") @RequestParam("query") String query, @Parameter(description = "Pagination for search results") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
+    public ResponseEntity<ApiResponse<List<CustomerDTO>>> searchCustomers(@Parameter(description = "Search query string (supports full-text search)", required = true, example = "John Doe") @RequestParam("query") String query, @Parameter(description = "Parse the query as Elasticsearch query_string syntax instead of a structured query. Administrators only.", example = "false") @RequestParam(value = "raw", defaultValue = "false") boolean raw, @Parameter(description = "Cursor paging: pass * for the first page, then the nextCursor of the previous response. Pages by relevance and ignores page and sort.", example = "*") @RequestParam(value = "cursor", required = false) String cursor, @Parameter(description = "Pagination for search results") @org.springdoc.core.annotations.ParameterObject Pageable pageable) {
         LOG.debug("REST request to search for a page of Customers for query {}", query);
+        if (raw && !SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.forbidden("Raw query_string search is restricted to administrators"));
+        }
         try {
-            Page<CustomerDTO> page = customerService.search(query, pageable);
+            if (cursor != null) {
+                CursorPage<CustomerDTO> page = customerService.search(query, raw, "*".equals(cursor) ? null : cursor, pageable.getPageSize());
+                ApiResponse<List<CustomerDTO>> response = ApiResponse.success("Customer search completed successfully", page.content());
+                return ResponseEntity.ok().body(response.withNextCursor(page.nextCursor()));
+            }
+            SearchPage<CustomerDTO> page = customerService.search(query, raw, pageable);
             HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+            headers.add(SEARCH_BACKEND_HEADER, page.getBackend().name().toLowerCase(Locale.ROOT));
 
-            ApiResponse<List<CustomerDTO>> response = ApiResponse.success("Customer search completed successfully", page.getContent());
+            String message = page.getBackend() == SearchBackend.ELASTICSEARCH
+                ? "Customer search completed successfully"
+                : "Customer search completed from the database while the search service is unavailable";
+            ApiResponse<List<CustomerDTO>> response = ApiResponse.success(message, page.getContent());
 
             return ResponseEntity.ok().headers(headers).body(response);
+        } catch (InvalidSearchCursorException | InvalidSearchQueryException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest(e.getMessage()));
         } catch (RuntimeException e) {
             throw ElasticsearchExceptionMapper.mapException(e);
         }
@@ -458,26 +548,32 @@ public class CustomerResource {
     }
 
     /**
-     * {@code POST  /customers/_reindex} : Reindex all customers from database to Elasticsearch.
+     * {@code POST  /customers/_reindex} : Start a background job reindexing all customers from database to Elasticsearch.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and reindexing result.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the started job, or with status
+     * {@code 409 (Conflict)} if a customer reindex job is already running.
      */
-    @Operation(summary = "Reindex all customers", description = "Reindex all customer records from database to Elasticsearch. Use this for search index maintenance.", tags = {"Customer Management"})
-    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Reindexing completed successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class)))})
+    @Operation(summary = "Reindex all customers", description = "Start a background job reindexing all customer records from database to Elasticsearch. Follow its progress with GET /api/v1/admin/reindex-jobs/{id}.", tags = {"Customer Management"})
+    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Reindex job started", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "A customer reindex job is already running", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class)))})
     @PostMapping("/_reindex")
-    public ResponseEntity<ApiResponse<String>> reindexCustomers() {
+    public ResponseEntity<ApiResponse<SearchReindexJobDTO>> reindexCustomers() {
         LOG.info("REST request to reindex all customers to Elasticsearch");
         try {
-            int reindexedCount = customerService.reindexAllCustomers();
-            String message = String.format("Successfully reindexed %d customers to Elasticsearch", reindexedCount);
-            LOG.info(message);
+            SearchReindexJobDTO job = customerService.reindexAllCustomers();
+            LOG.info("Started customer reindex job {}", job.getId());
 
-            ApiResponse<String> response = ApiResponse.success("Customer reindexing completed successfully", message);
+            ApiResponse<SearchReindexJobDTO> response = ApiResponse.success("Customer reindex job started", job);
 
-            return ResponseEntity.ok().body(response);
+            return ResponseEntity.accepted().body(response);
+        } catch (ReindexJobAlreadyRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.conflict(e.getMessage()));
         } catch (RuntimeException e) {
             LOG.error("Failed to reindex customers: {}", e.getMessage(), e);
             throw ElasticsearchExceptionMapper.mapException(e);
         }
     }
+
+    private boolean onlyContainsKeysetProperties(Pageable pageable) {
+        return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(KEYSET_ORDERED_PROPERTIES::contains);
+    }
 }
@@ -0,0 +1,125 @@
+package com.vodacom.customerregistration.api.web.rest;
+
+import com.vodacom.customerregistration.api.security.AuthoritiesConstants;
+import com.vodacom.customerregistration.api.service.ReindexJobAlreadyRunningException;
+import com.vodacom.customerregistration.api.service.SearchReindexJobService;
+import com.vodacom.customerregistration.api.service.dto.SearchReindexJobDTO;
+import com.vodacom.customerregistration.api.web.rest.util.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Optional;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller for following and controlling background search reindex jobs.
+ */
+@Tag(name = "Search Administration", description = "Admin APIs for following, cancelling and resuming search reindex jobs. Requires ADMIN authority.")
+@RestController
+@RequestMapping("/api/v1/admin/reindex-jobs")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class SearchReindexJobResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchReindexJobResource.class);
+
+    private final SearchReindexJobService searchReindexJobService;
+
+    public SearchReindexJobResource(SearchReindexJobService searchReindexJobService) {
+        this.searchReindexJobService = searchReindexJobService;
+    }
+
+    /**
+     * {@code GET  /admin/reindex-jobs} : get the reindex jobs, most recent first.
+     *
+     * @param index the index name to filter by.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of jobs in body.
+     */
+    @Operation(summary = "List reindex jobs", description = "Retrieve reindex jobs, most recent first, with their progress, throughput and estimated remaining time.", tags = {"Search Administration"})
+    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Reindex jobs retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class)))})
+    @GetMapping("")
+    public ResponseEntity<ApiResponse<Page<SearchReindexJobDTO>>> getAllJobs(
+        @Parameter(description = "Index name to filter by", example = "customer") @RequestParam(value = "index", required = false) String index,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        LOG.debug("REST request to get reindex jobs for index: {}", index);
+        Page<SearchReindexJobDTO> page = searchReindexJobService.findAll(index, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(ApiResponse.success("Reindex jobs retrieved successfully", page));
+    }
+
+    /**
+     * {@code GET  /admin/reindex-jobs/:id} : get a reindex job.
+     *
+     * @param id the id of the job.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the job in body, or with status {@code 404 (Not Found)}.
+     */
+    @Operation(summary = "Get a reindex job", description = "Retrieve the progress of a reindex job.", tags = {"Search Administration"})
+    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Reindex job retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Reindex job not found")})
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<SearchReindexJobDTO>> getJob(@Parameter(description = "Job ID", required = true) @PathVariable("id") UUID id) {
+        LOG.debug("REST request to get reindex job : {}", id);
+        Optional<SearchReindexJobDTO> job = searchReindexJobService.findOne(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.notFound("Reindex job not found"));
+        }
+        return ResponseEntity.ok().body(ApiResponse.success("Reindex job retrieved successfully", job.orElseThrow()));
+    }
+
+    /**
+     * {@code POST  /admin/reindex-jobs/:id/_cancel} : ask a running job to stop after its current page.
+     *
+     * @param id the id of the job.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)}, or with status {@code 409 (Conflict)} if the job is not running.
+     */
+    @Operation(summary = "Cancel a reindex job", description = "Ask a running reindex job to stop after its current page. The live index is left untouched and the job can be resumed later.", tags = {"Search Administration"})
+    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Cancellation requested", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Reindex job not found"), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Reindex job is not running")})
+    @PostMapping("/{id}/_cancel")
+    public ResponseEntity<ApiResponse<SearchReindexJobDTO>> cancelJob(@Parameter(description = "Job ID", required = true) @PathVariable("id") UUID id) {
+        LOG.info("REST request to cancel reindex job : {}", id);
+        if (!searchReindexJobService.cancel(id)) {
+            if (searchReindexJobService.findOne(id).isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.notFound("Reindex job not found"));
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.conflict("Reindex job is not running"));
+        }
+        return ResponseEntity.accepted().body(ApiResponse.success("Reindex job cancellation requested", searchReindexJobService.findOne(id).orElse(null)));
+    }
+
+    /**
+     * {@code POST  /admin/reindex-jobs/:id/_resume} : resume a failed or cancelled job from its last checkpoint.
+     *
+     * @param id the id of the job.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the job in body, or with status
+     * {@code 404 (Not Found)}, or with status {@code 409 (Conflict)} if the job cannot be resumed.
+     */
+    @Operation(summary = "Resume a reindex job", description = "Resume a failed or cancelled reindex job from the last page it completed.", tags = {"Search Administration"})
+    @ApiResponses(value = {@io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "202", description = "Reindex job resumed", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiResponse.class))), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Reindex job not found"), @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Reindex job cannot be resumed or another job is running for the index")})
+    @PostMapping("/{id}/_resume")
+    public ResponseEntity<ApiResponse<SearchReindexJobDTO>> resumeJob(@Parameter(description = "Job ID", required = true) @PathVariable("id") UUID id) {
+        LOG.info("REST request to resume reindex job : {}", id);
+        try {
+            Optional<SearchReindexJobDTO> job = searchReindexJobService.resume(id);
+            if (job.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.notFound("Reindex job not found"));
+            }
+            return ResponseEntity.accepted().body(ApiResponse.success("Reindex job resumed", job.orElseThrow()));
+        } catch (IllegalStateException | ReindexJobAlreadyRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.conflict(e.getMessage()));
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class ApiResponse<T> {
     private ApiError error;
     private Instant timestamp;
     private String path;
+    private String nextCursor;
 
     public ApiResponse() {
         this.timestamp = Instant.now();
@@ -203,6 +204,22 @@ public class ApiResponse<T> {
         return this;
     }
 
+    /**
+     * Opaque cursor to pass back to get the next page of a cursor-paged listing; absent on the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public ApiResponse<T> withNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ApiResponse{" +
@@ -213,6 +230,7 @@ public class ApiResponse<T> {
             ", error=" + error +
             ", timestamp=" + timestamp +
             ", path='" + path + '\'' +
+            ", nextCursor='" + nextCursor + '\'' +
             '}';
     }
 }
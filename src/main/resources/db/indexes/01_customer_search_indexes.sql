@@ -0,0 +1,13 @@
+-- Customer Registration System - Customer search indexes
+-- Runs on every startup, after Hibernate has updated the schema; every statement is idempotent.
+-- The first run builds the indexes under a write lock on the table.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- =============================================================================
+-- CUSTOMER NAME AND NIDA TRIGRAMS
+-- =============================================================================
+-- Serve lower(column) LIKE '%term%', used by customer search while Elasticsearch is unavailable.
+CREATE INDEX IF NOT EXISTS idx_customer_first_name_trgm ON public.customer USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_customer_last_name_trgm ON public.customer USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_customer_nida_number_trgm ON public.customer USING gin (lower(nida_number) gin_trgm_ops);
@@ -0,0 +1,24 @@
+-- Customer Registration System - Agent-scoped customer and activity log search indexes
+-- Runs on every startup, after Hibernate has updated the schema; every statement is idempotent.
+-- The first run builds the indexes under a write lock on the table.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- =============================================================================
+-- CUSTOMERS BY AGENT
+-- =============================================================================
+-- Serves an agent's customers newest first; the name and NIDA trigram indexes are in 01_customer_search_indexes.sql.
+CREATE INDEX IF NOT EXISTS idx_customer_created_by_created_date ON public.customer (created_by, created_date DESC);
+
+-- =============================================================================
+-- ACTIVITY LOG BY USER
+-- =============================================================================
+-- Activity logs are listed and searched by user, newest first by their timestamp.
+CREATE INDEX IF NOT EXISTS idx_activity_log_created_by_timestamp ON public.activity_log (created_by, "timestamp" DESC);
+
+-- =============================================================================
+-- ACTIVITY LOG DESCRIPTION AND ENTITY TYPE TRIGRAMS
+-- =============================================================================
+-- Serve lower(column) LIKE '%term%', used by the user and admin activity log searches.
+CREATE INDEX IF NOT EXISTS idx_activity_log_description_trgm ON public.activity_log USING gin (lower(description) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_activity_log_entity_type_trgm ON public.activity_log USING gin (lower(entity_type) gin_trgm_ops);
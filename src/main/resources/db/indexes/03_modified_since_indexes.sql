@@ -0,0 +1,12 @@
+-- Customer Registration System - Modified-since indexes for the search index catch-up
+-- Runs on every startup, after Hibernate has updated the schema; every statement is idempotent.
+-- The first run builds the indexes under a write lock on the table.
+
+-- =============================================================================
+-- ROWS MODIFIED SINCE THE LAST INDEXED CHANGE
+-- =============================================================================
+-- The startup catch-up pages through the rows modified since its watermark by id, so it reads only recent rows
+-- instead of scanning the tables. Users are included as their fields are embedded in the agent documents.
+CREATE INDEX IF NOT EXISTS idx_customer_last_modified_date_id ON public.customer (last_modified_date, id);
+CREATE INDEX IF NOT EXISTS idx_agent_last_modified_date_id ON public.agent (last_modified_date, id);
+CREATE INDEX IF NOT EXISTS idx_user_last_modified_date_id ON public."user" (last_modified_date, id);
@@ -0,0 +1,28 @@
+-- Customer Registration System - Activity log rollups
+-- Runs on every startup, after Hibernate has updated the schema; every statement is idempotent.
+
+-- =============================================================================
+-- HOURLY ACTIVITY COUNTS
+-- =============================================================================
+-- Activity logs per user, action type and UTC hour, incremented by the activity log writer in the transaction
+-- inserting the logs. Rows with created_by '*' count the activity of all users.
+CREATE TABLE IF NOT EXISTS public.activity_rollup (
+    created_by varchar(50) NOT NULL,
+    action_type varchar(50) NOT NULL,
+    bucket_start timestamp NOT NULL,
+    event_count bigint NOT NULL,
+    PRIMARY KEY (created_by, action_type, bucket_start)
+);
+
+-- Counts the logs written before the rollups existed, on the first startup only.
+INSERT INTO public.activity_rollup (created_by, action_type, bucket_start, event_count)
+SELECT created_by, action_type, date_trunc('hour', "timestamp"), count(*)
+FROM public.activity_log
+WHERE NOT EXISTS (SELECT 1 FROM public.activity_rollup)
+GROUP BY created_by, action_type, date_trunc('hour', "timestamp")
+UNION ALL
+SELECT '*', action_type, date_trunc('hour', "timestamp"), count(*)
+FROM public.activity_log
+WHERE NOT EXISTS (SELECT 1 FROM public.activity_rollup)
+GROUP BY action_type, date_trunc('hour', "timestamp")
+ON CONFLICT DO NOTHING;
@@ -374,7 +374,8 @@ INSERT INTO public.activity_log (
     'PostmanRuntime/7.45.0'
 )
 -- Additional customer registration logs by Agent 2 can be added here...
-ON CONFLICT (id) DO NOTHING;
+-- no conflict target: once partitioned, activity_log is keyed by (id, timestamp)
+ON CONFLICT DO NOTHING;
 
 -- =============================================================================
 -- SUMMARY
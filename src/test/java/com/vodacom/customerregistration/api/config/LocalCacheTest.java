@@ -0,0 +1,50 @@
+package com.vodacom.customerregistration.api.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LocalCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private LocalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LocalCache("agent-details", 2, 60);
+        new LocalCache.Metrics(cache).bindTo(registry);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        cache.put("admin", "Admin");
+        cache.put("agent", "Agent");
+        cache.get("admin");
+        cache.put("user", "User");
+
+        assertThat(cache.get("admin")).isNotNull();
+        assertThat(cache.get("agent")).isNull();
+        assertThat(registry.get("cache.evictions").tag("cache", "agent-details").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").tag("cache", "agent-details").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredEntriesAreMisses() {
+        LocalCache expiring = new LocalCache("authorities", 10, 0);
+        expiring.put("all", "ROLE_ADMIN");
+
+        assertThat(expiring.get("all")).isNull();
+    }
+
+    @Test
+    void loadsMissingValuesOnce() {
+        assertThat(cache.get("admin", () -> "Admin")).isEqualTo("Admin");
+        assertThat(cache.get("admin", () -> "Reloaded")).isEqualTo("Admin");
+
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.puts").functionCounter().count()).isEqualTo(1);
+    }
+}
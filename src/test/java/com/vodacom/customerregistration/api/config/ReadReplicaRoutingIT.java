@@ -0,0 +1,104 @@
+package com.vodacom.customerregistration.api.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vodacom.customerregistration.api.IntegrationTest;
+import com.vodacom.customerregistration.api.repository.AuthorityRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Routing of read-only transactions, with a second Postgres container standing in for the replica. The two are told
+ * apart by their database name. The replica has no schema, so a query sent to it by mistake fails.
+ */
+@IntegrationTest
+class ReadReplicaRoutingIT {
+
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:17.4").withDatabaseName("replica");
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        REPLICA.start();
+        registry.add("application.read-replicas.enabled", () -> "true");
+        registry.add("application.read-replicas.urls[0]", REPLICA::getJdbcUrl);
+        registry.add("application.read-replicas.username", REPLICA::getUsername);
+        registry.add("application.read-replicas.password", REPLICA::getPassword);
+    }
+
+    @AfterAll
+    static void stopReplica() {
+        REPLICA.stop();
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaDataSource replicaDataSource;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    @Qualifier("userDetailsService")
+    private UserDetailsService userDetailsService;
+
+    @BeforeEach
+    void checkReplicationLag() {
+        replicaDataSource.checkReplicationLag();
+        cacheManager.getCache(AuthorityRepository.AUTHORITIES_CACHE).clear();
+    }
+
+    @Test
+    void readOnlyTransactionsReadFromTheReplica() {
+        assertThat(currentDatabase(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionsStayOnThePrimary() {
+        assertThat(currentDatabase(false)).isEqualTo("CustomerRegistrationSystem");
+    }
+
+    @Test
+    void authenticationReadsThePrimary() {
+        assertThat(userDetailsService.loadUserByUsername("admin").getUsername()).isEqualTo("admin");
+    }
+
+    @Test
+    void valuesReadInReadOnlyTransactionsAreNotCached() {
+        Cache cache = cacheManager.getCache(AuthorityRepository.AUTHORITIES_CACHE);
+
+        inTransaction(true, () -> cache.put("from-replica", "stale"));
+        inTransaction(false, () -> cache.put("from-primary", "fresh"));
+
+        assertThat(cache.get("from-replica")).isNull();
+        assertThat(cache.get("from-primary")).isNotNull();
+    }
+
+    private void inTransaction(boolean readOnly, Runnable action) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        transaction.executeWithoutResult(status -> action.run());
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT current_database()", String.class));
+    }
+}
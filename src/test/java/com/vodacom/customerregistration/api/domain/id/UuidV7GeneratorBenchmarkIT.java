@@ -0,0 +1,61 @@
+package com.vodacom.customerregistration.api.domain.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vodacom.customerregistration.api.IntegrationTest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Compares insert throughput and primary-key index size of random (v4) and time-ordered (v7) UUIDs on Postgres.
+ * Run with {@code -Dbenchmark=true}; results are logged.
+ */
+@IntegrationTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UuidV7GeneratorBenchmarkIT {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UuidV7GeneratorBenchmarkIT.class);
+
+    private static final int ROWS = 200_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void timeOrderedIdsKeepThePrimaryKeyIndexCompact() {
+        long randomIndexSize = benchmark("uuid_bench_v4", UUID::randomUUID);
+        long timeOrderedIndexSize = benchmark("uuid_bench_v7", UuidV7Generator::next);
+
+        assertThat(timeOrderedIndexSize).isLessThanOrEqualTo(randomIndexSize);
+    }
+
+    private long benchmark(String table, Supplier<UUID> ids) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE TABLE " + table + " (id uuid PRIMARY KEY, payload varchar(64) NOT NULL)");
+        try {
+            long start = System.nanoTime();
+            for (int inserted = 0; inserted < ROWS; inserted += BATCH_SIZE) {
+                List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    batch.add(new Object[] { ids.get(), "row " + (inserted + i) });
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO " + table + " (id, payload) VALUES (?, ?)", batch);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Long indexSize = jdbcTemplate.queryForObject("SELECT pg_relation_size('" + table + "_pkey')", Long.class);
+            LOG.info("{}: {} rows/s, primary key index {} kB", table, Math.round(ROWS / seconds), indexSize / 1024);
+            return indexSize;
+        } finally {
+            jdbcTemplate.execute("DROP TABLE " + table);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.vodacom.customerregistration.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.vodacom.customerregistration.api.domain.Customer;
+import com.vodacom.customerregistration.api.repository.search.InvalidSearchCursorException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+class KeysetCursorsTest {
+
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "createdDate");
+
+    private final Instant createdDate = Instant.parse("2024-01-15T10:30:00.123456Z");
+    private final UUID id = UUID.randomUUID();
+
+    @Test
+    void startsFromTheBeginningWithoutCursor() {
+        assertThat(KeysetCursors.position(Customer.class, "region=Arusha", SORT, null).isInitial()).isTrue();
+    }
+
+    @Test
+    void resumesAfterTheLastRowWithTypedKeys() {
+        String cursor = KeysetCursors.nextCursor(window(true), "region=Arusha", SORT);
+
+        KeysetScrollPosition position = KeysetCursors.position(Customer.class, "region=Arusha", SORT, cursor);
+
+        assertThat(position.getKeys()).containsEntry("createdDate", createdDate).containsEntry("id", id);
+        assertThat(position.scrollsForward()).isTrue();
+    }
+
+    @Test
+    void hasNoCursorOnTheLastPage() {
+        assertThat(KeysetCursors.nextCursor(window(false), "region=Arusha", SORT)).isNull();
+    }
+
+    @Test
+    void rejectsCursorsOfAnotherQueryOrSort() {
+        String cursor = KeysetCursors.nextCursor(window(true), "region=Arusha", SORT);
+
+        assertThatThrownBy(() -> KeysetCursors.position(Customer.class, "region=Mwanza", SORT, cursor)).isInstanceOf(
+            InvalidSearchCursorException.class
+        );
+        assertThatThrownBy(() -> KeysetCursors.position(Customer.class, "region=Arusha", Sort.by("lastName"), cursor)).isInstanceOf(
+            InvalidSearchCursorException.class
+        );
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> KeysetCursors.position(Customer.class, "", SORT, "not a cursor")).isInstanceOf(
+            InvalidSearchCursorException.class
+        );
+    }
+
+    private Window<String> window(boolean hasNext) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("createdDate", createdDate);
+        keys.put("id", id);
+        return Window.from(List.of("first", "last"), index -> ScrollPosition.forward(keys), hasNext);
+    }
+}
@@ -0,0 +1,96 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vodacom.customerregistration.api.IntegrationTest;
+import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+@IntegrationTest
+class ActivityLogSearchRepositoryIT {
+
+    private static final IndexCoordinates ALL_MONTHS = IndexCoordinates.of("activity_log-*");
+
+    @Autowired
+    private ActivityLogSearchRepository activityLogSearchRepository;
+
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    private final ActivityLog september = log("agent1", ActivityLog.ActionType.CUSTOMER_REGISTERED, "Registered customer Amina", "2025-09-29T09:30:00Z");
+    private final ActivityLog october = log("agent2", ActivityLog.ActionType.CUSTOMER_UPDATED, "Updated customer Amina", "2025-10-02T12:00:00Z");
+
+    @BeforeEach
+    void index() {
+        assertThat(activityLogSearchRepository.bulkIndex(List.of(september, october))).isEmpty();
+        elasticsearchTemplate.indexOps(ALL_MONTHS).refresh();
+    }
+
+    @AfterEach
+    void deleteIndices() {
+        activityLogSearchRepository.deleteMonthsBefore(YearMonth.of(9999, 1));
+    }
+
+    @Test
+    void writesEachLogToTheIndexOfItsMonth() {
+        assertThat(elasticsearchTemplate.indexOps(IndexCoordinates.of("activity_log-2025.09")).exists()).isTrue();
+        assertThat(elasticsearchTemplate.indexOps(IndexCoordinates.of("activity_log-2025.10")).exists()).isTrue();
+    }
+
+    @Test
+    void searchesTextMostRecentFirst() {
+        SearchPage<ActivityLog> page = activityLogSearchRepository.search("amina", null, null, null, null, PageRequest.of(0, 10));
+
+        assertThat(page.getBackend()).isEqualTo(SearchBackend.ELASTICSEARCH);
+        assertThat(page.getContent()).extracting(ActivityLog::getId).containsExactly(october.getId(), september.getId());
+    }
+
+    @Test
+    void filtersByUserActionTypeAndDateRange() {
+        assertThat(activityLogSearchRepository.search("amina", "agent1", null, null, null, PageRequest.of(0, 10)).getContent())
+            .extracting(ActivityLog::getId)
+            .containsExactly(september.getId());
+        assertThat(
+            activityLogSearchRepository.search(null, null, ActivityLog.ActionType.CUSTOMER_UPDATED, null, null, PageRequest.of(0, 10)).getContent()
+        )
+            .extracting(ActivityLog::getId)
+            .containsExactly(october.getId());
+        assertThat(
+            activityLogSearchRepository
+                .search(null, null, null, Instant.parse("2025-10-01T00:00:00Z"), Instant.parse("2025-11-01T00:00:00Z"), PageRequest.of(0, 10))
+                .getContent()
+        )
+            .extracting(ActivityLog::getId)
+            .containsExactly(october.getId());
+    }
+
+    @Test
+    void deletesTheIndicesOfMonthsPastRetention() {
+        activityLogSearchRepository.deleteMonthsBefore(YearMonth.of(2025, 10));
+
+        assertThat(elasticsearchTemplate.indexOps(IndexCoordinates.of("activity_log-2025.09")).exists()).isFalse();
+        assertThat(elasticsearchTemplate.indexOps(IndexCoordinates.of("activity_log-2025.10")).exists()).isTrue();
+    }
+
+    private static ActivityLog log(String createdBy, ActivityLog.ActionType actionType, String description, String timestamp) {
+        ActivityLog activityLog = new ActivityLog();
+        activityLog.setId(UuidV7Generator.next());
+        activityLog.setActionType(actionType);
+        activityLog.setEntityType("Customer");
+        activityLog.setDescription(description);
+        activityLog.setTimestamp(Instant.parse(timestamp));
+        activityLog.setCreatedBy(createdBy);
+        activityLog.setLastModifiedBy(createdBy);
+        return activityLog;
+    }
+}
@@ -0,0 +1,138 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.domain.id.UuidV7Generator;
+import com.vodacom.customerregistration.api.repository.ActivityLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsImpl;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.jpa.domain.Specification;
+
+class ActivityLogSearchRepositoryInternalImplTest {
+
+    private final ElasticsearchTemplate elasticsearchTemplate = mock(ElasticsearchTemplate.class);
+    private final ActivityLogRepository activityLogRepository = mock(ActivityLogRepository.class);
+    private ActivityLogSearchRepositoryInternalImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        when(elasticsearchTemplate.getIndexCoordinatesFor(ActivityLog.class)).thenReturn(IndexCoordinates.of("activity_log"));
+        repository = new ActivityLogSearchRepositoryInternalImpl(
+            elasticsearchTemplate,
+            activityLogRepository,
+            new ApplicationProperties(),
+            new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void searchesOnlyTheMonthsOfTheDateRange() {
+        assertThat(searchedIndices(Instant.parse("2025-09-15T00:00:00Z"), Instant.parse("2025-11-01T00:00:00Z"))).containsExactly(
+            "activity_log-2025.09*",
+            "activity_log-2025.10*"
+        );
+    }
+
+    @Test
+    void searchesEveryMonthForOpenOrVeryLongRanges() {
+        assertThat(searchedIndices(Instant.parse("2025-09-15T00:00:00Z"), null)).containsExactly("activity_log-*");
+        assertThat(searchedIndices(Instant.parse("2020-01-01T00:00:00Z"), Instant.parse("2025-01-01T00:00:00Z"))).containsExactly(
+            "activity_log-*"
+        );
+    }
+
+    @Test
+    void indexesEachLogIntoTheIndexOfItsMonth() {
+        IndexOperations indexOps = mock(IndexOperations.class);
+        when(elasticsearchTemplate.indexOps(ActivityLog.class)).thenReturn(indexOps);
+        when(indexOps.createSettings(ActivityLog.class)).thenReturn(new Settings());
+        when(indexOps.createMapping(ActivityLog.class)).thenReturn(Document.create());
+
+        assertThat(repository.bulkIndex(List.of(log("2025-09-30T23:59:59Z"), log("2025-10-01T00:00:00Z")))).isEmpty();
+
+        verify(elasticsearchTemplate).bulkIndex(
+            argThat(queries -> queries.size() == 1),
+            any(BulkOptions.class),
+            eq(IndexCoordinates.of("activity_log-2025.09"))
+        );
+        verify(elasticsearchTemplate).bulkIndex(
+            argThat(queries -> queries.size() == 1),
+            any(BulkOptions.class),
+            eq(IndexCoordinates.of("activity_log-2025.10"))
+        );
+    }
+
+    @Test
+    void answersFromTheDatabaseWhileElasticsearchFails() {
+        ActivityLog activityLog = log("2025-10-02T12:00:00Z");
+        when(elasticsearchTemplate.search(any(Query.class), eq(ActivityLog.class), any(IndexCoordinates.class))).thenThrow(
+            new DataAccessResourceFailureException("Connection refused")
+        );
+        when(activityLogRepository.findAll(ArgumentMatchers.<Specification<ActivityLog>>any(), any(Pageable.class))).thenReturn(
+            new PageImpl<>(List.of(activityLog))
+        );
+
+        SearchPage<ActivityLog> page = repository.search("amina", "agent1", null, null, null, PageRequest.of(0, 10));
+
+        assertThat(page.getBackend()).isEqualTo(SearchBackend.POSTGRES);
+        assertThat(page.getContent()).containsExactly(activityLog);
+    }
+
+    @Test
+    void answersFromElasticsearchWhileItIsHealthy() {
+        when(elasticsearchTemplate.search(any(Query.class), eq(ActivityLog.class), any(IndexCoordinates.class))).thenReturn(emptyHits());
+
+        SearchPage<ActivityLog> page = repository.search("amina", null, null, null, null, PageRequest.of(0, 10));
+
+        assertThat(page.getBackend()).isEqualTo(SearchBackend.ELASTICSEARCH);
+        verify(activityLogRepository, never()).findAll(ArgumentMatchers.<Specification<ActivityLog>>any(), any(Pageable.class));
+    }
+
+    private String[] searchedIndices(Instant from, Instant to) {
+        ArgumentCaptor<IndexCoordinates> indices = ArgumentCaptor.forClass(IndexCoordinates.class);
+        when(elasticsearchTemplate.search(any(Query.class), eq(ActivityLog.class), indices.capture())).thenReturn(emptyHits());
+
+        repository.search(null, null, null, from, to, PageRequest.of(0, 10));
+
+        return indices.getValue().getIndexNames();
+    }
+
+    private static SearchHitsImpl<ActivityLog> emptyHits() {
+        return new SearchHitsImpl<>(0, TotalHitsRelation.EQUAL_TO, 0, null, null, null, List.of(), null, null, null);
+    }
+
+    private static ActivityLog log(String timestamp) {
+        ActivityLog activityLog = new ActivityLog();
+        activityLog.setId(UuidV7Generator.next());
+        activityLog.setActionType(ActivityLog.ActionType.CUSTOMER_REGISTERED);
+        activityLog.setTimestamp(Instant.parse(timestamp));
+        return activityLog;
+    }
+}
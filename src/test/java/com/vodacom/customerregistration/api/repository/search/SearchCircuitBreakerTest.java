@@ -0,0 +1,79 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SearchCircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SearchCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties.Search.CircuitBreaker properties = new ApplicationProperties().getSearch().getCircuitBreaker();
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(50);
+        properties.setSlowCallMs(100);
+        properties.setOpenDurationMs(1000);
+        circuitBreaker = new SearchCircuitBreaker(
+            "test",
+            properties,
+            e -> !(e instanceof IllegalArgumentException),
+            new SimpleMeterRegistry(),
+            clock::get
+        );
+    }
+
+    @Test
+    void failedCallsAreAnsweredByTheFallback() {
+        assertThat(circuitBreaker.execute(this::fail, () -> "fallback")).isEqualTo("fallback");
+        assertThat(circuitBreaker.execute(() -> "search", () -> "fallback")).isEqualTo("search");
+        assertThat(circuitBreaker.state()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensOnceTheFailureRateIsReachedAndRecoversAfterATrialCall() {
+        circuitBreaker.execute(() -> "search", () -> "fallback");
+        circuitBreaker.execute(() -> "search", () -> "fallback");
+        circuitBreaker.execute(this::fail, () -> "fallback");
+        circuitBreaker.execute(this::slow, () -> "fallback");
+        assertThat(circuitBreaker.state()).isEqualTo(SearchCircuitBreaker.State.OPEN);
+
+        assertThat(circuitBreaker.execute(() -> "search", () -> "fallback")).isEqualTo("fallback");
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(circuitBreaker.execute(this::fail, () -> "fallback")).isEqualTo("fallback");
+        assertThat(circuitBreaker.state()).isEqualTo(SearchCircuitBreaker.State.OPEN);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(circuitBreaker.execute(() -> "search", () -> "fallback")).isEqualTo("search");
+        assertThat(circuitBreaker.state()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void requestErrorsAreRethrownWithoutCountingAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> circuitBreaker.execute(() -> {
+                throw new IllegalArgumentException("bad query");
+            }, () -> "fallback")).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(circuitBreaker.state()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+    }
+
+    private String fail() {
+        throw new IllegalStateException("Elasticsearch unavailable");
+    }
+
+    private String slow() {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+        return "search";
+    }
+}
@@ -0,0 +1,56 @@
+package com.vodacom.customerregistration.api.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.MultiMatchQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class SearchQueriesTest {
+
+    private final SearchQueries searchQueries = new SearchQueries(new ApplicationProperties().getSearch().getQuery(), "firstName^3", "region");
+
+    @Test
+    void buildsOneFuzzyMultiMatchPerTerm() {
+        Query query = searchQueries.build("john  kinondoni", false);
+
+        assertThat(query.bool().must()).hasSize(2);
+        MultiMatchQuery first = query.bool().must().get(0).multiMatch();
+        assertThat(first.query()).isEqualTo("john");
+        assertThat(first.fields()).containsExactly("firstName^3", "region");
+        assertThat(first.type()).isEqualTo(TextQueryType.BestFields);
+        assertThat(first.fuzziness()).isEqualTo("AUTO");
+        assertThat(query.bool().must().get(1).multiMatch().query()).isEqualTo("kinondoni");
+    }
+
+    @Test
+    void rewritesWildcards() {
+        assertThat(searchQueries.build("*ohn", false).multiMatch().query()).isEqualTo("ohn");
+
+        MultiMatchQuery prefix = searchQueries.build("john kin*", false).bool().must().get(1).multiMatch();
+        assertThat(prefix.query()).isEqualTo("kin");
+        assertThat(prefix.type()).isEqualTo(TextQueryType.PhrasePrefix);
+        assertThat(prefix.maxExpansions()).isEqualTo(50);
+    }
+
+    @Test
+    void rejectsQueriesOutsideTheGuards() {
+        assertThatThrownBy(() -> searchQueries.build("* ?", false)).isInstanceOf(InvalidSearchQueryException.class);
+        assertThatThrownBy(() -> searchQueries.build("  ", false)).isInstanceOf(InvalidSearchQueryException.class);
+        assertThatThrownBy(() -> searchQueries.build("a b c d e f g h i j k", false)).isInstanceOf(InvalidSearchQueryException.class);
+        assertThatThrownBy(() -> searchQueries.build("x".repeat(257), true)).isInstanceOf(InvalidSearchQueryException.class);
+    }
+
+    @Test
+    void rawQueriesRefuseLeadingWildcards() {
+        Query query = searchQueries.build("firstName:jo*", true);
+
+        assertThat(query.queryString().query()).isEqualTo("firstName:jo*");
+        assertThat(query.queryString().allowLeadingWildcard()).isFalse();
+        assertThat(searchQueries.timeout()).isEqualTo(Duration.ofSeconds(2));
+    }
+}
@@ -0,0 +1,67 @@
+package com.vodacom.customerregistration.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vodacom.customerregistration.api.IntegrationTest;
+import com.vodacom.customerregistration.api.repository.ActivityLogPartitions;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@IntegrationTest
+class ActivityLogPartitionServiceIT {
+
+    @Autowired
+    private ActivityLogPartitionService partitionService;
+
+    @Autowired
+    private ActivityLogPartitions partitions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void maintain() {
+        partitionService.maintainPartitions();
+    }
+
+    @Test
+    void partitionsTheCurrentAndNextMonths() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+
+        assertThat(transactionTemplate.execute(status -> partitions.isPartitioned())).isTrue();
+        assertThat(transactionTemplate.execute(status -> partitions.months())).contains(
+            current,
+            current.plusMonths(1),
+            current.plusMonths(2)
+        );
+    }
+
+    @Test
+    void movesRowsOutOfTheDefaultPartitionWhenTheirMonthIsCreated() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).plusYears(5);
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+            "INSERT INTO activity_log (id, action_type, entity_type, \"timestamp\", created_by, created_date) VALUES (?, 'AGENT_LOGIN', 'Agent', ?, 'system', now())",
+            id,
+            month.atDay(15).atStartOfDay()
+        );
+
+        transactionTemplate.executeWithoutResult(status -> partitions.createMonth(month));
+
+        String partition = String.format("activity_log_p%04d_%02d", month.getYear(), month.getMonthValue());
+        assertThat(jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM activity_log WHERE id = ?", String.class, id)).isEqualTo(
+            partition
+        );
+        transactionTemplate.executeWithoutResult(status -> partitions.dropMonth(month));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM activity_log WHERE id = ?", Long.class, id)).isZero();
+    }
+}
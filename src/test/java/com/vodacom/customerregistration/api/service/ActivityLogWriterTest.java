@@ -0,0 +1,149 @@
+package com.vodacom.customerregistration.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.ActivityLog;
+import com.vodacom.customerregistration.api.repository.ActivityLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+class ActivityLogWriterTest {
+
+    private final ActivityLogRepository activityLogRepository = mock(ActivityLogRepository.class);
+    private final SearchIndexOutboxService searchIndexOutboxService = mock(SearchIndexOutboxService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties.ActivityLog.Writer properties = applicationProperties.getActivityLog().getWriter();
+        properties.setQueueCapacity(3);
+        properties.setBatchSize(2);
+        properties.setFlushIntervalMs(3_600_000);
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoffMs(1);
+    }
+
+    @Test
+    void dropsLogsWhileTheQueueIsFull() {
+        ActivityLogWriter writer = new ActivityLogWriter(activityLogRepository, searchIndexOutboxService, applicationProperties, registry);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(writer.submit(new ActivityLog())).isTrue();
+        }
+        assertThat(writer.submit(new ActivityLog())).isFalse();
+
+        assertThat(registry.get(ActivityLogWriter.EVENTS_METER_NAME).tag("outcome", "dropped").counter().count()).isEqualTo(1);
+        assertThat(registry.get(ActivityLogWriter.QUEUE_METER_NAME).gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void writesFullBatchesWithoutWaitingForTheFlushInterval() {
+        ActivityLogWriter writer = new ActivityLogWriter(activityLogRepository, searchIndexOutboxService, applicationProperties, registry);
+        writer.start();
+        try {
+            writer.submit(new ActivityLog());
+            writer.submit(new ActivityLog());
+
+            verify(activityLogRepository, timeout(5000)).insertAll(argThat(batch -> batch.size() == 2));
+            verify(searchIndexOutboxService, timeout(5000)).indexActivityLogs(argThat(batch -> batch.size() == 2));
+        } finally {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void drainsTheQueueOnStop() {
+        ActivityLogWriter writer = new ActivityLogWriter(activityLogRepository, searchIndexOutboxService, applicationProperties, registry);
+        writer.start();
+        writer.submit(new ActivityLog());
+
+        writer.stop();
+
+        verify(activityLogRepository).insertAll(argThat(batch -> batch.size() == 1));
+        assertThat(registry.get(ActivityLogWriter.EVENTS_METER_NAME).tag("outcome", "written").counter().count()).isEqualTo(1);
+        assertThat(registry.get(ActivityLogWriter.QUEUE_METER_NAME).gauge().value()).isZero();
+    }
+
+    @Test
+    void countsQueuedLogsUntilTheyAreWritten() {
+        ActivityLogWriter writer = new ActivityLogWriter(activityLogRepository, searchIndexOutboxService, applicationProperties, registry);
+        ActivityLog login = new ActivityLog().actionType(ActivityLog.ActionType.AGENT_LOGIN);
+        login.setCreatedBy("agent");
+        writer.submit(login);
+
+        assertThat(writer.pending("agent", ActivityLog.ActionType.AGENT_LOGIN)).isEqualTo(1);
+        assertThat(writer.pending(ActivityLogRepository.ROLLUP_ALL_USERS, ActivityLog.ActionType.AGENT_LOGIN)).isEqualTo(1);
+        assertThat(writer.pending("admin", ActivityLog.ActionType.AGENT_LOGIN)).isZero();
+
+        writer.start();
+        writer.stop();
+
+        assertThat(writer.pending("agent", ActivityLog.ActionType.AGENT_LOGIN)).isZero();
+        assertThat(writer.pending(ActivityLogRepository.ROLLUP_ALL_USERS, ActivityLog.ActionType.AGENT_LOGIN)).isZero();
+    }
+
+    @Test
+    void retriesAFailedBatchBeforeDroppingIt() {
+        doThrow(new TransientDataAccessResourceException("Connection refused"))
+            .doThrow(new TransientDataAccessResourceException("Connection refused"))
+            .doNothing()
+            .when(activityLogRepository)
+            .insertAll(any());
+        ActivityLogWriter writer = new ActivityLogWriter(activityLogRepository, searchIndexOutboxService, applicationProperties, registry);
+        writer.start();
+        writer.submit(new ActivityLog());
+
+        writer.stop();
+
+        verify(activityLogRepository, times(3)).insertAll(argThat(batch -> batch.size() == 1));
+        verify(searchIndexOutboxService).indexActivityLogs(argThat(batch -> batch.size() == 1));
+        assertThat(registry.get(ActivityLogWriter.EVENTS_METER_NAME).tag("outcome", "retried").counter().count()).isEqualTo(2);
+        assertThat(registry.get(ActivityLogWriter.EVENTS_METER_NAME).tag("outcome", "written").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsABatchThatFailsOnEveryAttempt() {
+        doThrow(new TransientDataAccessResourceException("Connection refused")).when(activityLogRepository).insertAll(any());
+        ActivityLogWriter writer = new ActivityLogWriter(activityLogRepository, searchIndexOutboxService, applicationProperties, registry);
+        writer.start();
+        writer.submit(new ActivityLog());
+
+        writer.stop();
+
+        verify(activityLogRepository, times(3)).insertAll(any());
+        verify(searchIndexOutboxService, never()).indexActivityLogs(any());
+        assertThat(registry.get(ActivityLogWriter.EVENTS_METER_NAME).tag("outcome", "failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsWritingAfterAnError() {
+        doThrow(new StackOverflowError()).doNothing().when(activityLogRepository).insertAll(any());
+        ActivityLogWriter writer = new ActivityLogWriter(activityLogRepository, searchIndexOutboxService, applicationProperties, registry);
+        writer.start();
+        try {
+            writer.submit(new ActivityLog());
+            writer.submit(new ActivityLog());
+            verify(activityLogRepository, timeout(5000)).insertAll(any());
+
+            writer.submit(new ActivityLog());
+            writer.submit(new ActivityLog());
+
+            verify(activityLogRepository, timeout(5000).times(2)).insertAll(any());
+            verify(searchIndexOutboxService, timeout(5000)).indexActivityLogs(any());
+        } finally {
+            writer.stop();
+        }
+    }
+}
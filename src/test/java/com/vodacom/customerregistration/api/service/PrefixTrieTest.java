@@ -0,0 +1,57 @@
+package com.vodacom.customerregistration.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+    @Test
+    void collectsValuesByPrefixInKeyOrder() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("john doe", "John Doe");
+        trie.add("john", "John");
+        trie.add("joan", "Joan");
+        trie.add("mary", "Mary");
+
+        assertThat(trie.collect("jo", 10)).containsExactly("Joan", "John", "John Doe");
+        assertThat(trie.collect("john", 10)).containsExactly("John", "John Doe");
+        assertThat(trie.collect("john d", 10)).containsExactly("John Doe");
+        assertThat(trie.collect("jx", 10)).isEmpty();
+        assertThat(trie.collect("john doe smith", 10)).isEmpty();
+        assertThat(trie.collect("jo", 2)).containsExactly("Joan", "John");
+    }
+
+    @Test
+    void keepsKeyUntilEveryReferenceIsRemoved() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.add("john", "John");
+        trie.add("john", "John");
+
+        trie.remove("john");
+        assertThat(trie.collect("jo", 10)).containsExactly("John");
+
+        trie.remove("john");
+        assertThat(trie.collect("jo", 10)).isEmpty();
+        assertThat(trie.size()).isZero();
+    }
+
+    @Test
+    void removingKeysCompactsTheTrie() {
+        PrefixTrie trie = new PrefixTrie();
+        long empty = trie.estimatedBytes();
+        trie.add("john", "John");
+        trie.add("joan", "Joan");
+        trie.add("jo", "Jo");
+
+        trie.remove("jo");
+        trie.remove("joan");
+        assertThat(trie.collect("j", 10)).containsExactly("John");
+        assertThat(trie.collect("joh", 10)).containsExactly("John");
+
+        trie.remove("john");
+        trie.remove("unknown");
+        assertThat(trie.collect("", 10)).isEmpty();
+        assertThat(trie.estimatedBytes()).isEqualTo(empty);
+    }
+}
@@ -0,0 +1,168 @@
+package com.vodacom.customerregistration.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.domain.Customer;
+import com.vodacom.customerregistration.api.domain.SearchIndexOutbox;
+import com.vodacom.customerregistration.api.repository.ActivityLogRepository;
+import com.vodacom.customerregistration.api.repository.AgentRepository;
+import com.vodacom.customerregistration.api.repository.CustomerRepository;
+import com.vodacom.customerregistration.api.repository.SearchIndexOutboxRepository;
+import com.vodacom.customerregistration.api.repository.SearchReindexJobRepository;
+import com.vodacom.customerregistration.api.repository.search.ActivityLogSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.AgentSearchRepository;
+import com.vodacom.customerregistration.api.repository.search.CustomerSearchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class SearchIndexOutboxServiceTest {
+
+    private final SearchIndexOutboxRepository outboxRepository = mock(SearchIndexOutboxRepository.class);
+    private final CustomerRepository customerRepository = mock(CustomerRepository.class);
+    private final CustomerSearchRepository customerSearchRepository = mock(CustomerSearchRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+    private SearchIndexOutboxService service;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties.Search.Outbox properties = applicationProperties.getSearch().getOutbox();
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoffMs(1000);
+        properties.setMaxBackoffMs(60_000);
+        service = new SearchIndexOutboxService(
+            outboxRepository,
+            mock(SearchReindexJobRepository.class),
+            customerRepository,
+            mock(AgentRepository.class),
+            mock(ActivityLogRepository.class),
+            customerSearchRepository,
+            mock(AgentSearchRepository.class),
+            mock(ActivityLogSearchRepository.class),
+            new SearchResultCache(applicationProperties, registry),
+            mock(PlatformTransactionManager.class),
+            applicationProperties,
+            registry
+        );
+    }
+
+    @Test
+    void appliesOnlyTheLatestEventOfAnEntityInOneBulkRequest() {
+        Customer updated = customer();
+        UUID deleted = UUID.randomUUID();
+        SearchIndexOutbox first = event(updated.getId(), SearchIndexOutbox.Operation.INDEX);
+        SearchIndexOutbox second = event(updated.getId(), SearchIndexOutbox.Operation.INDEX);
+        SearchIndexOutbox indexed = event(deleted, SearchIndexOutbox.Operation.INDEX);
+        SearchIndexOutbox delete = event(deleted, SearchIndexOutbox.Operation.DELETE);
+        claim(first, second, indexed, delete);
+        when(customerRepository.findAllById(Set.of(updated.getId()))).thenReturn(List.of(updated));
+        when(customerSearchRepository.bulkWrite(List.of(updated), Set.of(deleted))).thenReturn(Map.of());
+
+        assertThat(service.dispatchBatch()).isEqualTo(4);
+
+        verify(customerSearchRepository).bulkWrite(List.of(updated), Set.of(deleted));
+        verify(outboxRepository).deleteAllInBatch(List.of(first, second, indexed));
+        verify(outboxRepository).updateStatus(List.of(delete.getId()), SearchIndexOutbox.Status.DISPATCHED);
+        verify(outboxRepository, never()).recordFailure(any(), any(), anyInt(), anyString(), any());
+        assertThat(registry.get(SearchIndexOutboxService.EVENTS_METER_NAME).tag("outcome", "dispatched").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    void leasesClaimedEventsUntilTheirOutcomeIsRecorded() {
+        SearchIndexOutbox event = event(UUID.randomUUID(), SearchIndexOutbox.Operation.DELETE);
+        claim(event);
+        when(customerSearchRepository.bulkWrite(List.of(), Set.of(event.getEntityId()))).thenReturn(Map.of());
+        Instant before = Instant.now();
+
+        service.dispatchBatch();
+
+        assertThat(event.getNextAttemptAt()).isAfterOrEqualTo(before.plusMillis(applicationProperties.getSearch().getOutbox().getClaimTimeoutMs()));
+    }
+
+    @Test
+    void retriesRejectedDocumentsWithExponentialBackoff() {
+        Customer rejected = customer();
+        Customer accepted = customer();
+        SearchIndexOutbox failing = event(rejected.getId(), SearchIndexOutbox.Operation.INDEX);
+        failing.setAttempts(1);
+        SearchIndexOutbox passing = event(accepted.getId(), SearchIndexOutbox.Operation.INDEX);
+        claim(failing, passing);
+        when(customerRepository.findAllById(Set.of(rejected.getId(), accepted.getId()))).thenReturn(List.of(rejected, accepted));
+        when(customerSearchRepository.bulkWrite(List.of(rejected, accepted), Set.of())).thenReturn(Map.of(rejected.getId(), "mapper_parsing_exception"));
+        Instant before = Instant.now();
+
+        service.dispatchBatch();
+
+        ArgumentCaptor<Instant> nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxRepository).recordFailure(
+            eq(failing.getId()),
+            eq(SearchIndexOutbox.Status.PENDING),
+            eq(2),
+            eq("mapper_parsing_exception"),
+            nextAttemptAt.capture()
+        );
+        assertThat(Duration.between(before, nextAttemptAt.getValue())).isBetween(Duration.ofMillis(2000), Duration.ofMillis(3000));
+        verify(outboxRepository).deleteAllInBatch(List.of(passing));
+        assertThat(registry.get(SearchIndexOutboxService.EVENTS_METER_NAME).tag("outcome", "retried").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void parksEventsThatExhaustTheirAttemptsAsDeadLetters() {
+        SearchIndexOutbox event = event(UUID.randomUUID(), SearchIndexOutbox.Operation.DELETE);
+        event.setAttempts(2);
+        claim(event);
+        when(customerSearchRepository.bulkWrite(anyCollection(), anyCollection())).thenThrow(new IllegalStateException("Connection refused"));
+
+        service.dispatchBatch();
+
+        verify(outboxRepository).recordFailure(eq(event.getId()), eq(SearchIndexOutbox.Status.DEAD_LETTER), eq(3), eq("Connection refused"), any());
+        verify(outboxRepository, never()).updateStatus(anyCollection(), any());
+        assertThat(registry.get(SearchIndexOutboxService.EVENTS_METER_NAME).tag("outcome", "dead-lettered").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void claimsNothingWhenNoEventIsDue() {
+        claim();
+
+        assertThat(service.dispatchBatch()).isZero();
+
+        verify(customerSearchRepository, never()).bulkWrite(anyCollection(), anyCollection());
+    }
+
+    private void claim(SearchIndexOutbox... events) {
+        when(outboxRepository.findDueForUpdateSkipLocked(eq(SearchIndexOutbox.Status.PENDING), any(), any())).thenReturn(List.of(events));
+    }
+
+    private static SearchIndexOutbox event(UUID entityId, SearchIndexOutbox.Operation operation) {
+        return new SearchIndexOutbox()
+            .id(UUID.randomUUID())
+            .entityType(SearchIndexOutboxService.ENTITY_CUSTOMER)
+            .entityId(entityId)
+            .operation(operation);
+    }
+
+    private static Customer customer() {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        return customer;
+    }
+}
@@ -0,0 +1,99 @@
+package com.vodacom.customerregistration.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.vodacom.customerregistration.api.config.ApplicationProperties;
+import com.vodacom.customerregistration.api.repository.search.SearchBackend;
+import com.vodacom.customerregistration.api.repository.search.SearchPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+class SearchResultCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger searches = new AtomicInteger();
+    private ApplicationProperties applicationProperties;
+    private SearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().getCache().setMaxEntries(2);
+        cache = new SearchResultCache(applicationProperties, registry);
+    }
+
+    @Test
+    void servesRepeatedQueriesFromTheCache() {
+        search(SearchResultCache.Index.CUSTOMER, "Kinondoni  Ward");
+        search(SearchResultCache.Index.CUSTOMER, "kinondoni ward");
+        search(SearchResultCache.Index.AGENT, "kinondoni ward");
+
+        assertThat(searches).hasValue(2);
+        assertThat(registry.get("cache.gets").tag("cache", "customer-search").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("cache", "customer-search").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void writesDropCachedResults() {
+        search(SearchResultCache.Index.CUSTOMER, "john");
+        cache.invalidate(SearchResultCache.Index.CUSTOMER);
+        search(SearchResultCache.Index.CUSTOMER, "john");
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void searchesRacingAWriteAreNotCached() {
+        cache.get(SearchResultCache.Index.CUSTOMER, "john", false, PageRequest.of(0, 20), () -> {
+            cache.invalidate(SearchResultCache.Index.CUSTOMER);
+            return page();
+        });
+        search(SearchResultCache.Index.CUSTOMER, "john");
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void databaseFallbackResultsAreNotCached() {
+        for (int i = 0; i < 2; i++) {
+            cache.get(SearchResultCache.Index.CUSTOMER, "john", false, PageRequest.of(0, 20), () -> {
+                searches.incrementAndGet();
+                return new SearchPage<>(List.of("result"), PageRequest.of(0, 20), 1, SearchBackend.POSTGRES);
+            });
+        }
+        search(SearchResultCache.Index.CUSTOMER, "john");
+        search(SearchResultCache.Index.CUSTOMER, "john");
+
+        assertThat(searches).hasValue(3);
+        assertThat(registry.get("cache.puts").tag("cache", "customer-search").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        search(SearchResultCache.Index.CUSTOMER, "a");
+        search(SearchResultCache.Index.CUSTOMER, "b");
+        search(SearchResultCache.Index.CUSTOMER, "a");
+        search(SearchResultCache.Index.CUSTOMER, "c");
+        search(SearchResultCache.Index.CUSTOMER, "a");
+        search(SearchResultCache.Index.CUSTOMER, "b");
+
+        assertThat(searches).hasValue(4);
+        assertThat(registry.get("cache.evictions").tag("cache", "customer-search").counter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.size").tag("cache", "customer-search").gauge().value()).isEqualTo(2);
+    }
+
+    private void search(SearchResultCache.Index index, String query) {
+        cache.get(index, query, false, PageRequest.of(0, 20), this::page);
+    }
+
+    private Page<String> page() {
+        searches.incrementAndGet();
+        return new PageImpl<>(List.of("result"));
+    }
+}
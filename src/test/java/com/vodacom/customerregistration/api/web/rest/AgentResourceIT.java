@@ -16,6 +16,7 @@ import com.vodacom.customerregistration.api.domain.enumeration.AgentStatus;
 import com.vodacom.customerregistration.api.repository.AgentRepository;
 import com.vodacom.customerregistration.api.repository.UserRepository;
 import com.vodacom.customerregistration.api.repository.search.AgentSearchRepository;
+import com.vodacom.customerregistration.api.service.SearchIndexOutboxService;
 import com.vodacom.customerregistration.api.service.dto.AgentDTO;
 import com.vodacom.customerregistration.api.service.mapper.AgentMapper;
 import jakarta.persistence.EntityManager;
@@ -76,6 +77,9 @@ class AgentResourceIT {
     @Autowired
     private AgentSearchRepository agentSearchRepository;
 
+    @Autowired
+    private SearchIndexOutboxService searchIndexOutboxService;
+
     @Autowired
     private EntityManager em;
 
@@ -155,6 +159,7 @@ class AgentResourceIT {
         var returnedAgent = agentMapper.toEntity(returnedAgentDTO);
         assertAgentUpdatableFieldsEquals(returnedAgent, getPersistedAgent(returnedAgent));
 
+        searchIndexOutboxService.dispatchBatch();
         await()
             .atMost(5, TimeUnit.SECONDS)
             .untilAsserted(() -> {
@@ -450,6 +455,7 @@ class AgentResourceIT {
         assertSameRepositoryCount(databaseSizeBeforeUpdate);
         assertPersistedAgentToMatchAllProperties(updatedAgent);
 
+        searchIndexOutboxService.dispatchBatch();
         await()
             .atMost(5, TimeUnit.SECONDS)
             .untilAsserted(() -> {
@@ -676,6 +682,7 @@ class AgentResourceIT {
             .andExpect(status().isNoContent());
 
         // Validate the database contains one less item
+        searchIndexOutboxService.dispatchBatch();
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
         int searchDatabaseSizeAfter = IterableUtil.sizeOf(agentSearchRepository.findAll());
         assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
@@ -14,6 +14,7 @@ import com.vodacom.customerregistration.api.domain.Agent;
 import com.vodacom.customerregistration.api.domain.Customer;
 import com.vodacom.customerregistration.api.repository.CustomerRepository;
 import com.vodacom.customerregistration.api.repository.search.CustomerSearchRepository;
+import com.vodacom.customerregistration.api.service.SearchIndexOutboxService;
 import com.vodacom.customerregistration.api.service.dto.CustomerDTO;
 import com.vodacom.customerregistration.api.service.mapper.CustomerMapper;
 import jakarta.persistence.EntityManager;
@@ -82,6 +83,9 @@ class CustomerResourceIT {
     @Autowired
     private CustomerSearchRepository customerSearchRepository;
 
+    @Autowired
+    private SearchIndexOutboxService searchIndexOutboxService;
+
     @Autowired
     private EntityManager em;
 
@@ -182,6 +186,7 @@ class CustomerResourceIT {
         var returnedCustomer = customerMapper.toEntity(returnedCustomerDTO);
         assertCustomerUpdatableFieldsEquals(returnedCustomer, getPersistedCustomer(returnedCustomer));
 
+        searchIndexOutboxService.dispatchBatch();
         await()
             .atMost(5, TimeUnit.SECONDS)
             .untilAsserted(() -> {
@@ -676,6 +681,7 @@ class CustomerResourceIT {
         assertSameRepositoryCount(databaseSizeBeforeUpdate);
         assertPersistedCustomerToMatchAllProperties(updatedCustomer);
 
+        searchIndexOutboxService.dispatchBatch();
         await()
             .atMost(5, TimeUnit.SECONDS)
             .untilAsserted(() -> {
@@ -907,6 +913,7 @@ class CustomerResourceIT {
             .andExpect(status().isNoContent());
 
         // Validate the database contains one less item
+        searchIndexOutboxService.dispatchBatch();
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
         int searchDatabaseSizeAfter = IterableUtil.sizeOf(customerSearchRepository.findAll());
         assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);